@@ -0,0 +1,145 @@
+package com.botmanager.console;
+
+import com.botmanager.logstore.BotLogStore;
+import com.botmanager.logstore.BotLogStores;
+import javafx.collections.ObservableList;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One console: the lock-free buffer that producers write into, paired with the
+ * bounded scrollback the view displays. Each bot owns one channel; the manager
+ * keeps another for messages that do not belong to a bot.
+ * <p>
+ * A bot channel also records every line in the bot's on-disk {@link BotLogStore},
+ * opened on first use, and exposes a {@link #getView() view} that continues into
+ * that history once the in-memory window runs out. Producers only queue the line; the
+ * {@link BotLogStores#writer() log writer} appends it to disk in queue order, and the
+ * window shows it once it has been written.
+ */
+public final class ConsoleChannel {
+
+    /** Lines appended to disk per writer task, so closing the log never waits long. */
+    private static final int WRITE_BATCH_LINES = 4096;
+
+    private final ConsoleLineBuffer pending;
+    private ConsoleLineStore lines;
+    private final String logId;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    private boolean logOpened;
+    private BotLogStore log;
+    private long historyLines;
+    private ObservableList<String> view;
+    private FilteredConsoleView filteredView;
+
+    /**
+     * Creates a memory-only channel.
+     */
+    public ConsoleChannel() {
+        this(null);
+    }
+
+    /**
+     * @param logId Id of the bot whose on-disk log backs this channel, or null for memory only.
+     */
+    public ConsoleChannel(String logId) {
+        this.logId = logId;
+        this.pending = new ConsoleLineBuffer(logId != null);
+    }
+
+    /**
+     * Queues a line the manager wrote for display and appends it to the on-disk log. Safe to call from any thread.
+     */
+    public void offer(String line) {
+        offer(line, LogLines.NONE);
+    }
+
+    /**
+     * Queues a line for display and appends it to the on-disk log. Safe to call from any thread.
+     *
+     * @param meta The line's header as packed by {@link LogLines}.
+     */
+    public void offer(String line, long meta) {
+        if (line == null) {
+            return;
+        }
+        pending.offer(line, meta);
+        if (logId != null && writeScheduled.compareAndSet(false, true)) {
+            BotLogStores.writer().execute(this::writeLog);
+        }
+    }
+
+    /**
+     * Appends queued lines to the on-disk log. Runs on the log writer, never on a producer.
+     */
+    private void writeLog() {
+        writeScheduled.set(false); // a line queued from here on schedules another run
+        int written;
+        synchronized (this) {
+            BotLogStore store = log();
+            written = pending.writeTo(store != null ? store::append : line -> { }, WRITE_BATCH_LINES);
+        }
+        if (written == WRITE_BATCH_LINES && writeScheduled.compareAndSet(false, true)) {
+            BotLogStores.writer().execute(this::writeLog);
+        }
+    }
+
+    public ConsoleLineBuffer getPending() {
+        return pending;
+    }
+
+    /**
+     * @return The in-memory window, allocated on first use so idle bots cost next to nothing;
+     *         only touch it on the FX thread.
+     */
+    public ConsoleLineStore getLines() {
+        if (lines == null) {
+            lines = new ConsoleLineStore();
+        }
+        return lines;
+    }
+
+    /**
+     * @return The list to show in the console: history from disk followed by the in-memory window.
+     *         FX thread only.
+     */
+    public synchronized ObservableList<String> getView() {
+        if (view == null) {
+            BotLogStore store = log();
+            view = store != null ? new ScrollbackView(getLines(), store, historyLines) : getLines();
+        }
+        return view;
+    }
+
+    /**
+     * @return The in-memory window filtered by level and logger, created on first use. FX thread only.
+     */
+    public FilteredConsoleView getFilteredView() {
+        if (filteredView == null) {
+            filteredView = new FilteredConsoleView(getLines());
+        }
+        return filteredView;
+    }
+
+    /**
+     * Closes the on-disk log; further lines are kept in memory only.
+     */
+    public synchronized void closeLog() {
+        if (log != null) {
+            BotLogStores.release(logId);
+            log = null;
+        }
+    }
+
+    private BotLogStore log() {
+        if (!logOpened) {
+            logOpened = true;
+            log = BotLogStores.forBot(logId);
+            if (log != null) {
+                historyLines = log.getLineCount();
+            }
+        }
+        return log;
+    }
+}
@@ -0,0 +1,172 @@
+package com.botmanager.console;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Pulse-driven drain for console output.
+ * Runs on the JavaFX pulse (AnimationTimer), collects every pending line of each
+ * registered {@link ConsoleChannel} and appends them to that channel's scrollback as a
+ * single batch, so each console sees at most one change (and one auto-scroll) per
+ * frame no matter how chatty the bots are.
+ */
+public final class ConsoleFlusher {
+
+    /** Caps a single frame's work so a backlog is spread over several pulses instead of stalling one. */
+    private static final int MAX_LINES_PER_PULSE = 5_000;
+    private static final long STATS_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final List<ConsoleChannel> channels = new CopyOnWriteArrayList<>();
+    private final Consumer<ConsoleChannel> afterFlush;
+    private final List<String> batch = new ArrayList<>(1024);
+    private final long[] batchMeta = new long[MAX_LINES_PER_PULSE];
+    private final AnimationTimer timer;
+
+    private Consumer<Stats> statsListener;
+    private long retiredIngestedLines;
+    private long renderedLines;
+    private long flushes;
+    private long pulses;
+
+    private long windowStartNanos;
+    private long windowIngestedBase;
+    private long windowRenderedBase;
+    private long windowFlushesBase;
+
+    /**
+     * @param afterFlush Invoked on the FX thread for each channel that received lines in a pulse
+     *                   (e.g. to auto-scroll the visible one). May be null.
+     */
+    public ConsoleFlusher(Consumer<ConsoleChannel> afterFlush) {
+        this.afterFlush = afterFlush;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pulse(now);
+            }
+        };
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Registers a channel for draining. Registering the same channel twice has no effect.
+     */
+    public void register(ConsoleChannel channel) {
+        if (channel != null && !channels.contains(channel)) {
+            channels.add(channel);
+        }
+    }
+
+    /**
+     * Stops draining a channel. Lines still pending in it are discarded.
+     */
+    public void unregister(ConsoleChannel channel) {
+        if (channel != null && channels.remove(channel)) {
+            channel.getPending().discardPending();
+            retiredIngestedLines += channel.getPending().getIngestedLines();
+        }
+    }
+
+    /**
+     * Sets the listener that receives throughput stats roughly once a second (FX thread).
+     */
+    public void setStatsListener(Consumer<Stats> statsListener) {
+        this.statsListener = statsListener;
+    }
+
+    private void pulse(long now) {
+        int drained = 0;
+        ConsoleChannel[] snapshot = channels.toArray(new ConsoleChannel[0]);
+        // Rotate the starting channel so one flooding bot cannot starve the others under the per-pulse cap.
+        int start = snapshot.length == 0 ? 0 : (int) (pulses++ % snapshot.length);
+        for (int i = 0; i < snapshot.length && drained < MAX_LINES_PER_PULSE; i++) {
+            ConsoleChannel channel = snapshot[(start + i) % snapshot.length];
+            int n = channel.getPending().drainTo(batch, batchMeta, MAX_LINES_PER_PULSE - drained);
+            if (n == 0) {
+                continue;
+            }
+            channel.getLines().appendAll(batch, batchMeta);
+            batch.clear();
+            drained += n;
+            flushes++;
+            if (afterFlush != null) {
+                afterFlush.accept(channel);
+            }
+        }
+        renderedLines += drained;
+
+        publishStats(now);
+    }
+
+    private void publishStats(long now) {
+        if (windowStartNanos == 0) {
+            windowStartNanos = now;
+            windowIngestedBase = totalIngestedLines();
+            return;
+        }
+        long elapsed = now - windowStartNanos;
+        if (elapsed < STATS_INTERVAL_NANOS) {
+            return;
+        }
+
+        long ingested = totalIngestedLines();
+        double seconds = elapsed / 1_000_000_000.0;
+        Stats stats = new Stats(
+                (ingested - windowIngestedBase) / seconds,
+                (renderedLines - windowRenderedBase) / seconds,
+                (flushes - windowFlushesBase) / seconds);
+
+        windowStartNanos = now;
+        windowIngestedBase = ingested;
+        windowRenderedBase = renderedLines;
+        windowFlushesBase = flushes;
+
+        if (statsListener != null) {
+            statsListener.accept(stats);
+        }
+    }
+
+    private long totalIngestedLines() {
+        long total = retiredIngestedLines;
+        for (ConsoleChannel channel : channels) {
+            total += channel.getPending().getIngestedLines();
+        }
+        return total;
+    }
+
+    /**
+     * Throughput snapshot: lines offered by pumps vs. lines rendered and the number of UI appends it took.
+     */
+    public static final class Stats {
+        private final double ingestedLinesPerSecond;
+        private final double renderedLinesPerSecond;
+        private final double flushesPerSecond;
+
+        Stats(double ingestedLinesPerSecond, double renderedLinesPerSecond, double flushesPerSecond) {
+            this.ingestedLinesPerSecond = ingestedLinesPerSecond;
+            this.renderedLinesPerSecond = renderedLinesPerSecond;
+            this.flushesPerSecond = flushesPerSecond;
+        }
+
+        public double getIngestedLinesPerSecond() { return ingestedLinesPerSecond; }
+        public double getRenderedLinesPerSecond() { return renderedLinesPerSecond; }
+        public double getFlushesPerSecond() { return flushesPerSecond; }
+
+        @Override
+        public String toString() {
+            return String.format("In: %,.0f lines/s | Rendered: %,.0f lines/s in %.0f appends/s",
+                    ingestedLinesPerSecond, renderedLinesPerSecond, flushesPerSecond);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.botmanager.console;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free staging buffer for console lines produced off the FX thread.
+ * Output pumps {@link #offer(String, long)} lines as fast as they read them; the
+ * {@link ConsoleFlusher} drains everything that is pending once per pulse.
+ * <p>
+ * A linked queue for many producers and the one FX-thread consumer, whose nodes carry
+ * each line's packed {@link LogLines} header along with its text, so the header costs
+ * no allocation of its own.
+ * <p>
+ * A buffer backing an on-disk log has a second consumer, the log writer, walking the same
+ * links. Lines are numbered in link order; the window only drains lines whose number is
+ * below the count the writer has published, so a line is on disk before it is shown.
+ */
+public final class ConsoleLineBuffer {
+
+    private final AtomicReference<Node> tail;
+    private Node head;
+    private long drainedLines;
+    private final boolean logged;
+    private Node logHead;
+    private volatile long loggedLines;
+    private final AtomicLong ingestedLines = new AtomicLong();
+
+    public ConsoleLineBuffer() {
+        this(false);
+    }
+
+    /**
+     * @param logged Whether lines must pass {@link #writeTo} before the window may drain them.
+     */
+    public ConsoleLineBuffer(boolean logged) {
+        head = new Node(null, LogLines.NONE);
+        tail = new AtomicReference<>(head);
+        this.logged = logged;
+        logHead = logged ? head : null;
+    }
+
+    /**
+     * Queues a single line (without trailing newline) written by the manager. Safe to call from any thread.
+     *
+     * @param line The line to queue.
+     */
+    public void offer(String line) {
+        offer(line, LogLines.NONE);
+    }
+
+    /**
+     * Queues a single line (without trailing newline). Safe to call from any thread.
+     *
+     * @param line The line to queue.
+     * @param meta The line's header as packed by {@link LogLines}.
+     */
+    public void offer(String line, long meta) {
+        if (line == null) {
+            return;
+        }
+        Node node = new Node(line, meta);
+        // The consumer stops at a link that is not set yet and picks it up on the next drain.
+        tail.getAndSet(node).next = node;
+        ingestedLines.incrementAndGet();
+    }
+
+    /**
+     * Moves up to {@code maxLines} pending lines into the given list, oldest first. FX thread only.
+     *
+     * @param target   The list receiving the drained lines.
+     * @param meta     Receives each line's header at the index the line gets in {@code target}.
+     * @param maxLines Upper bound on lines drained in this call.
+     * @return The number of lines drained.
+     */
+    int drainTo(List<String> target, long[] meta, int maxLines) {
+        long limit = logged ? loggedLines : Long.MAX_VALUE;
+        int drained = 0;
+        Node next;
+        while (drained < maxLines && drainedLines < limit && (next = head.next) != null) {
+            meta[target.size()] = next.meta;
+            target.add(next.line);
+            head = next;
+            drainedLines++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Hands up to {@code maxLines} lines to the log, oldest first, and releases them to the
+     * window. Only ever call from one thread at a time.
+     *
+     * @return The number of lines written.
+     */
+    int writeTo(Consumer<String> log, int maxLines) {
+        if (!logged) {
+            throw new IllegalStateException("Buffer has no log");
+        }
+        int written = 0;
+        Node next;
+        while (written < maxLines && (next = logHead.next) != null) {
+            log.accept(next.line);
+            logHead = next;
+            written++;
+        }
+        if (written > 0) {
+            loggedLines += written; // single writer
+        }
+        return written;
+    }
+
+    /**
+     * @return {@code true} if lines are waiting to be flushed.
+     */
+    public boolean hasPending() {
+        return head.next != null && (!logged || drainedLines < loggedLines);
+    }
+
+    /**
+     * Drops anything not yet flushed. FX thread only.
+     */
+    public void discardPending() {
+        Node next;
+        while ((next = head.next) != null) {
+            head = next;
+            drainedLines++;
+        }
+    }
+
+    /**
+     * @return Total number of lines ever offered to this buffer.
+     */
+    public long getIngestedLines() {
+        return ingestedLines.get();
+    }
+
+    private static final class Node {
+        final String line;
+        final long meta;
+        volatile Node next;
+
+        Node(String line, long meta) {
+            this.line = line;
+            this.meta = meta;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.botmanager.console;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded, observable scrollback backing the virtualized console view.
+ * <p>
+ * Text is kept in a ring of fixed-size {@code char[]} chunks and each line is just an
+ * offset/length pair, so a store's footprint is capped by {@code maxChars} and
+ * {@code maxLines} no matter how long the bot runs. Chunks are allocated on first
+ * write, so an idle bot costs next to nothing. Strings are only materialized in
+ * {@link #get(int)}, i.e. for the cells the view actually shows.
+ * <p>
+ * Every batch is published as one list change. Evicted lines are reported by count
+ * only (as empty placeholders): their characters have already been recycled.
+ * <p>
+ * Each line also keeps its packed {@link LogLines} header, which {@link FilteredConsoleView}
+ * filters on without materializing the line.
+ */
+public final class ConsoleLineStore extends ObservableListBase<String> {
+
+    /** Default line limit, overridable with {@code -Dbotmanager.console.maxLines=N}. */
+    public static final int DEFAULT_MAX_LINES = Integer.getInteger("botmanager.console.maxLines", 10_000);
+    /** Default character limit, overridable with {@code -Dbotmanager.console.maxChars=N}. */
+    public static final int DEFAULT_MAX_CHARS = Integer.getInteger("botmanager.console.maxChars", 1 << 20);
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final char[][] chunks;
+    private final long charCapacity;
+    private final long[] lineStart;
+    private final int[] lineLength;
+    private final long[] lineMeta;
+
+    private int head;
+    private int size;
+    private long writePos;
+    private long appendedTotal;
+
+    public ConsoleLineStore() {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * @param maxLines Maximum number of lines kept.
+     * @param maxChars Maximum number of characters kept (rounded up to whole chunks).
+     */
+    public ConsoleLineStore(int maxLines, int maxChars) {
+        if (maxLines <= 0 || maxChars <= 0) {
+            throw new IllegalArgumentException("Scrollback limits must be positive: lines=" + maxLines + ", chars=" + maxChars);
+        }
+        int chunkCount = (maxChars + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        this.chunks = new char[chunkCount][];
+        this.charCapacity = (long) chunkCount << CHUNK_SHIFT;
+        this.lineStart = new long[maxLines];
+        this.lineLength = new int[maxLines];
+        this.lineMeta = new long[maxLines];
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int slot = slot(index);
+        int length = lineLength[slot];
+        char[] out = new char[length];
+        long pos = lineStart[slot];
+        int copied = 0;
+        while (copied < length) {
+            int ringPos = (int) (pos % charCapacity);
+            int offset = ringPos & CHUNK_MASK;
+            int n = Math.min(length - copied, CHUNK_SIZE - offset);
+            System.arraycopy(chunks[ringPos >>> CHUNK_SHIFT], offset, out, copied, n);
+            copied += n;
+            pos += n;
+        }
+        return new String(out);
+    }
+
+    /**
+     * @return The line's header as packed by {@link LogLines}.
+     */
+    public long getMeta(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return lineMeta[slot(index)];
+    }
+
+    /**
+     * @return {@code true} if the line has {@code text} at char {@code offset}; compares in place.
+     */
+    public boolean regionMatches(int index, int offset, String text) {
+        int slot = slot(index);
+        if (offset < 0 || offset + text.length() > lineLength[slot]) {
+            return false;
+        }
+        long pos = lineStart[slot] + offset;
+        for (int i = 0; i < text.length(); i++, pos++) {
+            int ringPos = (int) (pos % charCapacity);
+            if (chunks[ringPos >>> CHUNK_SHIFT][ringPos & CHUNK_MASK] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The configured line limit.
+     */
+    public int getMaxLines() {
+        return lineStart.length;
+    }
+
+    /**
+     * @return Number of lines ever appended, including those since evicted or cleared.
+     */
+    public long getAppendedTotal() {
+        return appendedTotal;
+    }
+
+    /**
+     * @return Characters currently held (not counting unused chunk space).
+     */
+    public long getRetainedChars() {
+        return size == 0 ? 0 : writePos - lineStart[head];
+    }
+
+    /**
+     * Appends a batch of lines as a single change, evicting the oldest lines when
+     * either limit is exceeded. Must be called on the FX thread.
+     *
+     * @param batch Lines to append, oldest first.
+     */
+    public void appendAll(List<String> batch) {
+        appendAll(batch, null);
+    }
+
+    /**
+     * Like {@link #appendAll(List)}, with each line's {@link LogLines} header.
+     *
+     * @param meta Header of {@code batch.get(i)} at index {@code i}, or null for manager lines.
+     */
+    public void appendAll(List<String> batch, long[] meta) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int oldSize = size;
+        int evicted = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            evicted += write(batch.get(i), meta != null ? meta[i] : LogLines.NONE);
+        }
+
+        // Lines that were both added and evicted within this batch never became visible.
+        int evictedExisting = Math.min(evicted, oldSize);
+        beginChange();
+        try {
+            if (evictedExisting > 0) {
+                nextRemove(0, Collections.nCopies(evictedExisting, ""));
+            }
+            nextAdd(oldSize - evictedExisting, size);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Convenience for appending a single line.
+     */
+    public void append(String line) {
+        appendAll(Collections.singletonList(line));
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        int removed = size;
+        head = 0;
+        size = 0;
+        beginChange();
+        try {
+            nextRemove(0, Collections.nCopies(removed, ""));
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Copies one line into the ring.
+     *
+     * @return How many lines had to be evicted to make room.
+     */
+    private int write(String line, long meta) {
+        int length = (int) Math.min(line.length(), charCapacity);
+        int maxLines = lineStart.length;
+
+        int evicted = 0;
+        while (size > 0 && (size == maxLines || writePos + length - lineStart[head] > charCapacity)) {
+            head = (head + 1) % maxLines;
+            size--;
+            evicted++;
+        }
+
+        int slot = slot(size);
+        lineStart[slot] = writePos;
+        lineLength[slot] = length;
+        lineMeta[slot] = meta;
+
+        int copied = 0;
+        while (copied < length) {
+            int ringPos = (int) (writePos % charCapacity);
+            int chunkIndex = ringPos >>> CHUNK_SHIFT;
+            int offset = ringPos & CHUNK_MASK;
+            int n = Math.min(length - copied, CHUNK_SIZE - offset);
+            char[] chunk = chunks[chunkIndex];
+            if (chunk == null) {
+                chunk = chunks[chunkIndex] = new char[CHUNK_SIZE];
+            }
+            line.getChars(copied, copied + n, chunk, offset);
+            copied += n;
+            writePos += n;
+        }
+        size++;
+        appendedTotal++;
+        return evicted;
+    }
+
+    private int slot(int index) {
+        return (head + index) % lineStart.length;
+    }
+}
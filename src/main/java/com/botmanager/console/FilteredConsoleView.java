@@ -0,0 +1,166 @@
+package com.botmanager.console;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * The lines of a console's in-memory window that pass a level and logger filter.
+ * <p>
+ * Works on the packed {@link LogLines} headers the output pump attached to each line,
+ * so no line is parsed or materialized to be filtered. Only lines appended since the
+ * last change are evaluated; the whole window is re-evaluated only when the filter
+ * itself changes. Lines without a header that follow a bot's log entry (stack traces,
+ * multi-line messages) share that entry's fate; lines the manager wrote always pass.
+ * History that is only on disk is not filtered.
+ */
+public final class FilteredConsoleView extends ObservableListBase<String> {
+
+    private final ConsoleLineStore source;
+
+    private LogLevel minLevel;
+    private String loggerPrefix = "";
+
+    /** Absolute numbers (as counted by {@link ConsoleLineStore#getAppendedTotal()}) of passing lines. */
+    private long[] matches = new long[64];
+    private int head;
+    private int count;
+    private long evaluatedTo;
+    private boolean entryPasses = true;
+
+    FilteredConsoleView(ConsoleLineStore source) {
+        this.source = source;
+        evaluatedTo = firstLine();
+        evaluate();
+        source.addListener((ListChangeListener<String>) change -> onSourceChanged());
+    }
+
+    public LogLevel getMinLevel() {
+        return minLevel;
+    }
+
+    public String getLoggerPrefix() {
+        return loggerPrefix;
+    }
+
+    /**
+     * @param minLevel     Least severe level shown, or null for all.
+     * @param loggerPrefix Shown loggers' name prefix, or empty for all. Lines without a logger are hidden when set.
+     */
+    public void setFilter(LogLevel minLevel, String loggerPrefix) {
+        String prefix = loggerPrefix == null ? "" : loggerPrefix.trim();
+        if (minLevel == this.minLevel && prefix.equals(this.loggerPrefix)) {
+            return;
+        }
+        this.minLevel = minLevel;
+        this.loggerPrefix = prefix;
+        int removed = count;
+        head = 0;
+        count = 0;
+        evaluatedTo = firstLine();
+        entryPasses = true;
+        evaluate();
+        beginChange();
+        try {
+            if (removed > 0) {
+                nextRemove(0, Collections.nCopies(removed, ""));
+            }
+            if (count > 0) {
+                nextAdd(0, count);
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count);
+        }
+        return source.get((int) (matches[head + index] - firstLine()));
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    private long firstLine() {
+        return source.getAppendedTotal() - source.size();
+    }
+
+    private void onSourceChanged() {
+        long first = firstLine();
+        int dropped = 0;
+        while (count > 0 && matches[head] < first) {
+            head++;
+            count--;
+            dropped++;
+        }
+        int kept = count;
+        evaluatedTo = Math.max(evaluatedTo, first);
+        evaluate();
+        if (dropped == 0 && count == kept) {
+            return;
+        }
+        beginChange();
+        try {
+            if (dropped > 0) {
+                nextRemove(0, Collections.nCopies(dropped, ""));
+            }
+            if (count > kept) {
+                nextAdd(kept, count);
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Evaluates the lines appended since the last call.
+     */
+    private void evaluate() {
+        long first = firstLine();
+        long end = source.getAppendedTotal();
+        for (long line = evaluatedTo; line < end; line++) {
+            int index = (int) (line - first);
+            long meta = source.getMeta(index);
+            boolean passes;
+            if (!LogLines.isOutput(meta)) {
+                passes = true;
+            } else if (LogLines.level(meta) == null) {
+                passes = entryPasses;
+            } else {
+                passes = entryPasses = accepts(index, meta);
+            }
+            if (passes) {
+                add(line);
+            }
+        }
+        evaluatedTo = end;
+    }
+
+    private boolean accepts(int index, long meta) {
+        if (minLevel != null && LogLines.level(meta).compareTo(minLevel) < 0) {
+            return false;
+        }
+        return loggerPrefix.isEmpty() || (LogLines.loggerLength(meta) >= loggerPrefix.length()
+                && source.regionMatches(index, LogLines.loggerStart(meta), loggerPrefix));
+    }
+
+    private void add(long line) {
+        if (head + count == matches.length) {
+            if (head > matches.length / 2) {
+                System.arraycopy(matches, head, matches, 0, count);
+            } else {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+                System.arraycopy(matches, head, matches, 0, count);
+            }
+            head = 0;
+        }
+        matches[head + count++] = line;
+    }
+}
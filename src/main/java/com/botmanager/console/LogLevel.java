@@ -0,0 +1,24 @@
+package com.botmanager.console;
+
+import java.util.Locale;
+
+/**
+ * Logback levels, least severe first.
+ */
+public enum LogLevel {
+    TRACE, DEBUG, INFO, WARN, ERROR;
+
+    /**
+     * @return The level with this name (any case), or {@code null} if there is none.
+     */
+    public static LogLevel fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
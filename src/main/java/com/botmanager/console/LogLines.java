@@ -0,0 +1,180 @@
+package com.botmanager.console;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the header of a logback line, {@code HH:mm:ss.SSS [thread] LEVEL logger - message}
+ * (the pattern {@code BotGenerator} writes, optionally preceded by a {@code yyyy-MM-dd} date),
+ * straight from the output pump's byte buffer, and packs what it finds into one {@code long}.
+ * The line's level, logger and time then travel with it through the console without any
+ * further parsing, regex or substring.
+ * <p>
+ * Layout, low bits first: 1 bit "printed by the bot", 3 bits level ({@link LogLevel} ordinal
+ * + 1, 0 = none), 16 bits logger start and 16 bits logger length (chars in the final line,
+ * length 0 = none), 28 bits time of day in ms + 1 (0 = none). {@link #NONE} marks a line the
+ * manager wrote itself.
+ */
+public final class LogLines {
+
+    public static final long NONE = 0;
+
+    private static final long OUTPUT = 1;
+    private static final int LEVEL_SHIFT = 1;
+    private static final int LOGGER_START_SHIFT = 4;
+    private static final int LOGGER_LENGTH_SHIFT = 20;
+    private static final int TIME_SHIFT = 36;
+    private static final int MAX_OFFSET = 0xFFFF;
+    /** Thread names longer than this are not searched for the end of the {@code [thread]} part. */
+    private static final int MAX_THREAD_BYTES = 256;
+
+    private static final LogLevel[] LEVELS = LogLevel.values();
+    private static final byte[][] LEVEL_NAMES = new byte[LEVELS.length][];
+
+    static {
+        for (LogLevel level : LEVELS) {
+            LEVEL_NAMES[level.ordinal()] = level.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private LogLines() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Parses a line the bot printed. Never allocates.
+     *
+     * @return The packed header; just the "printed by the bot" bit if the line has no logback header
+     *         (e.g. a stack trace line or plain {@code System.out} output).
+     */
+    public static long parse(byte[] line, int length) {
+        int pos = 0;
+        if (length > 11 && line[4] == '-' && line[7] == '-' && line[10] == ' '
+                && digits(line, 0, 4) && digits(line, 5, 2) && digits(line, 8, 2)) {
+            pos = 11;
+        }
+        if (pos + 14 > length || line[pos + 2] != ':' || line[pos + 5] != ':'
+                || (line[pos + 8] != '.' && line[pos + 8] != ',') || line[pos + 12] != ' ' || line[pos + 13] != '[') {
+            return OUTPUT;
+        }
+        int hours = number(line, pos, 2);
+        int minutes = number(line, pos + 3, 2);
+        int seconds = number(line, pos + 6, 2);
+        int millis = number(line, pos + 9, 3);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59 || millis < 0) {
+            return OUTPUT;
+        }
+        long timeOfDay = ((hours * 60L + minutes) * 60 + seconds) * 1000 + millis;
+
+        // The thread name may itself contain "] ", so take the first one that is followed by a level.
+        boolean ascii = true;
+        int limit = Math.min(length - 1, pos + 14 + MAX_THREAD_BYTES);
+        for (int i = pos + 14; i < limit; i++) {
+            ascii &= line[i] >= 0;
+            if (line[i] != ']' || line[i + 1] != ' ') {
+                continue;
+            }
+            int level = level(line, i + 2, length);
+            if (level < 0) {
+                continue;
+            }
+            long meta = OUTPUT | (long) (level + 1) << LEVEL_SHIFT | (timeOfDay + 1) << TIME_SHIFT;
+            int start = i + 2 + LEVEL_NAMES[level].length;
+            while (start < length && line[start] == ' ') {
+                start++;
+            }
+            int end = start;
+            while (end < length && line[end] != ' ') {
+                ascii &= line[end] >= 0;
+                end++;
+            }
+            // Offsets count bytes, which equal chars only while everything before is ASCII.
+            if (ascii && end > start && end + 1 < length && line[end + 1] == '-' && end <= MAX_OFFSET) {
+                meta |= (long) start << LOGGER_START_SHIFT | (long) (end - start) << LOGGER_LENGTH_SHIFT;
+            }
+            return meta;
+        }
+        return OUTPUT;
+    }
+
+    /**
+     * @return {@code meta} for the same line with {@code chars} characters put in front of it.
+     */
+    public static long shift(long meta, int chars) {
+        int length = loggerLength(meta);
+        if (length == 0) {
+            return meta;
+        }
+        long start = loggerStart(meta) + (long) chars;
+        meta &= ~((long) MAX_OFFSET << LOGGER_START_SHIFT | (long) MAX_OFFSET << LOGGER_LENGTH_SHIFT);
+        return start + length > MAX_OFFSET ? meta : meta | start << LOGGER_START_SHIFT | (long) length << LOGGER_LENGTH_SHIFT;
+    }
+
+    /**
+     * @return {@code true} if the bot printed the line, as opposed to the manager.
+     */
+    public static boolean isOutput(long meta) {
+        return (meta & OUTPUT) != 0;
+    }
+
+    /**
+     * @return The line's level, or {@code null} if it has no logback header.
+     */
+    public static LogLevel level(long meta) {
+        int code = (int) (meta >>> LEVEL_SHIFT) & 0x7;
+        return code == 0 ? null : LEVELS[code - 1];
+    }
+
+    public static int loggerStart(long meta) {
+        return (int) (meta >>> LOGGER_START_SHIFT) & MAX_OFFSET;
+    }
+
+    /**
+     * @return The logger name's length, or 0 if unknown.
+     */
+    public static int loggerLength(long meta) {
+        return (int) (meta >>> LOGGER_LENGTH_SHIFT) & MAX_OFFSET;
+    }
+
+    /**
+     * @return Milliseconds since midnight from the line's timestamp, or -1 if it has none.
+     */
+    public static int timeOfDayMs(long meta) {
+        return (int) (meta >>> TIME_SHIFT) - 1;
+    }
+
+    private static int level(byte[] line, int pos, int length) {
+        for (int level = 0; level < LEVEL_NAMES.length; level++) {
+            byte[] name = LEVEL_NAMES[level];
+            int end = pos + name.length;
+            if (end <= length && (end == length || line[end] == ' ') && matches(line, pos, name)) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] line, int pos, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (line[pos + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean digits(byte[] line, int pos, int count) {
+        return number(line, pos, count) >= 0;
+    }
+
+    private static int number(byte[] line, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
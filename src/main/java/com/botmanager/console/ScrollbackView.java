@@ -0,0 +1,134 @@
+package com.botmanager.console;
+
+import com.botmanager.logstore.BotLogStore;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+
+/**
+ * The list a bot's console view actually shows: the bot's entire on-disk history
+ * followed by the in-memory window.
+ * <p>
+ * Indexes inside the recent window are served from the {@link ConsoleLineStore};
+ * anything older is read from the {@link BotLogStore} through its memory-mapped
+ * segments. Lines evicted from memory simply move into the disk-backed range, so
+ * the view only ever reports additions at its tail. This relies on every line being
+ * written to the log before the window receives it, which {@link ConsoleLineBuffer}
+ * guarantees for a channel with a log.
+ * <p>
+ * The view starts at the log's {@linkplain BotLogStore#getFirstLineNumber() first retained
+ * line}; when the log evicts old segments, their lines are removed from its head.
+ */
+final class ScrollbackView extends ObservableListBase<String> {
+
+    private static final String UNAVAILABLE_LINE = "[log line unavailable]";
+
+    private final ConsoleLineStore recent;
+    private final BotLogStore log;
+    private final long historyLines;
+    private long viewStart;
+
+    /**
+     * @param recent       The in-memory window.
+     * @param log          The bot's on-disk log.
+     * @param historyLines Lines that were already on disk before the window received its first line.
+     */
+    ScrollbackView(ConsoleLineStore recent, BotLogStore log, long historyLines) {
+        this.recent = recent;
+        this.log = log;
+        this.historyLines = historyLines;
+        this.viewStart = firstAvailable();
+        recent.addListener(this::onRecentChanged);
+        log.addEvictionListener(() -> Platform.runLater(this::onEvicted));
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        long absolute = viewStart + index;
+        long recentStart = absoluteEnd() - recent.size();
+        if (absolute >= recentStart) {
+            return recent.get((int) (absolute - recentStart));
+        }
+        String line = log.readLine(absolute);
+        return line != null ? line : UNAVAILABLE_LINE;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, absoluteEnd() - viewStart);
+    }
+
+    /**
+     * Hides everything shown so far (the log on disk is untouched) and frees the in-memory window.
+     */
+    @Override
+    public void clear() {
+        int removed = size();
+        viewStart = absoluteEnd();
+        if (removed > 0) {
+            beginChange();
+            try {
+                nextRemove(0, Collections.nCopies(removed, ""));
+            } finally {
+                endChange();
+            }
+        }
+        recent.clear();
+    }
+
+    private long absoluteEnd() {
+        return historyLines + recent.getAppendedTotal();
+    }
+
+    /**
+     * @return The oldest line that can still be shown: the log's first retained line, or the
+     *         start of the in-memory window if that is older.
+     */
+    private long firstAvailable() {
+        return Math.min(log.getFirstLineNumber(), absoluteEnd() - recent.size());
+    }
+
+    private void onEvicted() {
+        int removed = (int) Math.min(size(), firstAvailable() - viewStart);
+        if (removed <= 0) {
+            return;
+        }
+        viewStart += removed;
+        beginChange();
+        try {
+            nextRemove(0, Collections.nCopies(removed, ""));
+        } finally {
+            endChange();
+        }
+    }
+
+    private void onRecentChanged(ListChangeListener.Change<? extends String> change) {
+        int added = 0;
+        while (change.next()) {
+            if (change.wasAdded()) {
+                added += change.getAddedSize();
+            }
+        }
+        if (added == 0) {
+            return;
+        }
+        // Keep the int-sized view within range for very long histories by dropping its oldest lines.
+        int overflow = (int) Math.max(0, absoluteEnd() - viewStart - Integer.MAX_VALUE);
+        viewStart += overflow;
+        int size = size();
+        beginChange();
+        try {
+            if (overflow > 0) {
+                nextRemove(0, Collections.nCopies(overflow, ""));
+            }
+            nextAdd(Math.max(0, size - added), size);
+        } finally {
+            endChange();
+        }
+    }
+}
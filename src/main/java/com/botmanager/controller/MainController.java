@@ -1,12 +1,45 @@
 package com.botmanager.controller;
 
-import com.botmanager.util.CommandGenerator;
+import com.botmanager.console.ConsoleFlusher;
+import com.botmanager.console.ConsoleChannel;
+import com.botmanager.console.FilteredConsoleView;
+import com.botmanager.console.LogLevel;
+import com.botmanager.logstore.BotLogStores;
+import com.botmanager.logstore.LogSearchHit;
+import com.botmanager.metrics.JvmTelemetryCollector;
+import com.botmanager.metrics.JvmTelemetryHistory;
+import com.botmanager.metrics.ProcSampler;
+import com.botmanager.metrics.ResourceUsage;
+import com.botmanager.metrics.StartupTimes;
+import com.botmanager.process.BotProcessManager;
+import com.botmanager.process.BotSupervisor;
+import com.botmanager.process.FleetOperationEngine;
+import com.botmanager.process.JarRedeployer;
+import com.botmanager.process.MemoryBudget;
+import com.botmanager.process.RestartPolicy;
+import com.botmanager.registry.BotConfigStore;
+import com.botmanager.registry.BotEvent;
+import com.botmanager.registry.BotEventBus;
+import com.botmanager.registry.BotRegistry;
+import com.botmanager.registry.BotSearchIndex;
+import com.botmanager.registry.FleetFile;
+import com.botmanager.util.AppPaths;
+import com.botmanager.util.CdsArchives;
+import com.botmanager.util.IoThreads;
+import com.botmanager.util.JarResolver;
 import com.botmanager.util.StringFormatter;
 import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
+import javafx.css.PseudoClass;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -17,20 +50,37 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Callback;
 
 import java.io.*;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Main Controller for the Discord Bot Manager.
@@ -41,6 +91,10 @@ import java.util.concurrent.TimeUnit;
  */
 public class MainController implements Initializable {
 
+    private static final double CONSOLE_CELL_HEIGHT = 18.0;
+    private static final KeyCombination COPY_SHORTCUT = new KeyCodeCombination(KeyCode.C, KeyCombination.SHORTCUT_DOWN);
+    private static final PseudoClass RUNNING_PSEUDO_CLASS = PseudoClass.getPseudoClass("running");
+
     @FXML private BorderPane rootLayout;
 
     // Menu Items
@@ -80,11 +134,37 @@ public class MainController implements Initializable {
     // Tab Pane
     @FXML private TabPane botDetailsTabPane;
     @FXML private Tab activityMetricsTab;
+    @FXML private Label metricsSummaryLabel;
+    @FXML private TableView<Bot> metricsTable;
+    @FXML private TableColumn<Bot, String> metricsBotColumn;
+    @FXML private TableColumn<Bot, Number> metricsPidColumn;
+    @FXML private TableColumn<Bot, Number> metricsCpuColumn;
+    @FXML private TableColumn<Bot, Number> metricsRssColumn;
+    @FXML private TableColumn<Bot, Number> metricsPeakRssColumn;
+    @FXML private TableColumn<Bot, Number> metricsThreadsColumn;
+    @FXML private TableColumn<Bot, Number> metricsReadColumn;
+    @FXML private TableColumn<Bot, Number> metricsWriteColumn;
+    @FXML private TableColumn<Bot, Number> metricsRestartColumn;
+    @FXML private TableColumn<Bot, Number> metricsStartupColumn;
+    @FXML private TableColumn<Bot, Number> metricsHeapColumn;
+    @FXML private TableColumn<Bot, Number> metricsGcColumn;
+
+    // Log Search Tab
+    @FXML private TextField logSearchField;
+    @FXML private ComboBox<String> logSearchRangeComboBox;
+    @FXML private Label logSearchStatusLabel;
+    @FXML private TableView<LogSearchHit> logSearchTable;
+    @FXML private TableColumn<LogSearchHit, String> logSearchTimeColumn;
+    @FXML private TableColumn<LogSearchHit, String> logSearchBotColumn;
+    @FXML private TableColumn<LogSearchHit, String> logSearchLineColumn;
 
     // Console Output Tab
-    @FXML private TextArea consoleOutputArea;
+    @FXML private ListView<String> consoleOutputView;
     @FXML private Button clearLogButton;
     @FXML private CheckBox autoScrollCheckBox;
+    @FXML private Label consoleStatsLabel;
+    @FXML private ComboBox<String> consoleLevelComboBox;
+    @FXML private TextField consoleLoggerField;
 
     // Bot Settings Tab
     @FXML private TextField configBotNameField;
@@ -102,17 +182,40 @@ public class MainController implements Initializable {
 
     @FXML private TextField jvmArgsField;
     @FXML private TextField startupDelayField;
+    @FXML private ComboBox<RestartPolicy> restartPolicyComboBox;
 
 
     @FXML private Label statusLabel;
     @FXML private Label runningBotsLabel;
 
     private Stage primaryStage;
-    private ObservableList<Bot> masterBotList = FXCollections.observableArrayList();
+    private final BotRegistry registry = new BotRegistry();
+    private final ObservableList<Bot> masterBotList = registry.getBots();
     private FilteredList<Bot> filteredBotList;
+    private final BotSearchIndex searchIndex = new BotSearchIndex();
     private Bot currentlySelectedBot;
     private NewBotWizardController botWizardController;
     private Stage botWizardStage;
+    private final ConsoleChannel managerConsole = new ConsoleChannel();
+    private volatile ConsoleChannel displayedConsole = managerConsole;
+    private ConsoleFlusher consoleFlusher;
+    private BotProcessManager processManager;
+    private FleetOperationEngine fleetEngine;
+    private BotSupervisor supervisor;
+    private JarRedeployer redeployer;
+    private ProcSampler resourceSampler;
+    private JvmTelemetryCollector telemetryCollector;
+    private BotConfigStore configStore;
+    private boolean loadingBots;
+    private final ObservableList<Bot> metricsRows = FXCollections.observableArrayList();
+    private final Runnable metricsRefresh = this::refreshMetricsTable;
+    private static final int LOG_SEARCH_LIMIT = 500;
+    private static final String[] LOG_SEARCH_RANGES = {"Any time", "Last hour", "Last 24 hours", "Last 7 days"};
+    private static final long[] LOG_SEARCH_RANGE_MS = {0, TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(7)};
+    private static final DateTimeFormatter LOG_SEARCH_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private int logSearchGeneration;
+    private static final String ALL_LEVELS = "All levels";
+    private boolean updatingConsoleFilter;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -122,10 +225,24 @@ public class MainController implements Initializable {
 
         setupEnvVarsTable();
 
+        setupRestartPolicyComboBox();
+
         setupBotSearch();
 
         setupBotListListener();
 
+        setupConsoleView();
+
+        setupConsoleFlusher();
+
+        setupProcessManagement();
+
+        setupMetricsTable();
+
+        setupLogSearch();
+
+        setupPersistence();
+
         loadDefaultBotAvatar();
 
         updateUIState(null); // No bot selected initially
@@ -151,6 +268,7 @@ public class MainController implements Initializable {
             protected void updateItem(Bot bot, boolean empty) {
                 super.updateItem(bot, empty);
                 setText(empty ? null : bot.getName());
+                pseudoClassStateChanged(RUNNING_PSEUDO_CLASS, !empty && bot.isRunning());
                 // @todo: add graphics here too:
                 // if (bot != null && bot.getIcon() != null) {
                 //     ImageView iconView = new ImageView(new Image(bot.getIcon()));
@@ -168,6 +286,10 @@ public class MainController implements Initializable {
         botListView.setItems(sortedData);
     }
 
+    private void setupRestartPolicyComboBox() {
+        restartPolicyComboBox.getItems().setAll(RestartPolicy.values());
+    }
+
     private void setupEnvVarsTable() {
         envKeyColumn.setCellValueFactory(new PropertyValueFactory<>("key"));
         envValueColumn.setCellValueFactory(new PropertyValueFactory<>("value"));
@@ -176,32 +298,520 @@ public class MainController implements Initializable {
         envKeyColumn.setOnEditCommit(event -> {
             EnvVariable var = event.getRowValue();
             if (var != null) var.setKey(event.getNewValue());
+            markSelectedBotDirty();
         });
 
         envValueColumn.setCellFactory(TextFieldTableCell.forTableColumn());
         envValueColumn.setOnEditCommit(event -> {
             EnvVariable var = event.getRowValue();
             if (var != null) var.setValue(event.getNewValue());
+            markSelectedBotDirty();
         });
 
         envVarsTable.setEditable(true);
     }
 
 
+    /**
+     * Loads the saved fleet in the background and saves every later change to it.
+     */
+    private void setupPersistence() {
+        configStore = new BotConfigStore(AppPaths.getBotConfigFile());
+        BotEventBus events = registry.getEvents();
+        events.subscribe(BotEvent.Added.class, event -> {
+            if (!loadingBots) {
+                configStore.markDirty(event.getBot());
+            }
+        });
+        events.subscribe(BotEvent.ConfigChanged.class, event -> configStore.markDirty(event.getBot()));
+        events.subscribe(BotEvent.Removed.class, event -> configStore.remove(event.getBot().getId()));
+
+        statusLabel.setText("Loading bots...");
+        configStore.load().whenComplete((bots, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                statusLabel.setText("Could not load bots: " + error.getMessage());
+                System.err.println("Failed to load " + configStore.getFile() + ": " + error.getMessage());
+                return;
+            }
+            loadingBots = true;
+            try {
+                registry.addAll(bots);
+            } finally {
+                loadingBots = false;
+            }
+            statusLabel.setText("Loaded " + bots.size() + " bot" + (bots.size() == 1 ? "" : "s") + ".");
+        }));
+    }
+
+    private void markSelectedBotDirty() {
+        if (currentlySelectedBot != null) {
+            registry.markConfigChanged(currentlySelectedBot);
+        }
+    }
+
+    /**
+     * Keeps the search index in step with the registry and filters the sidebar from it. Queries
+     * are evaluated off the FX thread; only the resulting ids are applied here.
+     */
     private void setupBotSearch() {
-        botSearchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredBotList.setPredicate(bot -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
+        BotEventBus events = registry.getEvents();
+        events.subscribe(BotEvent.Added.class, event -> reindexForSearch(event.getBot()));
+        events.subscribe(BotEvent.ConfigChanged.class, event -> reindexForSearch(event.getBot()));
+        events.subscribe(BotEvent.Removed.class, event -> {
+            searchIndex.remove(event.getBot().getId());
+            applyBotSearch(botSearchField.getText());
+        });
+        botSearchField.textProperty().addListener((observable, oldValue, newValue) -> applyBotSearch(newValue));
+    }
+
+    private void reindexForSearch(Bot bot) {
+        if (searchIndex.put(bot)) {
+            applyBotSearch(botSearchField.getText());
+        }
+    }
+
+    private void applyBotSearch(String query) {
+        if (query == null || query.isBlank()) {
+            filteredBotList.setPredicate(p -> true);
+            return;
+        }
+        searchIndex.search(query, ids -> Platform.runLater(() -> {
+            if (query.equals(botSearchField.getText())) { // drop results of an outdated query
+                filteredBotList.setPredicate(bot -> ids.contains(bot.getId()));
+            }
+        }));
+    }
+
+    private void setupConsoleView() {
+        // Fixed cell height lets the virtual flow compute layout from the visible range only.
+        consoleOutputView.setFixedCellSize(CONSOLE_CELL_HEIGHT);
+        consoleOutputView.setCellFactory(lv -> new ListCell<String>() {
+            @Override
+            protected void updateItem(String line, boolean empty) {
+                super.updateItem(line, empty);
+                setText(empty ? null : line);
+            }
+        });
+        consoleOutputView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        consoleOutputView.setOnKeyPressed(event -> {
+            if (COPY_SHORTCUT.match(event)) {
+                copySelectedConsoleLines();
+            }
+        });
+        consoleOutputView.setItems(managerConsole.getView());
+
+        consoleLevelComboBox.getItems().add(ALL_LEVELS);
+        for (LogLevel level : LogLevel.values()) {
+            consoleLevelComboBox.getItems().add(level.name());
+        }
+        consoleLevelComboBox.setValue(ALL_LEVELS);
+        consoleLevelComboBox.valueProperty().addListener((obs, oldValue, newValue) -> applyConsoleFilter());
+        consoleLoggerField.textProperty().addListener((obs, oldValue, newValue) -> applyConsoleFilter());
+    }
+
+    /**
+     * Shows the displayed console through its level/logger filter, or unfiltered (with the
+     * on-disk history) when no filter is set.
+     */
+    private void applyConsoleFilter() {
+        if (updatingConsoleFilter) {
+            return;
+        }
+        LogLevel minLevel = LogLevel.fromName(consoleLevelComboBox.getValue());
+        String loggerPrefix = consoleLoggerField.getText() == null ? "" : consoleLoggerField.getText().trim();
+        ObservableList<String> view;
+        if (minLevel == null && loggerPrefix.isEmpty()) {
+            view = displayedConsole.getView();
+        } else {
+            FilteredConsoleView filtered = displayedConsole.getFilteredView();
+            filtered.setFilter(minLevel, loggerPrefix);
+            view = filtered;
+        }
+        if (consoleOutputView.getItems() != view) {
+            consoleOutputView.setItems(view);
+        }
+        if (autoScrollCheckBox.isSelected() && !view.isEmpty()) {
+            consoleOutputView.scrollTo(view.size() - 1);
+        }
+    }
+
+    private void copySelectedConsoleLines() {
+        List<String> selected = consoleOutputView.getSelectionModel().getSelectedItems();
+        if (!selected.isEmpty()) {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(String.join(System.lineSeparator(), selected));
+            Clipboard.getSystemClipboard().setContent(content);
+        }
+    }
+
+    private void setupConsoleFlusher() {
+        consoleFlusher = new ConsoleFlusher(channel -> {
+            if (channel == displayedConsole && autoScrollCheckBox.isSelected()) {
+                consoleOutputView.scrollTo(consoleOutputView.getItems().size() - 1);
+            }
+        });
+        consoleFlusher.register(managerConsole);
+        registry.getEvents().subscribe(BotEvent.Added.class, event -> consoleFlusher.register(event.getBot().getConsole()));
+        registry.getEvents().subscribe(BotEvent.Removed.class, event -> consoleFlusher.unregister(event.getBot().getConsole()));
+        if (consoleStatsLabel != null) {
+            consoleFlusher.setStatsListener(stats -> consoleStatsLabel.setText(formatConsoleStats(stats)));
+        }
+        consoleFlusher.start();
+    }
+
+    private String formatConsoleStats(ConsoleFlusher.Stats stats) {
+        StringBuilder text = new StringBuilder(stats.toString());
+        if (processManager != null) {
+            text.append(" | Pumps: ").append(processManager.getActivePumps());
+            if (currentlySelectedBot != null) {
+                text.append(" | ").append(currentlySelectedBot.getName()).append(": ")
+                        .append(StringFormatter.formatBytes(processManager.getBytesPumped(currentlySelectedBot)));
+            }
+        }
+        return text.toString();
+    }
+
+    private void setupProcessManagement() {
+        processManager = new BotProcessManager(Platform::runLater, new BotProcessManager.Listener() {
+            @Override
+            public void onStarted(Bot bot, Process process) {
+                registry.markStarted(bot, process);
+            }
+
+            @Override
+            public void onExited(Bot bot, Process process, int exitCode, boolean stopRequested) {
+                if (bot.getBotProcess() != process) {
+                    return; // already replaced by a newer process or stopped from the UI
+                }
+                registry.markExited(bot, exitCode, stopRequested);
+            }
+        });
+        BotEventBus events = registry.getEvents();
+        events.subscribe(BotEvent.Added.class, event -> updateRunningBotsLabel());
+        events.subscribe(BotEvent.Removed.class, event -> updateRunningBotsLabel());
+        events.subscribe(BotEvent.Started.class, event -> refreshRunningState(event.getBot()));
+        events.subscribe(BotEvent.Exited.class, event -> refreshRunningState(event.getBot()));
+        events.subscribe(BotEvent.Crashed.class, event -> {
+            appendBotConsole(event.getBot(), "[WARN] " + event.getBot().getName() + " exited unexpectedly with code "
+                    + event.getExitCode() + ".");
+            updateRunningBotsLabel();
+        });
+        fleetEngine = new FleetOperationEngine(processManager, Platform::runLater);
+        supervisor = new BotSupervisor(processManager, Platform::runLater, new BotSupervisor.Listener() {
+            @Override
+            public void onRestartScheduled(Bot bot, int attempt, long delayMs, int exitCode) {
+                appendBotConsole(bot, "[SUPERVISOR] " + bot.getName() + " exited with code " + exitCode
+                        + "; restart attempt " + attempt + " in " + delayMs + " ms.");
+                refreshRunningState(bot);
+            }
+
+            @Override
+            public void onRestarted(Bot bot, int attempt, long latencyMs) {
+                appendBotConsole(bot, "[SUPERVISOR] " + bot.getName() + " restarted " + latencyMs
+                        + " ms after exiting (attempt " + attempt + ").");
+                statusLabel.setText("Auto-restarted " + bot.getName() + " in " + latencyMs + " ms.");
+            }
+
+            @Override
+            public void onRestartFailed(Bot bot, int attempt, String reason) {
+                appendBotConsole(bot, "[SUPERVISOR] Restart attempt " + attempt + " for " + bot.getName() + " failed: " + reason);
+            }
+
+            @Override
+            public void onCrashLoop(Bot bot, int failures, long windowMs) {
+                String message = bot.getName() + " failed " + failures + " times within "
+                        + TimeUnit.MILLISECONDS.toMinutes(windowMs) + " min; automatic restarts paused until it is started manually.";
+                appendBotConsole(bot, "[SUPERVISOR] " + message);
+                appendConsoleOutput("[WARN] " + message);
+                statusLabel.setText("Crash loop detected: " + bot.getName());
+                refreshRunningState(bot);
+            }
+        });
+        redeployer = new JarRedeployer(processManager, Platform::runLater, new JarRedeployer.Listener() {
+            @Override
+            public void onRedeployStarted(Bot bot, Path jar) {
+                appendBotConsole(bot, "[REDEPLOY] " + jar.getFileName() + " was rebuilt; restarting " + bot.getName() + "...");
+                statusLabel.setText("Redeploying " + bot.getName() + "...");
+            }
+
+            @Override
+            public void onRedeployed(Bot bot, Path jar, long downtimeMs) {
+                appendBotConsole(bot, "[REDEPLOY] " + bot.getName() + " is running " + jar.getFileName()
+                        + " (down for " + downtimeMs + " ms).");
+                statusLabel.setText("Redeployed " + bot.getName() + " in " + downtimeMs + " ms.");
+                refreshRunningState(bot);
+            }
+
+            @Override
+            public void onRedeployFailed(Bot bot, Path jar, String reason) {
+                appendBotConsole(bot, "[REDEPLOY] Could not redeploy " + jar.getFileName() + ": " + reason);
+                statusLabel.setText("Redeploy failed: " + bot.getName());
+                refreshRunningState(bot);
+            }
+        });
+        redeployer.start();
+        registry.getEvents().subscribe(BotEvent.Removed.class, event -> JarResolver.forget(event.getBot().getId()));
+    }
+
+    private void setupMetricsTable() {
+        metricsBotColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getName()));
+        metricsColumn(metricsPidColumn, usage -> usage.getPid(), value -> String.valueOf(value.longValue()));
+        metricsColumn(metricsCpuColumn, usage -> usage.getCpuPercent(), value -> String.format("%.1f", value.doubleValue()));
+        metricsColumn(metricsRssColumn, usage -> usage.getRssBytes(), value -> StringFormatter.formatBytes(value.longValue()));
+        metricsColumn(metricsPeakRssColumn, usage -> usage.getPeakRssBytes(), value -> StringFormatter.formatBytes(value.longValue()));
+        metricsColumn(metricsThreadsColumn, usage -> usage.getThreads(), value -> String.valueOf(value.intValue()));
+        metricsColumn(metricsReadColumn, usage -> usage.getReadBytesPerSecond(), value -> StringFormatter.formatBytes(value.longValue()));
+        metricsColumn(metricsWriteColumn, usage -> usage.getWriteBytesPerSecond(), value -> StringFormatter.formatBytes(value.longValue()));
+        metricsRestartColumn.setCellValueFactory(cell -> {
+            long latency = supervisor.getLastRestartLatencyMs(cell.getValue());
+            return new SimpleObjectProperty<>(latency >= 0 ? latency : null);
+        });
+        metricsRestartColumn.setCellFactory(column -> formattedCell(value -> value.longValue() + " ms"));
+        metricsStartupColumn.setCellValueFactory(cell -> {
+            StartupTimes.Entry startup = processManager.getStartupTimes().get(cell.getValue().getId());
+            return new SimpleObjectProperty<>(startup != null ? startup.getLastMs() : null);
+        });
+        metricsStartupColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Number value, boolean empty) {
+                super.updateItem(value, empty);
+                Bot bot = empty ? null : getTableRow().getItem();
+                StartupTimes.Entry startup = bot != null ? processManager.getStartupTimes().get(bot.getId()) : null;
+                setText(empty ? null : startup == null ? "\u2014" : formatStartup(startup));
+            }
+        });
+        metricsStartupColumn.setComparator(Comparator.nullsLast(Comparator.comparingDouble(Number::doubleValue)));
+        telemetryColumn(metricsHeapColumn, (history, last) -> history.getHeapUsed(last), (bot, value) -> {
+            JvmTelemetryHistory history = bot.getJvmTelemetry();
+            synchronized (history) {
+                int last = history.size() - 1;
+                return last >= 0 ? StringFormatter.formatBytes(history.getHeapUsed(last)) + " / "
+                        + StringFormatter.formatBytes(history.getHeapCommitted(last)) : "\u2014";
+            }
+        });
+        telemetryColumn(metricsGcColumn, (history, last) -> history.getGcTimePercent(JvmTelemetryCollector.GC_ALERT_SAMPLES),
+                (bot, value) -> String.format("%.1f", value.doubleValue()));
+
+        metricsTable.setItems(metricsRows);
+        metricsCpuColumn.setSortType(TableColumn.SortType.DESCENDING);
+        metricsTable.getSortOrder().add(metricsCpuColumn);
+
+        // Sampling runs all the time (it is cheap); the table only redraws while its tab is visible.
+        // Each sample also feeds the memory budget, on the sampler thread.
+        resourceSampler = new ProcSampler(processManager.getProcesses(), () -> {
+            MemoryBudget budget = processManager.getMemoryBudget();
+            for (String botId : processManager.getProcesses().keySet()) {
+                ResourceUsage usage = resourceSampler.getUsage(botId);
+                if (usage != null) {
+                    budget.observe(botId, usage.getRssBytes(), usage.getPeakRssBytes());
+                }
+            }
+            Platform.runLater(metricsRefresh);
+        });
+        activityMetricsTab.selectedProperty().addListener((obs, wasSelected, isSelected) -> {
+            if (isSelected) {
+                refreshMetricsTable();
+            }
+        });
+        resourceSampler.start();
+
+        telemetryCollector = new JvmTelemetryCollector(processManager.getProcesses(), (botId, gcPercent, fullGcs, heapUsed, heapCommitted) ->
+                Platform.runLater(() -> reportGcPressure(botId, gcPercent, fullGcs, heapUsed, heapCommitted)));
+        masterBotList.forEach(bot -> telemetryCollector.register(bot.getId(), bot.getJvmTelemetry()));
+        registry.getEvents().subscribe(BotEvent.Added.class,
+                event -> telemetryCollector.register(event.getBot().getId(), event.getBot().getJvmTelemetry()));
+        registry.getEvents().subscribe(BotEvent.Removed.class, event -> telemetryCollector.unregister(event.getBot().getId()));
+        telemetryCollector.start();
+    }
+
+    /**
+     * Binds a numeric metrics column to the newest sample in a bot's {@link JvmTelemetryHistory}.
+     * Bots without samples (not running, or not attachable) show a dash and sort last.
+     */
+    private void telemetryColumn(TableColumn<Bot, Number> column, BiFunction<JvmTelemetryHistory, Integer, Number> figure,
+                                 BiFunction<Bot, Number, String> format) {
+        column.setCellValueFactory(cell -> {
+            JvmTelemetryHistory history = cell.getValue().getJvmTelemetry();
+            Number value = null;
+            synchronized (history) {
+                int last = history.size() - 1;
+                if (last >= 0 && processManager.getProcess(cell.getValue()) != null) {
+                    value = figure.apply(history, last);
+                }
+            }
+            return new SimpleObjectProperty<>(value != null && value.doubleValue() >= 0 ? value : null);
+        });
+        column.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(Number value, boolean empty) {
+                super.updateItem(value, empty);
+                Bot bot = empty ? null : getTableRow().getItem();
+                setText(empty ? null : value == null || bot == null ? "\u2014" : format.apply(bot, value));
+            }
+        });
+        column.setComparator(Comparator.nullsLast(Comparator.comparingDouble(Number::doubleValue)));
+    }
+
+    /**
+     * @return The last launch-to-ready time, with the latest one of the other kind (with or
+     *         without a class archive) for comparison, e.g. {@code "1.9 s CDS (4.8 s cold)"}.
+     */
+    private static String formatStartup(StartupTimes.Entry startup) {
+        boolean shared = startup.getLastMode() == CdsArchives.Mode.SHARED;
+        long other = shared ? startup.getLastColdMs() : startup.getLastSharedMs();
+        String text = String.format("%.1f s", startup.getLastMs() / 1000.0) + (shared ? " CDS" : "");
+        return other < 0 ? text : text + String.format(" (%.1f s %s)", other / 1000.0, shared ? "cold" : "CDS");
+    }
+
+    private void reportGcPressure(String botId, double gcPercent, long fullGcs, long heapUsed, long heapCommitted) {
+        Bot bot = registry.get(botId);
+        if (bot == null) {
+            return;
+        }
+        String message = String.format("%s spent %.0f%% of the last %d s in GC (%d full GCs, heap %s / %s).",
+                bot.getName(), gcPercent,
+                JvmTelemetryCollector.GC_ALERT_SAMPLES * JvmTelemetryCollector.DEFAULT_INTERVAL_MS / 1000,
+                Math.max(0, fullGcs), StringFormatter.formatBytes(heapUsed), StringFormatter.formatBytes(heapCommitted));
+        appendBotConsole(bot, "[WARN] " + message);
+        appendConsoleOutput("[WARN] " + message);
+        statusLabel.setText("GC pressure: " + bot.getName());
+    }
+
+    /**
+     * Binds a numeric metrics column to a {@link ResourceUsage} figure. Unknown values
+     * (negative or NaN) are shown as a dash and sort last.
+     */
+    private void metricsColumn(TableColumn<Bot, Number> column, Function<ResourceUsage, Number> figure,
+                               Function<Number, String> format) {
+        column.setCellValueFactory(cell -> {
+            ResourceUsage usage = resourceSampler.getUsage(cell.getValue().getId());
+            Number value = usage != null ? figure.apply(usage) : null;
+            boolean known = value != null && value.doubleValue() >= 0 && !Double.isNaN(value.doubleValue());
+            return new SimpleObjectProperty<>(known ? value : null);
+        });
+        column.setCellFactory(c -> formattedCell(format));
+        column.setComparator(Comparator.nullsLast(Comparator.comparingDouble(Number::doubleValue)));
+    }
+
+    private static TableCell<Bot, Number> formattedCell(Function<Number, String> format) {
+        return new TableCell<>() {
+            @Override
+            protected void updateItem(Number value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty ? null : value == null ? "\u2014" : format.apply(value));
+            }
+        };
+    }
+
+    private void refreshMetricsTable() {
+        if (!activityMetricsTab.isSelected()) {
+            return;
+        }
+        metricsRows.setAll(masterBotList);
+        metricsTable.sort();
+
+        int running = 0;
+        double totalCpu = 0;
+        long totalRss = 0;
+        for (Bot bot : masterBotList) {
+            ResourceUsage usage = resourceSampler.getUsage(bot.getId());
+            if (usage == null) {
+                continue;
+            }
+            running++;
+            if (!Double.isNaN(usage.getCpuPercent())) {
+                totalCpu += usage.getCpuPercent();
+            }
+            if (usage.getRssBytes() > 0) {
+                totalRss += usage.getRssBytes();
+            }
+        }
+        String summary = String.format("%d running | CPU %.1f%% | Memory %s | sampled every %d ms",
+                running, totalCpu, StringFormatter.formatBytes(totalRss), ProcSampler.DEFAULT_INTERVAL_MS);
+        MemoryBudget budget = processManager.getMemoryBudget();
+        if (MemoryBudget.ENABLED && budget.getBudgetBytes() > 0) {
+            summary += String.format(" | Budget %s of %s committed", StringFormatter.formatBytes(budget.getCommittedBytes()),
+                    StringFormatter.formatBytes(budget.getBudgetBytes()));
+        }
+        if (!resourceSampler.isProcAvailable()) {
+            summary += " (CPU only: /proc is not available on this system)";
+        }
+        metricsSummaryLabel.setText(summary);
+    }
+
+    private void setupLogSearch() {
+        logSearchRangeComboBox.getItems().setAll(LOG_SEARCH_RANGES);
+        logSearchRangeComboBox.getSelectionModel().selectFirst();
+        logSearchTimeColumn.setCellValueFactory(cell -> {
+            long time = cell.getValue().getTimeMs();
+            return new SimpleStringProperty(time == 0 ? "\u2014"
+                    : LOG_SEARCH_TIME_FORMAT.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault())));
+        });
+        logSearchBotColumn.setCellValueFactory(cell -> {
+            Bot bot = registry.get(cell.getValue().getBotId());
+            return new SimpleStringProperty(bot != null ? bot.getName() : cell.getValue().getBotId());
+        });
+        logSearchLineColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getText()));
+        logSearchTable.setRowFactory(table -> {
+            TableRow<LogSearchHit> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    Bot bot = registry.get(row.getItem().getBotId());
+                    if (bot != null) {
+                        botSearchField.clear();
+                        botListView.getSelectionModel().select(bot);
+                        botListView.scrollTo(bot);
+                    }
                 }
-                String lowerCaseFilter = newValue.toLowerCase();
-                return bot.getName().toLowerCase().contains(lowerCaseFilter) ||
-                        bot.getDescription().toLowerCase().contains(lowerCaseFilter) ||
-                        bot.getProjectPath().toLowerCase().contains(lowerCaseFilter);
             });
+            return row;
         });
     }
 
+    /**
+     * Searches every bot's saved output off the FX thread; only the newest search's results are shown.
+     */
+    @FXML
+    private void handleLogSearch() {
+        String query = logSearchField.getText() == null ? "" : logSearchField.getText().trim();
+        if (query.isEmpty()) {
+            return;
+        }
+        int generation = ++logSearchGeneration;
+        long rangeMs = LOG_SEARCH_RANGE_MS[Math.max(0, logSearchRangeComboBox.getSelectionModel().getSelectedIndex())];
+        long fromMs = rangeMs == 0 ? 0 : System.currentTimeMillis() - rangeMs;
+        List<String> botIds = masterBotList.stream().map(Bot::getId).collect(Collectors.toList());
+        logSearchStatusLabel.setText("Searching...");
+        IoThreads.execute(() -> {
+            long start = System.nanoTime();
+            List<LogSearchHit> hits = BotLogStores.search(botIds, query, fromMs, Long.MAX_VALUE, LOG_SEARCH_LIMIT);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Platform.runLater(() -> {
+                if (generation != logSearchGeneration) {
+                    return;
+                }
+                logSearchTable.getItems().setAll(hits);
+                logSearchStatusLabel.setText((hits.size() >= LOG_SEARCH_LIMIT ? "Newest " + LOG_SEARCH_LIMIT : String.valueOf(hits.size()))
+                        + " matching lines in " + botIds.size() + " bots (" + elapsedMs + " ms)");
+            });
+        });
+    }
+
+    /**
+     * Updates the active-bot count, and the buttons if the changed bot is the selected one.
+     */
+    private void refreshRunningState(Bot changedBot) {
+        if (changedBot == currentlySelectedBot) {
+            updateUIState(currentlySelectedBot);
+        }
+        updateRunningBotsLabel();
+    }
+
+    private void updateRunningBotsLabel() {
+        int crashed = registry.getCrashedCount();
+        runningBotsLabel.setText("Active Bots: " + registry.getRunningCount() + (crashed > 0 ? " | Crashed: " + crashed : ""));
+    }
+
     private void setupBotListListener() {
         botListView.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> {
@@ -209,6 +819,7 @@ public class MainController implements Initializable {
                     updateUIState(newValue);
                     if (newValue != null) {
                         loadBotDetails(newValue);
+                        configStore.trimDetails(newValue);
                     } else {
                         clearBotDetails();
                     }
@@ -243,9 +854,9 @@ public class MainController implements Initializable {
         }
 
         //bot header
-        botNameLabel.setText(bot.getName());
-        botDescriptionLabel.setText(bot.getDescription());
-        botPathLabel.setText(bot.getProjectPath());
+        botNameLabel.textProperty().bind(bot.nameProperty());
+        botDescriptionLabel.textProperty().bind(bot.descriptionProperty());
+        botPathLabel.textProperty().bind(bot.projectPathProperty());
         // TODO: Update botAvatar.setImage(new Image(bot.getAvatarUrl()))
 
         configBotNameField.setText(bot.getName());
@@ -255,15 +866,19 @@ public class MainController implements Initializable {
         configDescriptionArea.setText(bot.getDescription());
         jvmArgsField.setText(bot.getJvmArgs());
         startupDelayField.setText(String.valueOf(bot.getStartupDelayMs()));
+        restartPolicyComboBox.setValue(bot.getRestartPolicy());
 
         envVarsTable.setItems(FXCollections.observableArrayList(bot.getEnvVariables()));
 
-        consoleOutputArea.appendText("[INFO] Loaded details for " + bot.getName() + ".\n");
+        showConsole(bot.getConsole(), LogLevel.fromName(bot.getLogLevel()));
 
         statusLabel.setText("Bot details loaded: " + bot.getName());
     }
 
     private void clearBotDetails() {
+        botNameLabel.textProperty().unbind();
+        botDescriptionLabel.textProperty().unbind();
+        botPathLabel.textProperty().unbind();
         botNameLabel.setText("Select a Bot");
         botDescriptionLabel.setText("No bot selected. Please choose a bot from the left sidebar to view its details and controls.");
         botPathLabel.setText("");
@@ -277,7 +892,8 @@ public class MainController implements Initializable {
         envVarsTable.getItems().clear();
         jvmArgsField.clear();
         startupDelayField.clear();
-        consoleOutputArea.clear(); // Clear console too
+        restartPolicyComboBox.setValue(null);
+        showConsole(managerConsole, null);
 
         statusLabel.setText("No bot selected");
     }
@@ -285,11 +901,13 @@ public class MainController implements Initializable {
     private void updateUIState(Bot selectedBot) {
         boolean isBotSelected = (selectedBot != null);
         boolean isBotRunningAndProcessAvailable = isBotSelected && selectedBot.isRunning() && selectedBot.getBotProcess() != null && selectedBot.getBotProcess().isAlive();
+        boolean isBotStopping = isBotSelected && processManager != null && processManager.isStopping(selectedBot);
+        boolean isRestartPending = isBotSelected && supervisor != null && supervisor.isRestartPending(selectedBot);
 
         // Control Buttons
         startBotButton.setDisable(!isBotSelected || (selectedBot.isRunning()));
-        stopBotButton.setDisable(!isBotRunningAndProcessAvailable);
-        restartBotButton.setDisable(!isBotSelected);
+        stopBotButton.setDisable((!isBotRunningAndProcessAvailable && !isRestartPending) || isBotStopping);
+        restartBotButton.setDisable(!isBotSelected || isBotStopping);
         editBotButton.setDisable(!isBotSelected);
         removeBotButton.setDisable(!isBotSelected);
 
@@ -302,6 +920,7 @@ public class MainController implements Initializable {
         configDescriptionArea.setEditable(enableConfigEditing);
         jvmArgsField.setEditable(enableConfigEditing);
         startupDelayField.setEditable(enableConfigEditing);
+        restartPolicyComboBox.setDisable(!enableConfigEditing);
         envVarsTable.setEditable(enableConfigEditing);
         addEnvVarButton.setDisable(!isBotSelected);
         removeEnvVarButton.setDisable(!isBotSelected || envVarsTable.getSelectionModel().isEmpty());
@@ -356,14 +975,11 @@ public class MainController implements Initializable {
 
         Bot bot3 = new Bot("bot-3", "Moderation Bot", "Automates moderation tasks and keeps your server safe.", "/users/chaz/bots/moderation-bot", "3.0.5", "net.modbot.Launcher", "WARN", false);
 
-        masterBotList.addAll(bot1, bot2, bot3);
+        registry.addAll(List.of(bot1, bot2, bot3));
 
         if (!masterBotList.isEmpty()) {
             botListView.getSelectionModel().selectFirst();
         }
-
-        long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-        runningBotsLabel.setText("Active Bots: " + runningCount);
     }
 
 
@@ -388,7 +1004,7 @@ public class MainController implements Initializable {
             String mainFile = "Main.java"; // Placeholder
 
             Bot newBot = new Bot(botId, botName, botDescription, botPath, botVersion, mainFile, "INFO", false);
-            masterBotList.add(newBot);
+            registry.add(newBot);
             botListView.getSelectionModel().select(newBot);
 
             showInfoAlert("Import Successful", "Bot project imported: " + botName);
@@ -396,10 +1012,100 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Writes every bot's saved definition to a fleet file, streamed on the config writer thread.
+     */
+    @FXML
+    private void handleExportFleet() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Fleet");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fleet files (*.json)", "*.json"));
+        fileChooser.setInitialFileName("bot-fleet.json");
+        File target = fileChooser.showSaveDialog(getStage());
+        if (target == null) {
+            return;
+        }
+        List<String> botIds = masterBotList.stream().map(Bot::getId).collect(Collectors.toList());
+        statusLabel.setText("Exporting " + botIds.size() + " bots...");
+        configStore.exportFleet(botIds, target.toPath()).whenComplete((count, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("MainController: Fleet export failed: " + cause.getMessage());
+                showErrorAlert("Export Failed", "Could not export the fleet: " + cause.getMessage());
+                statusLabel.setText("Fleet export failed.");
+            } else {
+                statusLabel.setText("Exported " + count + " bot" + (count == 1 ? "" : "s") + " to " + target.getName() + ".");
+            }
+        }));
+    }
+
+    /**
+     * Reads a fleet file off the FX thread and merges it by id, one batch at a time: new ids
+     * are added, known ones get the imported definition.
+     */
+    @FXML
+    private void handleImportFleet() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Fleet");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fleet files (*.json)", "*.json"));
+        File source = fileChooser.showOpenDialog(getStage());
+        if (source == null) {
+            return;
+        }
+        statusLabel.setText("Importing fleet from " + source.getName() + "...");
+        IoThreads.execute(() -> {
+            long start = System.nanoTime();
+            int[] added = {0};
+            List<String> missing = new ArrayList<>();
+            int[] missingCount = {0};
+            try {
+                int read = FleetFile.read(source.toPath(), batch -> {
+                    // Wait for each batch to be merged before reading on, so only one is ever held.
+                    CompletableFuture<Void> merged = new CompletableFuture<>();
+                    Platform.runLater(() -> {
+                        try {
+                            added[0] += registry.mergeAll(batch.getBots());
+                        } finally {
+                            merged.complete(null);
+                        }
+                    });
+                    missingCount[0] += batch.getMissingProjectPath().size();
+                    for (Bot bot : batch.getMissingProjectPath()) {
+                        if (missing.size() < 5) {
+                            missing.add(bot.getName());
+                        }
+                    }
+                    merged.join();
+                });
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                Platform.runLater(() -> {
+                    if (currentlySelectedBot != null) {
+                        loadBotDetails(currentlySelectedBot);
+                    }
+                    statusLabel.setText("Imported " + read + " bots (" + added[0] + " new, " + (read - added[0]) + " updated) in "
+                            + elapsedMs + " ms.");
+                    if (missingCount[0] > 0) {
+                        showInfoAlert("Fleet Imported", missingCount[0] + " imported bot(s) point to a project folder that does not exist"
+                                + " on this host, e.g. " + String.join(", ", missing) + ". Fix their project paths before starting them.");
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                System.err.println("MainController: Fleet import failed: " + e.getMessage());
+                int imported = added[0];
+                Platform.runLater(() -> {
+                    showErrorAlert("Import Failed", "Could not import the fleet: " + e.getMessage());
+                    statusLabel.setText("Fleet import failed" + (imported > 0 ? " after adding " + imported + " bots." : "."));
+                });
+            }
+        });
+    }
+
     @FXML
     private void handleExit() {
         System.out.println("Exiting application...");
         // TODO: Ensure all running bots are stopped gracefully before exit
+        configStore.close();
+        searchIndex.close();
         System.exit(0);
     }
 
@@ -408,8 +1114,7 @@ public class MainController implements Initializable {
         System.out.println("Refreshing bot list and statuses...");
         statusLabel.setText("Refreshing...");
         // TODO: Implement actual refresh logic (re-scan directories, update running states)
-        long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-        runningBotsLabel.setText("Active Bots: " + runningCount);
+        updateRunningBotsLabel();
         statusLabel.setText("Refreshed data.");
     }
 
@@ -468,82 +1173,31 @@ public class MainController implements Initializable {
             }
 
             System.out.println("Attempting to start bot: " + currentlySelectedBot.getName());
-            consoleOutputArea.appendText("[INFO] Starting " + currentlySelectedBot.getName() + "...\n");
+            appendBotConsole(currentlySelectedBot, "[INFO] Starting " + currentlySelectedBot.getName() + "...");
 
             try {
+                // A manual start clears any backoff or tripped crash-loop breaker.
+                supervisor.reset(currentlySelectedBot);
+                // State and buttons are updated by the process listener once the process is up.
+                processManager.start(currentlySelectedBot);
 
-                List<String> commandParts = CommandGenerator.generateJavaJarStartCommand(currentlySelectedBot);
-
-                if (commandParts == null) {
-                    Path expectedJarPath = CommandGenerator.getExpectedJarPath(currentlySelectedBot);
-                    String expectedPathMessage = (expectedJarPath != null) ?
-                            "Expected at: " + expectedJarPath.toString() :
-                            "Could not determine expected JAR path (check bot name and project path).";
-
-                    showAlert("JAR Not Found or Command Generation Failed",
-                            "Bot JAR file not found or command could not be generated for '" + currentlySelectedBot.getName() + "'.\n" +
-                                    expectedPathMessage +
-                                    "\nPlease ensure the bot project is built (e.g., 'mvn clean install') and the JAR name/location are correct according to conventions.");
-
-                    currentlySelectedBot.setRunning(false);
-                    updateUIState(currentlySelectedBot);
-                    return;
-                }
-
-                ProcessBuilder processBuilder = new ProcessBuilder(commandParts);
-                processBuilder.directory(new File(currentlySelectedBot.getProjectPath()));
-                processBuilder.redirectErrorStream(true);
-
-                Process process = processBuilder.start();
-
-                currentlySelectedBot.setBotProcess(process);
-                currentlySelectedBot.setRunning(true);
-
-                new Thread(() -> {
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            final String outputLine = line;
-                            Platform.runLater(() -> consoleOutputArea.appendText("[BOT] " + currentlySelectedBot.getName() + ": " + outputLine + "\n"));
-                        }
-                    } catch (IOException e) {
-                        Platform.runLater(() -> {
-                            consoleOutputArea.appendText("[ERROR] Reading output for " + currentlySelectedBot.getName() + ": " + e.getMessage() + "\n");
-                        });
-                    } finally {
-                        Platform.runLater(() -> {
-                            if (currentlySelectedBot != null) {
-                                currentlySelectedBot.setRunning(false);
-                                currentlySelectedBot.setBotProcess(null);
-                                consoleOutputArea.appendText("[INFO] " + currentlySelectedBot.getName() + " process finished.\n");
-                                updateUIState(currentlySelectedBot);
-                            } else {
-                                consoleOutputArea.appendText("[INFO] A bot process finished after the bot was deselected or removed.\n");
-                            }
-                        });
-                    }
-                }).start();
-
-                consoleOutputArea.appendText("[INFO] " + currentlySelectedBot.getName() + " started successfully!\n");
-                String formattedStatus = StringFormatter.formatBotStatus(currentlySelectedBot.getName(), currentlySelectedBot.isRunning());
+                appendBotConsole(currentlySelectedBot, "[INFO] " + currentlySelectedBot.getName() + " started successfully!");
+                String formattedStatus = StringFormatter.formatBotStatus(currentlySelectedBot.getName(), true);
                 statusLabel.setText(formattedStatus);
-                consoleOutputArea.appendText(StringFormatter.getGreeting("Bot Manager User") + "\n");
-
+                appendBotConsole(currentlySelectedBot, StringFormatter.getGreeting("Bot Manager User"));
+
+            } catch (FileNotFoundException e) {
+                showAlert("JAR Not Found or Command Generation Failed",
+                        "Bot JAR file not found or command could not be generated for '" + currentlySelectedBot.getName() + "'.\n" +
+                                e.getMessage() +
+                                "\nPlease ensure the bot project is built (e.g., 'mvn clean package') into an executable JAR.");
+                statusLabel.setText("Failed to start bot: " + currentlySelectedBot.getName());
             } catch (IOException e) {
                 showAlert("Error Starting Bot", "Could not start bot '" + currentlySelectedBot.getName() + "': " + e.getMessage());
-                if (currentlySelectedBot != null) {
-                    currentlySelectedBot.setRunning(false);
-                    statusLabel.setText("Failed to start bot: " + currentlySelectedBot.getName());
-                }
+                statusLabel.setText("Failed to start bot: " + currentlySelectedBot.getName());
                 e.printStackTrace();
             }
 
-            long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-            runningBotsLabel.setText("Active Bots: " + runningCount);
-
-            if (autoScrollCheckBox.isSelected()) {
-                consoleOutputArea.setScrollTop(Double.MAX_VALUE);
-            }
             updateUIState(currentlySelectedBot);
         } else {
             showWarningAlert("No Bot Selected", "Please select a bot from the list to start.");
@@ -553,54 +1207,46 @@ public class MainController implements Initializable {
     @FXML
     private void handleStopBot() {
         if (currentlySelectedBot != null) {
+            if (!currentlySelectedBot.isRunning() && supervisor.isRestartPending(currentlySelectedBot)) {
+                supervisor.reset(currentlySelectedBot);
+                appendBotConsole(currentlySelectedBot, "[INFO] Pending automatic restart of " + currentlySelectedBot.getName() + " cancelled.");
+                refreshRunningState(currentlySelectedBot);
+                return;
+            }
             if (!currentlySelectedBot.isRunning()) {
                 showAlert("Bot Not Running", currentlySelectedBot.getName() + " is not currently running.");
                 return;
             }
 
-            System.out.println("Attempting to stop bot: " + currentlySelectedBot.getName());
-            consoleOutputArea.appendText("[INFO] Stopping " + currentlySelectedBot.getName() + "...\n");
-
-            Process botProcess = currentlySelectedBot.getBotProcess();
-            if (botProcess != null) {
-                try {
-                    botProcess.destroy();
-
-                    boolean exited = botProcess.waitFor(5, TimeUnit.SECONDS);
-
-                    if (exited) {
-                        consoleOutputArea.appendText("[INFO] " + currentlySelectedBot.getName() + " stopped successfully.\n");
-                    } else {
-                        botProcess.destroyForcibly();
-                        consoleOutputArea.appendText("[WARN] " + currentlySelectedBot.getName() + " did not respond; forced to stop.\n");
+            final Bot bot = currentlySelectedBot;
+            supervisor.reset(bot);
+            System.out.println("Attempting to stop bot: " + bot.getName());
+            appendBotConsole(bot, "[INFO] Stopping " + bot.getName() + "...");
+            statusLabel.setText("Stopping " + bot.getName() + "...");
+
+            // Only react once the process has actually exited; the FX thread never waits on it.
+            processManager.stop(bot).whenComplete((outcome, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    appendBotConsole(bot, "[ERROR] Could not stop " + bot.getName() + ": " + error.getMessage());
+                    statusLabel.setText("Failed to stop bot: " + bot.getName());
+                } else {
+                    switch (outcome) {
+                        case GRACEFUL:
+                            appendBotConsole(bot, "[INFO] " + bot.getName() + " stopped successfully.");
+                            break;
+                        case FORCED:
+                            appendBotConsole(bot, "[WARN] " + bot.getName() + " did not respond; forced to stop.");
+                            break;
+                        default:
+                            appendBotConsole(bot, "[WARN] No active process found for " + bot.getName() + ". Assuming it's already stopped.");
+                            registry.markExited(bot, -1, true);
+                            break;
                     }
-
-                    currentlySelectedBot.setRunning(false);
-                    currentlySelectedBot.setBotProcess(null);
-                    statusLabel.setText("Bot stopped: " + currentlySelectedBot.getName());
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    showAlert("Error Stopping Bot", "Stop operation interrupted for " + currentlySelectedBot.getName() + ": " + e.getMessage());
-                    statusLabel.setText("Failed to stop bot: " + currentlySelectedBot.getName());
-                    e.printStackTrace();
-                } catch (Exception e) {
-                    showAlert("Error Stopping Bot", "Could not stop bot: " + e.getMessage());
-                    statusLabel.setText("Failed to stop bot: " + currentlySelectedBot.getName());
-                    e.printStackTrace();
+                    statusLabel.setText("Bot stopped: " + bot.getName());
                 }
-            } else {
-                consoleOutputArea.appendText("[WARN] No active process reference found for " + currentlySelectedBot.getName() + ". Assuming it's already stopped.\n");
-                currentlySelectedBot.setRunning(false);
-            }
-
-            long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-            runningBotsLabel.setText("Active Bots: " + runningCount);
-
-            if (autoScrollCheckBox.isSelected()) {
-                consoleOutputArea.setScrollTop(Double.MAX_VALUE);
-            }
-            updateUIState(currentlySelectedBot);
+                refreshRunningState(bot);
+            }));
+            updateUIState(bot);
         } else {
             showWarningAlert("No Bot Selected", "Please select a bot from the list to stop.");
         }
@@ -609,15 +1255,30 @@ public class MainController implements Initializable {
     @FXML
     private void handleRestartBot() {
         if (currentlySelectedBot != null) {
-            System.out.println("Attempting to restart bot: " + currentlySelectedBot.getName());
-            consoleOutputArea.appendText("[INFO] Restarting " + currentlySelectedBot.getName() + "...\n");
-            // TODO: Implement actual restart logic (stop, then start)
-            handleStopBot(); // Simulate stop
-            handleStartBot(); // Simulate start
-            statusLabel.setText("Bot restarted: " + currentlySelectedBot.getName());
-            if (autoScrollCheckBox.isSelected()) {
-                consoleOutputArea.setScrollTop(Double.MAX_VALUE);
+            if (!currentlySelectedBot.isRunning()) {
+                handleStartBot();
+                return;
             }
+
+            final Bot bot = currentlySelectedBot;
+            System.out.println("Attempting to restart bot: " + bot.getName());
+            appendBotConsole(bot, "[INFO] Restarting " + bot.getName() + "...");
+            statusLabel.setText("Restarting " + bot.getName() + "...");
+
+            // The new process is launched as soon as the old one has exited.
+            processManager.restart(bot).whenComplete((process, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    appendBotConsole(bot, "[ERROR] Could not restart " + bot.getName() + ": " + cause.getMessage());
+                    statusLabel.setText("Failed to restart bot: " + bot.getName());
+                    showAlert("Error Restarting Bot", "Could not restart bot '" + bot.getName() + "': " + cause.getMessage());
+                } else {
+                    appendBotConsole(bot, "[INFO] " + bot.getName() + " restarted (pid " + process.pid() + ").");
+                    statusLabel.setText("Bot restarted: " + bot.getName());
+                }
+                refreshRunningState(bot);
+            }));
+            updateUIState(bot);
         } else {
             showWarningAlert("No Bot Selected", "Please select a bot from the list to restart.");
         }
@@ -656,30 +1317,25 @@ public class MainController implements Initializable {
             alert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
                     System.out.println("Removing bot: " + botToRemove.getName()); // Use the local variable here too
-                    // TODO: Implement actual deletion logic (delete config files, stop if running)
-
-                    if (botToRemove.isRunning()) {
 
-                        // For now, simulate:
-                        consoleOutputArea.appendText("[INFO] Stopping " + botToRemove.getName() + " before removal...\n");
-                        botToRemove.setRunning(false); // Update model
+                    supervisor.reset(botToRemove);
+                    if (!botToRemove.isRunning()) {
+                        removeBot(botToRemove);
+                        return;
                     }
-
-                    masterBotList.remove(botToRemove);
-
-                    if (currentlySelectedBot == botToRemove) {
-                        currentlySelectedBot = null; // Clear selection in controller state
-                        botListView.getSelectionModel().clearSelection(); // Visually clear selection
-                        clearBotDetails(); // Clear detail pane
-                    }
-
-                    updateUIState(null);
-
-                    long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-                    runningBotsLabel.setText("Active Bots: " + runningCount);
-
-                    showInfoAlert("Bot Removed", botToRemove.getName() + " has been successfully removed.");
-                    statusLabel.setText("Bot removed.");
+                    appendBotConsole(botToRemove, "[INFO] Stopping " + botToRemove.getName() + " before removal...");
+                    statusLabel.setText("Stopping " + botToRemove.getName() + "...");
+                    // Remove only once the process has exited; its exit updates the model like any other.
+                    processManager.stop(botToRemove).whenComplete((outcome, error) -> Platform.runLater(() -> {
+                        if (error != null) {
+                            appendBotConsole(botToRemove, "[ERROR] Could not stop " + botToRemove.getName() + ": " + error.getMessage());
+                            statusLabel.setText("Failed to stop bot: " + botToRemove.getName());
+                            showAlert("Error Removing Bot", "Could not stop bot '" + botToRemove.getName() + "', so it was not removed: " + error.getMessage());
+                            refreshRunningState(botToRemove);
+                            return;
+                        }
+                        removeBot(botToRemove);
+                    }));
                 }
             });
         } else {
@@ -687,6 +1343,22 @@ public class MainController implements Initializable {
         }
     }
 
+    private void removeBot(Bot botToRemove) {
+        registry.remove(botToRemove);
+        botToRemove.getConsole().closeLog();
+
+        if (currentlySelectedBot == botToRemove) {
+            currentlySelectedBot = null; // Clear selection in controller state
+            botListView.getSelectionModel().clearSelection(); // Visually clear selection
+            clearBotDetails(); // Clear detail pane
+        }
+
+        updateUIState(null);
+
+        showInfoAlert("Bot Removed", botToRemove.getName() + " has been successfully removed.");
+        statusLabel.setText("Bot removed.");
+    }
+
     @FXML
     private void handleNewBotCreation() {
         try {
@@ -710,11 +1382,9 @@ public class MainController implements Initializable {
 
     public void addBotToManager(Bot newBot) {
         if (newBot != null) {
-            masterBotList.add(newBot);
+            registry.add(newBot);
             botListView.getSelectionModel().select(newBot);
             showInfoAlert("Bot Created!", "New bot '" + newBot.getName() + "' has been added to the manager.");
-            long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-            runningBotsLabel.setText("Active Bots: " + runningCount);
         }
     }
 
@@ -728,59 +1398,61 @@ public class MainController implements Initializable {
 
     @FXML
     private void handleStartAll() {
+        if (registry.getStoppedCount() == 0) {
+            statusLabel.setText("All bots are already running.");
+            return;
+        }
+        List<Bot> toStart = masterBotList.stream().filter(bot -> !bot.isRunning()).collect(Collectors.toList());
+        toStart.forEach(supervisor::reset);
         System.out.println("Starting all bots...");
-        consoleOutputArea.appendText("[INFO] Attempting to start all configured bots...\n");
-        long startedCount = masterBotList.stream()
-                .filter(bot -> !bot.isRunning())
-                .peek(bot -> {
-                    // Simulate starting each bot
-                    boolean started = Math.random() > 0.3;
-                    if (started) {
-                        bot.setRunning(true);
-                        consoleOutputArea.appendText("[INFO] Started: " + bot.getName() + "\n");
-                    } else {
-                        consoleOutputArea.appendText("[ERROR] Failed to start: " + bot.getName() + "\n");
-                    }
-                })
-                .filter(Bot::isRunning)
-                .count();
-
-        long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-        runningBotsLabel.setText("Active Bots: " + runningCount);
-        statusLabel.setText("Started " + startedCount + " bots.");
-        updateUIState(currentlySelectedBot); // Update individual button states
-        if (autoScrollCheckBox.isSelected()) consoleOutputArea.setScrollTop(Double.MAX_VALUE);
+        appendConsoleOutput("[INFO] Starting " + toStart.size() + " bots (max " + fleetEngine.getMaxInFlight() + " at a time)...");
+        runFleetOperation(fleetEngine.startAll(toStart, this::reportFleetResult), "Starting bots...", "Started");
     }
 
     @FXML
     private void handleStopAll() {
+        if (registry.getRunningCount() == 0) {
+            statusLabel.setText("No bots are running.");
+            return;
+        }
+        List<Bot> toStop = masterBotList.stream().filter(Bot::isRunning).collect(Collectors.toList());
+        masterBotList.forEach(supervisor::reset);
         System.out.println("Stopping all bots...");
-        consoleOutputArea.appendText("[INFO] Attempting to stop all running bots...\n");
-        long stoppedCount = masterBotList.stream()
-                .filter(Bot::isRunning)
-                .peek(bot -> {
-                    // Simulate stopping each bot
-                    boolean stopped = Math.random() > 0.2;
-                    if (stopped) {
-                        bot.setRunning(false);
-                        consoleOutputArea.appendText("[INFO] Stopped: " + bot.getName() + "\n");
-                    } else {
-                        consoleOutputArea.appendText("[ERROR] Failed to stop: " + bot.getName() + "\n");
-                    }
-                })
-                .filter(bot -> !bot.isRunning()) // Count those that are now not running
-                .count();
+        appendConsoleOutput("[INFO] Stopping " + toStop.size() + " running bots (max " + fleetEngine.getMaxInFlight() + " at a time)...");
+        runFleetOperation(fleetEngine.stopAll(toStop, this::reportFleetResult), "Stopping bots...", "Stopped");
+    }
+
+    /**
+     * Disables the fleet buttons while an operation runs and reports its summary when it finishes.
+     */
+    private void runFleetOperation(CompletableFuture<FleetOperationEngine.Report> operation, String progressText, String verb) {
+        startAllButton.setDisable(true);
+        stopAllButton.setDisable(true);
+        statusLabel.setText(progressText);
+        operation.thenAccept(report -> {
+            startAllButton.setDisable(false);
+            stopAllButton.setDisable(false);
+            String summary = verb + " " + report.getSucceeded() + " of " + report.getRequested() + " bots in "
+                    + report.getElapsedMs() + " ms" + (report.getFailed() > 0 ? " (" + report.getFailed() + " failed)." : ".");
+            appendConsoleOutput("[INFO] " + summary);
+            statusLabel.setText(summary);
+        });
+    }
 
-        long runningCount = masterBotList.stream().filter(Bot::isRunning).count();
-        runningBotsLabel.setText("Active Bots: " + runningCount);
-        statusLabel.setText("Stopped " + stoppedCount + " bots.");
-        updateUIState(currentlySelectedBot); // Update individual button states
-        if (autoScrollCheckBox.isSelected()) consoleOutputArea.setScrollTop(Double.MAX_VALUE);
+    private void reportFleetResult(FleetOperationEngine.BotResult result) {
+        Bot bot = result.getBot();
+        String verb = result.getOperation() == FleetOperationEngine.Operation.START ? "start" : "stop";
+        if (result.isSuccess()) {
+            appendBotConsole(bot, "[INFO] " + bot.getName() + ": " + result.getMessage() + " in " + result.getElapsedMs() + " ms.");
+        } else {
+            appendBotConsole(bot, "[ERROR] Failed to " + verb + " " + bot.getName() + ": " + result.getMessage());
+            appendConsoleOutput("[ERROR] Failed to " + verb + " " + bot.getName() + ": " + result.getMessage());
+        }
     }
 
     @FXML
     private void handleClearLog() {
-        consoleOutputArea.clear();
+        displayedConsole.getView().clear();
         statusLabel.setText("Console cleared");
     }
 
@@ -789,6 +1461,7 @@ public class MainController implements Initializable {
         if (currentlySelectedBot != null) {
             EnvVariable newVar = new EnvVariable("NEW_KEY", "new_value");
             currentlySelectedBot.getEnvVariables().add(newVar);
+            markSelectedBotDirty();
             envVarsTable.setItems(FXCollections.observableArrayList(currentlySelectedBot.getEnvVariables())); // Refresh TableView
             envVarsTable.getSelectionModel().select(newVar); // Select the new item
             envVarsTable.scrollTo(newVar); // Scroll to the new item
@@ -805,6 +1478,7 @@ public class MainController implements Initializable {
             EnvVariable selected = envVarsTable.getSelectionModel().getSelectedItem();
             if (selected != null) {
                 currentlySelectedBot.getEnvVariables().remove(selected);
+                markSelectedBotDirty();
                 envVarsTable.setItems(FXCollections.observableArrayList(currentlySelectedBot.getEnvVariables())); // Refresh TableView
                 statusLabel.setText("Environment variable removed");
             } else {
@@ -832,11 +1506,11 @@ public class MainController implements Initializable {
                 startupDelayField.setText(String.valueOf(currentlySelectedBot.getStartupDelayMs())); // Revert
                 return;
             }
+            if (restartPolicyComboBox.getValue() != null) {
+                currentlySelectedBot.setRestartPolicy(restartPolicyComboBox.getValue());
+            }
 
-            // TODO: Persist the updated bot object to disk (e.g., JSON file)
-            masterBotList.set(masterBotList.indexOf(currentlySelectedBot), currentlySelectedBot); // Update in master list to reflect changes in ListView
-
-            botListView.refresh();
+            registry.markConfigChanged(currentlySelectedBot);
 
             statusLabel.setText("Configuration saved for " + currentlySelectedBot.getName());
             showInfoAlert("Configuration Saved", "Bot configuration for " + currentlySelectedBot.getName() + " has been saved.");
@@ -859,14 +1533,40 @@ public class MainController implements Initializable {
         return primaryStage;
     }
 
+    /**
+     * Queues a manager message on the manager console. Never writes to a bot's console, whose
+     * lines are kept in that bot's log; use {@link #appendBotConsole} for messages about one bot.
+     * Safe to call from any thread; the console flusher renders it on the next pulse.
+     * @param message The line to show (without trailing newline).
+     */
     public void appendConsoleOutput(String message) {
+        managerConsole.offer(message);
+    }
 
-        Platform.runLater(() -> {
-            consoleOutputArea.appendText(message + "\n");
-            if (autoScrollCheckBox.isSelected()) {
-                consoleOutputArea.setScrollTop(Double.MAX_VALUE);
-            }
-        });
+    /**
+     * Queues a message on a specific bot's console, regardless of which bot is selected.
+     * @param bot The bot the message belongs to.
+     * @param message The line to show (without trailing newline).
+     */
+    private void appendBotConsole(Bot bot, String message) {
+        bot.getConsole().offer(message);
+    }
+
+    /**
+     * Points the console view at another channel. This only swaps the list the view
+     * observes; no lines are copied. The level filter starts at {@code defaultLevel}
+     * and the logger filter is reset.
+     */
+    private void showConsole(ConsoleChannel channel, LogLevel defaultLevel) {
+        displayedConsole = channel;
+        updatingConsoleFilter = true;
+        try {
+            consoleLevelComboBox.setValue(defaultLevel != null ? defaultLevel.name() : ALL_LEVELS);
+            consoleLoggerField.clear();
+        } finally {
+            updatingConsoleFilter = false;
+        }
+        applyConsoleFilter();
     }
 
     /**
@@ -936,95 +1636,141 @@ public class MainController implements Initializable {
             return;
         }
 
-        consoleOutputArea.appendText("[UI_COMMAND] Attempting to send to " + currentlySelectedBot.getName() + ": " + commandText + "\n");
+        final Bot bot = currentlySelectedBot;
+        appendBotConsole(bot, "[UI_COMMAND] Attempting to send to " + bot.getName() + ": " + commandText);
+        botCommandInput.clear();
 
-        Process botProcess = currentlySelectedBot.getBotProcess();
-        if (botProcess.isAlive()) {
-            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(botProcess.getOutputStream()))) {
-                writer.write(commandText + System.lineSeparator()); // Send command with a newline
-                writer.flush();
-                consoleOutputArea.appendText("[SYSTEM] Command '" + commandText + "' sent to " + currentlySelectedBot.getName() + "'s input stream.\n");
-                botCommandInput.clear();
-            } catch (IOException e) {
-                consoleOutputArea.appendText("[ERROR] Failed to send command to " + currentlySelectedBot.getName() + ": " + e.getMessage() + "\n");
-                e.printStackTrace();
-                showErrorAlert("Command Send Error", "Could not send command: " + e.getMessage());
+        // Queued on the bot's persistent stdin; the FX thread never waits on the write.
+        processManager.sendCommand(bot, commandText).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                appendBotConsole(bot, "[SYSTEM] Command '" + commandText + "' sent to " + bot.getName() + "'s input stream.");
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                appendBotConsole(bot, "[ERROR] Failed to send command to " + bot.getName() + ": " + cause.getMessage());
+                showErrorAlert("Command Send Error", "Could not send command: " + cause.getMessage());
             }
-        } else {
-            consoleOutputArea.appendText("[WARN] Bot process for " + currentlySelectedBot.getName() + " is not alive.\n");
-            showWarningAlert("Bot Process Error", "The process for " + currentlySelectedBot.getName() + " is no longer running.");
-        }
-
-        if (autoScrollCheckBox.isSelected()) {
-            consoleOutputArea.setScrollTop(Double.MAX_VALUE);
-        }
+        }));
     }
 
+    /**
+     * A managed bot. The fields the sidebar needs (id, name, description, project path) are
+     * always present; the rest lives in {@link Details}, which a bot loaded from the registry
+     * only reads from disk when one of its getters is first used, and which the registry may
+     * drop again to keep large fleets small in memory.
+     * <p>
+     * Name, description, project path and running state are JavaFX properties, so views
+     * observing a bot (or a list with {@link #EXTRACTOR}) update just that bot when one
+     * changes. Change them on the FX thread only.
+     */
     public static class Bot {
+        /** List extractor that reports changes to the properties shown in the sidebar. */
+        public static final Callback<Bot, Observable[]> EXTRACTOR = bot -> new Observable[]{
+                bot.name, bot.description, bot.projectPath, bot.running};
+
         private String id;
-        private String name;
-        private String description;
-        private String projectPath;
-        private String version;
-        private String mainFile;
-        private String logLevel;
-        private boolean isRunning;
-        private String jvmArgs;
-        private int startupDelayMs;
+        private final StringProperty name;
+        private final StringProperty description;
+        private final StringProperty projectPath;
+        private final BooleanProperty running;
         private Process botProcess;
-
-        private ObservableList<EnvVariable> envVariables = FXCollections.observableArrayList();
+        private final ConsoleChannel console;
+        private final JvmTelemetryHistory jvmTelemetry = new JvmTelemetryHistory();
+        private final DetailsLoader detailsLoader;
+        private Details details;
 
         public Bot(String id, String name, String description, String projectPath, String version, String mainFile, String logLevel, boolean isRunning) {
             this.id = id;
-            this.name = name;
-            this.description = description;
-            this.projectPath = projectPath;
-            this.version = version;
-            this.mainFile = mainFile;
-            this.logLevel = logLevel;
-            this.isRunning = isRunning;
-            this.jvmArgs = "";
-            this.startupDelayMs = 0;
+            this.name = new SimpleStringProperty(this, "name", name);
+            this.description = new SimpleStringProperty(this, "description", description);
+            this.projectPath = new SimpleStringProperty(this, "projectPath", projectPath);
+            this.running = new SimpleBooleanProperty(this, "running", isRunning);
+            this.details = new Details(version, mainFile, logLevel, "", 0, RestartPolicy.NEVER, null);
+            this.detailsLoader = null;
+            this.console = new ConsoleChannel(id);
+        }
+
+        /**
+         * Creates a summary-only bot whose details are read through {@code detailsLoader} on first use.
+         */
+        public Bot(String id, String name, String description, String projectPath, DetailsLoader detailsLoader) {
+            this.id = id;
+            this.name = new SimpleStringProperty(this, "name", name);
+            this.description = new SimpleStringProperty(this, "description", description);
+            this.projectPath = new SimpleStringProperty(this, "projectPath", projectPath);
+            this.running = new SimpleBooleanProperty(this, "running", false);
+            this.detailsLoader = detailsLoader;
+            this.console = new ConsoleChannel(id);
         }
 
         // --- Getters and Setters ---
         public String getId() { return id; }
         public void setId(String id) { this.id = id; }
 
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
+        public String getName() { return name.get(); }
+        public void setName(String name) { this.name.set(name); }
+        public StringProperty nameProperty() { return name; }
+
+        public String getDescription() { return description.get(); }
+        public void setDescription(String description) { this.description.set(description); }
+        public StringProperty descriptionProperty() { return description; }
+
+        public String getProjectPath() { return projectPath.get(); }
+        public void setProjectPath(String projectPath) { this.projectPath.set(projectPath); }
+        public StringProperty projectPathProperty() { return projectPath; }
+
+        public String getVersion() { return details().version; }
+        public void setVersion(String version) { details().version = version; }
+
+        public String getMainFile() { return details().mainFile; }
+        public void setMainFile(String mainFile) { details().mainFile = mainFile; }
 
-        public String getDescription() { return description; }
-        public void setDescription(String description) { this.description = description; }
+        public String getLogLevel() { return details().logLevel; }
+        public void setLogLevel(String logLevel) { details().logLevel = logLevel; }
 
-        public String getProjectPath() { return projectPath; }
-        public void setProjectPath(String projectPath) { this.projectPath = projectPath; }
+        public boolean isRunning() { return running.get(); }
+        public void setRunning(boolean running) { this.running.set(running); }
+        public BooleanProperty runningProperty() { return running; }
 
-        public String getVersion() { return version; }
-        public void setVersion(String version) { this.version = version; }
+        public String getJvmArgs() { return details().jvmArgs; }
+        public void setJvmArgs(String jvmArgs) { details().jvmArgs = jvmArgs; }
 
-        public String getMainFile() { return mainFile; }
-        public void setMainFile(String mainFile) { this.mainFile = mainFile; }
+        public int getStartupDelayMs() { return details().startupDelayMs; }
+        public void setStartupDelayMs(int startupDelayMs) { details().startupDelayMs = startupDelayMs; }
 
-        public String getLogLevel() { return logLevel; }
-        public void setLogLevel(String logLevel) { this.logLevel = logLevel; }
+        public RestartPolicy getRestartPolicy() { return details().restartPolicy; }
+        public void setRestartPolicy(RestartPolicy restartPolicy) { details().restartPolicy = restartPolicy; }
 
-        public boolean isRunning() { return isRunning; }
-        public void setRunning(boolean running) { this.isRunning = running; }
+        public ObservableList<EnvVariable> getEnvVariables() { return details().envVariables; }
+        public void setEnvVariables(ObservableList<EnvVariable> envVariables) { details().envVariables = envVariables; }
 
-        public String getJvmArgs() { return jvmArgs; }
-        public void setJvmArgs(String jvmArgs) { this.jvmArgs = jvmArgs; }
+        /**
+         * @return {@code true} if the details are in memory.
+         */
+        public synchronized boolean isDetailsLoaded() {
+            return details != null;
+        }
 
-        public int getStartupDelayMs() { return startupDelayMs; }
-        public void setStartupDelayMs(int startupDelayMs) { this.startupDelayMs = startupDelayMs; }
+        /**
+         * Drops the details so they are read from disk again on next use. Only safe when they
+         * hold nothing unsaved, i.e. on the FX thread outside an edit; bots created in full
+         * (without a loader) keep theirs.
+         */
+        public synchronized void evictDetails() {
+            if (detailsLoader != null) {
+                details = null;
+            }
+        }
 
-        public ObservableList<EnvVariable> getEnvVariables() { return envVariables; }
-        public void setEnvVariables(ObservableList<EnvVariable> envVariables) { this.envVariables = envVariables; }
+        private synchronized Details details() {
+            if (details == null) {
+                details = detailsLoader.load(this);
+            }
+            return details;
+        }
 
         @Override
         public String toString() {
-            return name;
+            return getName();
         }
 
         public Process getBotProcess() {
@@ -1034,6 +1780,47 @@ public class MainController implements Initializable {
         public void setBotProcess(Process botProcess) {
             this.botProcess = botProcess;
         }
+
+        public ConsoleChannel getConsole() {
+            return console;
+        }
+
+        public JvmTelemetryHistory getJvmTelemetry() {
+            return jvmTelemetry;
+        }
+
+        /**
+         * Reads a bot's details on demand.
+         */
+        public interface DetailsLoader {
+            Details load(Bot bot);
+        }
+
+        /**
+         * The part of a bot only needed when it is selected, started or saved.
+         */
+        public static final class Details {
+            private String version;
+            private String mainFile;
+            private String logLevel;
+            private String jvmArgs;
+            private int startupDelayMs;
+            private RestartPolicy restartPolicy;
+            private ObservableList<EnvVariable> envVariables;
+
+            public Details(String version, String mainFile, String logLevel, String jvmArgs, int startupDelayMs,
+                           RestartPolicy restartPolicy, List<EnvVariable> envVariables) {
+                this.version = version;
+                this.mainFile = mainFile;
+                this.logLevel = logLevel;
+                this.jvmArgs = jvmArgs;
+                this.startupDelayMs = startupDelayMs;
+                this.restartPolicy = restartPolicy;
+                this.envVariables = envVariables == null
+                        ? FXCollections.observableArrayList()
+                        : FXCollections.observableArrayList(envVariables);
+            }
+        }
     }
 
     public static class EnvVariable {
@@ -2,6 +2,7 @@ package com.botmanager.controller;
 
 import com.botmanager.util.BotGenerator; // Import your BotGenerator
 import com.botmanager.controller.MainController.Bot; // Import MainController.Bot
+import com.botmanager.util.IoThreads;
 
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -282,7 +283,7 @@ public class NewBotWizardController {
             if (mainController != null) {
                 mainController.appendConsoleOutput("[INFO] Preparing to create bot project: " + details.getDisplayName());
                 mainController.appendConsoleOutput("[INFO] This might take a moment...");
-                new Thread(() -> {
+                IoThreads.execute(() -> {
                     try {
                         new BotGenerator().generateBotProject(details);
 
@@ -325,7 +326,7 @@ public class NewBotWizardController {
                             e.printStackTrace();
                         });
                     }
-                }).start();
+                });
             }
         }
     }
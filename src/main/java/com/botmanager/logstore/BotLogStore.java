@@ -0,0 +1,816 @@
+package com.botmanager.logstore;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only, segmented on-disk log of one bot's console output.
+ * <p>
+ * Lines are numbered from 0 across the bot's whole history and written to fixed-size
+ * segment files named after their first line number. Each segment carries a sparse
+ * line-to-byte-offset index, so any historical line is found with a binary search over
+ * segments plus a short scan, and read through a memory map instead of the heap.
+ * Opening a store only lists the directory and rescans the newest segment, so even a
+ * multi-gigabyte history opens instantly and survives manager restarts.
+ * <p>
+ * Every line's write time is kept next to it, and {@link #indexPending(int)} (driven by
+ * {@link BotLogStores} in the background) feeds lines into a per-segment word index, so a
+ * search only reads the lines that contain all of its words, and skips segments entirely
+ * outside its time range.
+ * <p>
+ * Segments also roll over once their first line is {@link #DEFAULT_SEGMENT_MAX_AGE_MS} old.
+ * Sealed ones are {@link #compressSealed() compressed} and, to stay within a disk quota,
+ * {@link #evictOldest() deleted} oldest first, both from {@link BotLogStores}' maintenance
+ * thread. Lines of a deleted segment read as unavailable; numbering is unaffected, and
+ * {@link #getFirstLineNumber()} moves past them.
+ */
+public final class BotLogStore implements Closeable {
+
+    /** Roll over to a new segment once the active one reaches this size ({@code -Dbotmanager.logs.segmentBytes}). */
+    public static final long DEFAULT_SEGMENT_BYTES = Long.getLong("botmanager.logs.segmentBytes", 16L * 1024 * 1024);
+    /** Roll over once the active segment's first line is this old ({@code -Dbotmanager.logs.segmentMaxAgeMs}). */
+    public static final long DEFAULT_SEGMENT_MAX_AGE_MS = Long.getLong("botmanager.logs.segmentMaxAgeMs", 24L * 60 * 60 * 1000);
+    /** One index entry per this many lines. */
+    static final int INDEX_INTERVAL = 64;
+    private static final int MAX_MAPPED_SEGMENTS = 4;
+    /** Word indexes of sealed segments kept in memory after a search or indexing pass. */
+    private static final int MAX_CACHED_TERM_INDEXES = 4;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final int TIME_BUFFER_BYTES = 4 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<LogSegment> segments = new ArrayList<>();
+    private final Deque<LogSegment> mappedSegments = new ArrayDeque<>();
+    private final Deque<LogSegment> cachedTerms = new ArrayDeque<>();
+    private final WordCollector wordCollector = new WordCollector();
+    private final List<Runnable> evictionListeners = new CopyOnWriteArrayList<>();
+
+    private LogSegment active;
+    private OutputStream activeOut;
+    private OutputStream activeTimes;
+    private int termsCursor;
+    private boolean indexingFailed;
+    private long unflushedBytes;
+    private long activeStartedMs;
+    private boolean compressionFailed;
+    private long totalLines;
+    private volatile long firstLine;
+    private boolean failed;
+    private boolean closed;
+
+    private BotLogStore(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens (or creates) the log in the given directory.
+     */
+    public static BotLogStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public static BotLogStore open(Path directory, long segmentBytes) throws IOException {
+        BotLogStore store = new BotLogStore(directory, segmentBytes);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Boolean> baseLines = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LogSegment.DATA_SUFFIX + "*")) {
+            for (Path file : files) {
+                long base = LogSegment.parseBaseLine(file);
+                if (base >= 0) {
+                    baseLines.merge(base, file.toString().endsWith(CompressedSegment.SUFFIX), Boolean::logicalOr);
+                } else if (file.toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file); // compression cut short
+                }
+            }
+        }
+        for (Map.Entry<Long, Boolean> entry : baseLines.entrySet()) {
+            LogSegment segment = new LogSegment(directory, entry.getKey(), entry.getValue());
+            if (segment.isCompressed()) {
+                // The plain file is redundant once the compressed one exists (removal may have been cut short).
+                Files.deleteIfExists(segment.getDataPath());
+                Files.deleteIfExists(segment.getIndexPath());
+            }
+            segments.add(segment);
+        }
+
+        if (segments.isEmpty()) {
+            startSegment(0);
+            return;
+        }
+
+        // Sealed segments: the line count follows from the next segment's base line; indexes load lazily.
+        for (int i = 0; i < segments.size() - 1; i++) {
+            LogSegment segment = segments.get(i);
+            segment.setLineCount(segments.get(i + 1).getBaseLine() - segment.getBaseLine());
+        }
+
+        firstLine = segments.get(0).getBaseLine();
+        LogSegment newest = segments.get(segments.size() - 1);
+        if (newest.isCompressed()) {
+            newest.setLineCount(CompressedSegment.readLineCount(newest.getCompressedPath()));
+            totalLines = newest.getBaseLine() + newest.getLineCount();
+            startSegment(totalLines);
+            return;
+        }
+
+        // The newest segment may have been cut short by a crash: rescan it and drop any torn last line.
+        active = newest;
+        long validBytes = active.rebuildIndex();
+        try (FileChannel channel = FileChannel.open(active.getDataPath(), StandardOpenOption.WRITE)) {
+            if (channel.size() > validBytes) {
+                channel.truncate(validBytes);
+            }
+        }
+        activeOut = new BufferedOutputStream(
+                Files.newOutputStream(active.getDataPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+                WRITE_BUFFER_BYTES);
+        // One time per line: cut what belongs to torn lines, mark lines from before times were kept as unknown.
+        long timeBytes = active.getLineCount() * Integer.BYTES;
+        try (FileChannel channel = FileChannel.open(active.getTimePath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() > timeBytes) {
+                channel.truncate(timeBytes);
+            }
+            for (long position = channel.size(); position < timeBytes; ) {
+                position += channel.write(ByteBuffer.allocate((int) Math.min(timeBytes - position, 64 * 1024)), position);
+            }
+        }
+        activeTimes = new BufferedOutputStream(
+                Files.newOutputStream(active.getTimePath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+                TIME_BUFFER_BYTES);
+        totalLines = active.getBaseLine() + active.getLineCount();
+        long firstLineMs = active.getLineCount() > 0 ? active.readTimeMs(0) : 0;
+        activeStartedMs = firstLineMs != 0 ? firstLineMs : System.currentTimeMillis();
+    }
+
+    /**
+     * Appends one line. Line breaks inside {@code line} are replaced with spaces so that line
+     * numbers stay aligned with what the console shows. I/O errors disable the store instead
+     * of propagating into the output pump.
+     */
+    public synchronized void append(String line) {
+        if (failed || closed) {
+            return;
+        }
+        try {
+            byte[] bytes = sanitize(line).getBytes(StandardCharsets.UTF_8);
+            long now = System.currentTimeMillis();
+            if (active.getSizeBytes() > 0 && (active.getSizeBytes() + bytes.length + 1 > segmentBytes
+                    || now - activeStartedMs >= DEFAULT_SEGMENT_MAX_AGE_MS)) {
+                rollOver();
+            }
+            if (active.getLineCount() == 0) {
+                activeStartedMs = now;
+            }
+            long offset = active.getSizeBytes();
+            activeOut.write(bytes);
+            activeOut.write('\n');
+            int seconds = (int) (now / 1000); // unsigned, good until 2106
+            activeTimes.write(seconds >>> 24);
+            activeTimes.write(seconds >>> 16);
+            activeTimes.write(seconds >>> 8);
+            activeTimes.write(seconds);
+            active.recordAppend(offset, bytes.length + 1);
+            unflushedBytes += bytes.length + 1;
+            totalLines++;
+        } catch (IOException e) {
+            fail("append", e);
+        }
+    }
+
+    /**
+     * @return Number of lines ever written to this log, including previous sessions.
+     */
+    public synchronized long getLineCount() {
+        return totalLines;
+    }
+
+    /**
+     * @return Number of the oldest line still on disk; older ones were {@link #evictOldest() evicted}.
+     *         Does not wait for the lock.
+     */
+    public long getFirstLineNumber() {
+        return firstLine;
+    }
+
+    /**
+     * Registers a callback for when {@link #getFirstLineNumber()} moves. It runs on the evicting
+     * thread while the lock is held, so it must only hand the work off.
+     */
+    public void addEvictionListener(Runnable listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Reads a historical line.
+     *
+     * @param lineNumber Zero-based line number, below {@link #getLineCount()}.
+     * @return The line, or {@code null} if it is no longer available.
+     */
+    public synchronized String readLine(long lineNumber) {
+        if (failed || lineNumber < 0 || lineNumber >= totalLines) {
+            return null;
+        }
+        try {
+            LogSegment segment = findSegment(lineNumber);
+            if (segment == null) {
+                return null;
+            }
+            if (segment == active) {
+                flushActive();
+            } else {
+                ensureIndexLoaded(segment);
+            }
+            boolean wasMapped = segment.isMapped();
+            String line = segment.readLine(lineNumber - segment.getBaseLine());
+            if (!wasMapped) {
+                trackMapping(segment);
+            }
+            return line;
+        } catch (IOException e) {
+            System.err.println("BotLogStore: Failed to read line " + lineNumber + " from " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return When a line was written, in epoch milliseconds (second precision), or 0 if unknown.
+     */
+    public synchronized long getLineTime(long lineNumber) {
+        if (failed || lineNumber < 0 || lineNumber >= totalLines) {
+            return 0;
+        }
+        try {
+            LogSegment segment = findSegment(lineNumber);
+            if (segment == null) {
+                return 0;
+            }
+            if (segment == active) {
+                flushActive();
+            }
+            return segment.readTimeMs(lineNumber - segment.getBaseLine());
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Adds up to {@code maxLines} not yet indexed lines to the word index, oldest first. A sealed
+     * segment's index is saved once complete, so each line is only ever indexed once.
+     *
+     * @return The number of lines indexed; less than {@code maxLines} once caught up.
+     */
+    public synchronized int indexPending(int maxLines) {
+        if (failed || closed || indexingFailed) {
+            return 0;
+        }
+        int done = 0;
+        try {
+            while (done < maxLines && termsCursor < segments.size()) {
+                LogSegment segment = segments.get(termsCursor);
+                boolean sealed = segment != active;
+                if (segment.terms == null) {
+                    if (sealed && LogTermIndex.coveredLines(segment.getTermsPath()) == segment.getLineCount()) {
+                        termsCursor++; // indexed in an earlier session
+                        continue;
+                    }
+                    segment.terms = LogTermIndex.growing();
+                    segment.indexedLines = 0;
+                } else if (segment.terms.isFrozen()) {
+                    termsCursor++;
+                    continue;
+                }
+                if (sealed) {
+                    ensureIndexLoaded(segment);
+                } else {
+                    flushActive();
+                }
+                long from = segment.indexedLines;
+                long to = Math.min(segment.getLineCount(), from + maxLines - done);
+                boolean wasMapped = segment.isMapped();
+                wordCollector.terms = segment.terms;
+                segment.scanLines(from, to, wordCollector);
+                if (!wasMapped) {
+                    trackMapping(segment);
+                }
+                segment.indexedLines = to;
+                done += (int) (to - from);
+                if (!sealed) {
+                    break;
+                }
+                if (to == segment.getLineCount()) {
+                    segment.terms.freeze();
+                    segment.terms.write(segment.getTermsPath(), to);
+                    cacheTerms(segment);
+                    termsCursor++;
+                }
+            }
+        } catch (IOException e) {
+            indexingFailed = true;
+            System.err.println("BotLogStore: Disabling background indexing of " + directory + ": " + e.getMessage());
+        }
+        return done;
+    }
+
+    /**
+     * Adds the lines containing all {@code words} to {@code hits}, newest first, at most {@code limit}.
+     * Lines with an unknown time only match when {@code fromMs} is 0 or less.
+     * <p>
+     * The lock is only held to {@link LogSegment#snapshot() snapshot} one segment at a time; the
+     * scan, and building a word index the indexer has not written yet, run on the snapshot, so
+     * appends and reads never wait for a search. Lines appended after a segment's snapshot may
+     * be missed; segments evicted before theirs are skipped.
+     */
+    void search(String botId, long[] words, long fromMs, long toMs, int limit, List<LogSearchHit> hits) {
+        List<LogSegment> snapshot;
+        synchronized (this) {
+            if (failed || closed || words.length == 0) {
+                return;
+            }
+            snapshot = new ArrayList<>(segments);
+        }
+        int found = 0;
+        for (int i = snapshot.size() - 1; i >= 0 && found < limit; i--) {
+            int result = searchOne(botId, snapshot.get(i), words, fromMs, toMs, limit - found, hits);
+            if (result < 0) {
+                break;
+            }
+            found += result;
+        }
+    }
+
+    /**
+     * @return The hits added, or -1 if the segment and all older ones end before {@code fromMs}
+     *         (or the store failed).
+     */
+    private int searchOne(String botId, LogSegment segment, long[] words, long fromMs, long toMs, int limit,
+                          List<LogSearchHit> hits) {
+        try {
+            LogSegment view;
+            LogTermIndex terms;
+            long indexed;
+            int[] candidates = null;
+            synchronized (this) {
+                if (failed || closed) {
+                    return -1;
+                }
+                if (!segments.contains(segment)) {
+                    return 0; // evicted since the search started
+                }
+                long lines = segment.getLineCount();
+                if (lines == 0) {
+                    return 0;
+                }
+                if (segment == active) {
+                    flushActive();
+                } else {
+                    ensureIndexLoaded(segment);
+                }
+                long first = segment.readTimeMs(0);
+                long last = segment.readTimeMs(lines - 1);
+                if (last != 0 && last < fromMs) {
+                    return -1;
+                }
+                if (first != 0 && first > toMs) {
+                    return 0;
+                }
+                boolean wasMapped = segment.isMapped();
+                view = segment.snapshot();
+                if (!wasMapped) {
+                    trackMapping(segment);
+                }
+                terms = loadedTerms(segment);
+                indexed = segment.indexedLines;
+                if (terms != null && !terms.isFrozen()) {
+                    // The live index keeps growing; look the words up while it holds still.
+                    candidates = intersect(terms, words);
+                }
+            }
+            if (terms == null) {
+                terms = loadTerms(segment, view);
+                indexed = view.getLineCount();
+            }
+            if (candidates == null) {
+                candidates = intersect(terms, words);
+            }
+            return searchSegment(botId, view, candidates, indexed, words, fromMs, toMs, limit, hits);
+        } catch (IOException e) {
+            System.err.println("BotLogStore: Search in " + directory + " failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Searches a segment snapshot, given the index matches among its first {@code indexed} lines.
+     */
+    private static int searchSegment(String botId, LogSegment view, int[] candidates, long indexed, long[] words,
+                                     long fromMs, long toMs, int limit, List<LogSearchHit> hits) throws IOException {
+        // Lines the background indexer has not reached yet are the newest; check them directly.
+        List<Long> tail = new ArrayList<>();
+        view.scanLines(indexed, view.getLineCount(), (line, buffer, start, end) -> {
+            if (LogTokenizer.containsAll(buffer, start, end, words)) {
+                tail.add(line);
+            }
+            return true;
+        });
+        int found = 0;
+        for (int i = tail.size() - 1; i >= 0 && found < limit; i--) {
+            found += addHit(botId, view, tail.get(i), words, fromMs, toMs, hits);
+        }
+
+        for (int i = candidates.length - 1; i >= 0 && found < limit; i--) {
+            if (candidates[i] < indexed) {
+                found += addHit(botId, view, candidates[i], words, fromMs, toMs, hits);
+            }
+        }
+        return found;
+    }
+
+    private static int addHit(String botId, LogSegment segment, long relativeLine, long[] words, long fromMs, long toMs,
+                              List<LogSearchHit> hits) throws IOException {
+        long time = segment.readTimeMs(relativeLine);
+        if (time == 0 ? fromMs > 0 : time < fromMs || time > toMs) {
+            return 0;
+        }
+        int before = hits.size();
+        segment.scanLines(relativeLine, relativeLine + 1, (line, buffer, start, end) -> {
+            // The index works on word hashes; confirm the words really are on the line.
+            if (LogTokenizer.containsAll(buffer, start, end, words)) {
+                byte[] bytes = new byte[end - start];
+                buffer.get(start, bytes);
+                hits.add(new LogSearchHit(botId, segment.getBaseLine() + line, time, new String(bytes, StandardCharsets.UTF_8)));
+            }
+            return false;
+        });
+        return hits.size() - before;
+    }
+
+    private static int[] intersect(LogTermIndex terms, long[] words) {
+        int[][] lists = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            lists[i] = terms.lines(words[i]);
+            if (lists[i].length == 0) {
+                return lists[i];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] result = lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            int[] other = lists[i];
+            int count = 0;
+            for (int line : result) {
+                if (Arrays.binarySearch(other, line) >= 0) {
+                    result[count++] = line;
+                }
+            }
+            result = Arrays.copyOf(result, count);
+        }
+        return result;
+    }
+
+    /**
+     * @return The segment's word index if it is in memory (live for the active segment), or {@code null}.
+     */
+    private LogTermIndex loadedTerms(LogSegment segment) {
+        if (segment.terms != null) {
+            if (segment.terms.isFrozen()) {
+                cacheTerms(segment);
+            }
+            return segment.terms;
+        }
+        if (segment == active) {
+            segment.terms = LogTermIndex.growing();
+            segment.indexedLines = 0;
+            return segment.terms;
+        }
+        return null;
+    }
+
+    /**
+     * Reads a sealed segment's saved word index or, if the indexer has not reached it, builds
+     * and saves one from {@code view}, all without the lock; then keeps it for later searches.
+     */
+    private LogTermIndex loadTerms(LogSegment segment, LogSegment view) throws IOException {
+        long lines = view.getLineCount();
+        LogTermIndex terms = LogTermIndex.read(segment.getTermsPath(), lines);
+        Path temp = null;
+        try {
+            if (terms == null) {
+                // Not indexed yet (the indexer is behind): index the whole segment now.
+                terms = LogTermIndex.growing();
+                WordCollector collector = new WordCollector();
+                collector.terms = terms;
+                view.scanLines(0, lines, collector);
+                terms.freeze();
+                temp = Files.createTempFile(directory, segment.getTermsPath().getFileName().toString(), TEMP_SUFFIX);
+                terms.writeTo(temp, lines);
+            }
+            synchronized (this) {
+                // Keep it unless the segment went away or the indexer got there first.
+                if (!closed && segment.terms == null && segments.contains(segment)) {
+                    if (temp != null) {
+                        LogTermIndex.replace(temp, segment.getTermsPath());
+                        temp = null;
+                    }
+                    segment.terms = terms;
+                    segment.indexedLines = lines;
+                    cacheTerms(segment);
+                }
+            }
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return terms;
+    }
+
+    private void cacheTerms(LogSegment segment) {
+        cachedTerms.remove(segment);
+        cachedTerms.addFirst(segment);
+        while (cachedTerms.size() > MAX_CACHED_TERM_INDEXES) {
+            cachedTerms.removeLast().terms = null; // reloaded from its .tix file when needed
+        }
+    }
+
+    /**
+     * Compresses sealed segments that are still plain text, oldest first. Deflating runs
+     * without holding the store's lock, so appends and reads go on meanwhile; a segment is
+     * only switched to its compressed file once that is complete.
+     */
+    void compressSealed() {
+        while (true) {
+            LogSegment segment = null;
+            long lines;
+            synchronized (this) {
+                if (failed || closed || compressionFailed) {
+                    return;
+                }
+                for (LogSegment candidate : segments) {
+                    if (candidate != active && !candidate.isCompressed()) {
+                        segment = candidate;
+                        break;
+                    }
+                }
+                if (segment == null) {
+                    return;
+                }
+                lines = segment.getLineCount();
+            }
+
+            Path temp = segment.getCompressedPath().resolveSibling(segment.getCompressedPath().getFileName() + TEMP_SUFFIX);
+            try {
+                CompressedSegment.write(segment.getDataPath(), lines, temp);
+                Files.setLastModifiedTime(temp, Files.getLastModifiedTime(segment.getDataPath()));
+                synchronized (this) {
+                    if (closed || !segments.contains(segment)) {
+                        Files.deleteIfExists(temp);
+                        return;
+                    }
+                    Files.move(temp, segment.getCompressedPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    mappedSegments.remove(segment);
+                    segment.markCompressed();
+                    Files.deleteIfExists(segment.getDataPath());
+                    Files.deleteIfExists(segment.getIndexPath());
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    compressionFailed = true;
+                }
+                System.err.println("BotLogStore: Disabling compression in " + directory + ": " + e.getMessage());
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Removed on the next open.
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Bytes all of this log's files take on disk.
+     */
+    synchronized long getDiskUsage() {
+        long bytes = 0;
+        for (LogSegment segment : segments) {
+            bytes += segment.diskBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return When the oldest sealed segment was last written (epoch ms), or {@link Long#MAX_VALUE} if there is none.
+     */
+    synchronized long getOldestSealedMs() {
+        if (closed || segments.size() < 2) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return segments.get(0).lastModifiedMs();
+        } catch (IOException e) {
+            return 0; // gone or unreadable: first to go
+        }
+    }
+
+    /**
+     * Deletes the oldest sealed segment. The active segment is never deleted.
+     *
+     * @return The bytes freed, or 0 if there was nothing to delete.
+     */
+    synchronized long evictOldest() {
+        if (closed || segments.size() < 2) {
+            return 0;
+        }
+        LogSegment oldest = segments.remove(0);
+        firstLine = segments.get(0).getBaseLine();
+        if (termsCursor > 0) {
+            termsCursor--;
+        }
+        mappedSegments.remove(oldest);
+        cachedTerms.remove(oldest);
+        long bytes = oldest.diskBytes();
+        try {
+            oldest.deleteFiles();
+        } catch (IOException e) {
+            System.err.println("BotLogStore: Could not delete segment " + oldest.getBaseLine() + " in " + directory + ": " + e.getMessage());
+        }
+        evictionListeners.forEach(Runnable::run);
+        return bytes;
+    }
+
+    /**
+     * Deletes sealed segments, oldest first, until the log takes at most {@code maxBytes}.
+     */
+    synchronized void enforceQuota(long maxBytes) {
+        long usage = getDiskUsage();
+        while (usage > maxBytes) {
+            long freed = evictOldest();
+            if (freed == 0) {
+                return;
+            }
+            usage -= freed;
+        }
+    }
+
+    /**
+     * Pushes buffered lines to the OS so they are readable and survive a manager crash.
+     */
+    public synchronized void flush() {
+        if (failed || closed) {
+            return;
+        }
+        try {
+            flushActive();
+        } catch (IOException e) {
+            fail("flush", e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (activeOut != null) {
+                activeOut.close();
+            }
+            if (activeTimes != null) {
+                activeTimes.close();
+            }
+        } catch (IOException e) {
+            System.err.println("BotLogStore: Failed to close " + directory + ": " + e.getMessage());
+        }
+        mappedSegments.forEach(LogSegment::unmap);
+        mappedSegments.clear();
+    }
+
+    private void flushActive() throws IOException {
+        if (unflushedBytes > 0) {
+            activeOut.flush();
+            activeTimes.flush();
+            unflushedBytes = 0;
+        }
+    }
+
+    private void rollOver() throws IOException {
+        activeOut.close();
+        activeTimes.close();
+        active.writeIndex();
+        active.unmap();
+        mappedSegments.remove(active);
+        startSegment(totalLines);
+    }
+
+    private void startSegment(long baseLine) throws IOException {
+        LogSegment segment = new LogSegment(directory, baseLine);
+        segment.rebuildIndexForEmpty();
+        segments.add(segment);
+        active = segment;
+        activeOut = new BufferedOutputStream(
+                Files.newOutputStream(segment.getDataPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+                WRITE_BUFFER_BYTES);
+        activeTimes = new BufferedOutputStream(
+                Files.newOutputStream(segment.getTimePath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                TIME_BUFFER_BYTES);
+        unflushedBytes = 0;
+    }
+
+    private LogSegment findSegment(long lineNumber) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            LogSegment segment = segments.get(mid);
+            if (lineNumber < segment.getBaseLine()) {
+                high = mid - 1;
+            } else if (lineNumber >= segment.getBaseLine() + segment.getLineCount()) {
+                low = mid + 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private void ensureIndexLoaded(LogSegment segment) throws IOException {
+        if (!segment.hasIndex()) {
+            segment.loadIndex(segment.getLineCount());
+        }
+    }
+
+    private void trackMapping(LogSegment segment) {
+        if (segment == active) {
+            return;
+        }
+        mappedSegments.remove(segment);
+        mappedSegments.addFirst(segment);
+        while (mappedSegments.size() > MAX_MAPPED_SEGMENTS) {
+            mappedSegments.removeLast().unmap();
+        }
+    }
+
+    private void fail(String operation, IOException e) {
+        failed = true;
+        System.err.println("BotLogStore: Disabling on-disk log in " + directory + " after failed " + operation + ": " + e.getMessage());
+    }
+
+    /**
+     * Feeds scanned lines into a word index without allocating per line.
+     */
+    private static final class WordCollector implements LogSegment.LineVisitor, LogTokenizer.WordSink {
+        LogTermIndex terms;
+        private int line;
+
+        @Override
+        public boolean visit(long relativeLine, ByteBuffer buffer, int start, int end) {
+            line = (int) relativeLine;
+            LogTokenizer.forEachWord(buffer, start, end, this);
+            return true;
+        }
+
+        @Override
+        public void word(long hash) {
+            terms.add(line, hash);
+        }
+    }
+
+    private static String sanitize(String line) {
+        if (line.indexOf('\n') < 0 && line.indexOf('\r') < 0) {
+            return line;
+        }
+        return line.replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,348 @@
+package com.botmanager.logstore;
+
+import com.botmanager.util.AppPaths;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of open {@link BotLogStore}s.
+ * Opens one store per bot id under {@link AppPaths#getBotLogDirectory(String)}, flushes
+ * all of them on a short timer so output reaches disk without a syscall per line, and
+ * closes them when the JVM exits. Consoles append through a single {@link #writer() writer}
+ * thread, so output pumps and the FX thread never wait on a store.
+ * <p>
+ * A low-priority background thread keeps each open store's word index caught up with
+ * its output, which is what makes {@link #search} fast across the whole fleet's history.
+ * <p>
+ * Another one compresses sealed segments and keeps disk usage within
+ * {@link #MAX_BYTES_PER_BOT} per bot and {@link #MAX_TOTAL_BYTES} overall, deleting the
+ * oldest segments first. The overall quota covers every bot's log directory: logs without an
+ * open store are measured and trimmed through their files, without opening them, and logs
+ * {@link #release released} in this session (removed bots) are left alone.
+ */
+public final class BotLogStores {
+
+    private static final long FLUSH_INTERVAL_MS = 250;
+    /** How often new output is added to the search index ({@code -Dbotmanager.logs.indexIntervalMs}). */
+    private static final long INDEX_INTERVAL_MS = Long.getLong("botmanager.logs.indexIntervalMs", 500);
+    /** Lines indexed per store lock hold, so appends never wait long behind the indexer. */
+    private static final int INDEX_BATCH_LINES = 4096;
+    /** Disk quota per bot ({@code -Dbotmanager.logs.maxBytesPerBot}). */
+    public static final long MAX_BYTES_PER_BOT = Long.getLong("botmanager.logs.maxBytesPerBot", 256L * 1024 * 1024);
+    /** Disk quota for all bots together ({@code -Dbotmanager.logs.maxTotalBytes}). */
+    public static final long MAX_TOTAL_BYTES = Long.getLong("botmanager.logs.maxTotalBytes", 2L * 1024 * 1024 * 1024);
+    /** Whether sealed segments are compressed ({@code -Dbotmanager.logs.compress}). */
+    private static final boolean COMPRESS = Boolean.parseBoolean(System.getProperty("botmanager.logs.compress", "true"));
+    private static final long MAINTENANCE_INTERVAL_MS = Long.getLong("botmanager.logs.maintenanceIntervalMs", 30_000);
+
+    private static final long SHUTDOWN_WRITE_TIMEOUT_MS = 2000;
+
+    private static final Map<String, BotLogStore> STORES = new ConcurrentHashMap<>();
+    private static final Set<String> RELEASED = ConcurrentHashMap.newKeySet();
+    // Tasks arriving after shutdown started are dropped rather than failing the output pump.
+    private static final ThreadPoolExecutor WRITER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "bot-log-writer");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bot-log-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ScheduledExecutorService INDEXER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bot-log-indexer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static final ScheduledExecutorService MAINTAINER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bot-log-maintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    static {
+        FLUSHER.scheduleWithFixedDelay(BotLogStores::flushAll, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        INDEXER.scheduleWithFixedDelay(BotLogStores::indexAll, INDEX_INTERVAL_MS, INDEX_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        MAINTAINER.scheduleWithFixedDelay(BotLogStores::maintain, MAINTENANCE_INTERVAL_MS, MAINTENANCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(BotLogStores::shutdown, "bot-log-shutdown"));
+    }
+
+    private BotLogStores() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the open store for a bot, opening it on first use.
+     *
+     * @param botId The bot's unique id.
+     * @return The store, or {@code null} if it could not be opened (output is then kept in memory only).
+     */
+    public static BotLogStore forBot(String botId) {
+        if (botId == null || botId.trim().isEmpty()) {
+            return null;
+        }
+        RELEASED.remove(botId);
+        try {
+            return STORES.computeIfAbsent(botId, id -> {
+                try {
+                    return BotLogStore.open(AppPaths.getBotLogDirectory(id));
+                } catch (IOException e) {
+                    throw new StoreOpenException(e);
+                }
+            });
+        } catch (StoreOpenException e) {
+            System.err.println("BotLogStores: Could not open log for bot " + botId + ": " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return The thread that appends console output to the stores. Tasks run one at a time, in submission order.
+     */
+    public static Executor writer() {
+        return WRITER;
+    }
+
+    /**
+     * Closes and forgets a bot's store (e.g. when the bot is removed). Files are left on disk.
+     */
+    public static void release(String botId) {
+        if (botId == null) {
+            return;
+        }
+        RELEASED.add(botId);
+        BotLogStore store = STORES.remove(botId);
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Finds log lines containing every word of {@code query} (case-insensitive, whole words)
+     * across the given bots' histories, newest first. Bots without any saved output are skipped.
+     *
+     * @param fromMs Earliest write time (epoch ms); 0 or less also matches lines of unknown time.
+     * @param toMs   Latest write time (epoch ms).
+     * @param limit  Maximum number of hits returned.
+     * @return The hits, or an empty list if the query has no words.
+     */
+    public static List<LogSearchHit> search(Collection<String> botIds, String query, long fromMs, long toMs, int limit) {
+        long[] words = LogTokenizer.queryWords(query == null ? "" : query);
+        List<LogSearchHit> hits = new ArrayList<>();
+        if (words.length == 0 || limit <= 0) {
+            return hits;
+        }
+        for (String botId : botIds) {
+            if (!STORES.containsKey(botId) && !Files.isDirectory(AppPaths.getBotLogDirectory(botId))) {
+                continue;
+            }
+            BotLogStore store = forBot(botId);
+            if (store != null) {
+                store.search(botId, words, fromMs, toMs, limit, hits);
+            }
+        }
+        hits.sort(Comparator.comparingLong(LogSearchHit::getTimeMs).reversed());
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    public static void flushAll() {
+        STORES.values().forEach(BotLogStore::flush);
+    }
+
+    private static void indexAll() {
+        for (BotLogStore store : STORES.values()) {
+            while (store.indexPending(INDEX_BATCH_LINES) == INDEX_BATCH_LINES) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Compresses sealed segments and enforces the disk quotas.
+     */
+    static void maintain() {
+        long total = 0;
+        for (BotLogStore store : STORES.values()) {
+            if (COMPRESS) {
+                store.compressSealed();
+            }
+            store.enforceQuota(MAX_BYTES_PER_BOT);
+            total += store.getDiskUsage();
+        }
+
+        List<ClosedLog> closedLogs = new ArrayList<>();
+        Path root = AppPaths.getLogsDirectory();
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path directory : directories) {
+                    String botId = directory.getFileName().toString();
+                    if (STORES.containsKey(botId) || RELEASED.contains(botId)) {
+                        continue;
+                    }
+                    ClosedLog log = ClosedLog.scan(botId, directory);
+                    while (log.usage > MAX_BYTES_PER_BOT && log.evictOldest() > 0) {
+                        // keep going
+                    }
+                    total += log.usage;
+                    closedLogs.add(log);
+                }
+            } catch (IOException e) {
+                System.err.println("BotLogStores: Could not list " + root + ": " + e.getMessage());
+            }
+        }
+
+        while (total > MAX_TOTAL_BYTES) {
+            BotLogStore oldestStore = null;
+            ClosedLog oldestLog = null;
+            long oldestMs = Long.MAX_VALUE;
+            for (BotLogStore store : STORES.values()) {
+                long sealedMs = store.getOldestSealedMs();
+                if (sealedMs < oldestMs) {
+                    oldestStore = store;
+                    oldestMs = sealedMs;
+                }
+            }
+            for (ClosedLog log : closedLogs) {
+                long sealedMs = log.getOldestSealedMs();
+                if (sealedMs < oldestMs) {
+                    oldestStore = null;
+                    oldestLog = log;
+                    oldestMs = sealedMs;
+                }
+            }
+            long freed = oldestLog != null ? oldestLog.evictOldest() : oldestStore != null ? oldestStore.evictOldest() : 0;
+            if (freed == 0) {
+                return;
+            }
+            total -= freed;
+        }
+    }
+
+    private static void shutdown() {
+        WRITER.shutdown();
+        try {
+            if (!WRITER.awaitTermination(SHUTDOWN_WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("BotLogStores: Console output still queued for disk at exit was dropped.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeAll();
+    }
+
+    public static void closeAll() {
+        STORES.values().forEach(BotLogStore::close);
+        STORES.clear();
+    }
+
+    /**
+     * The log of a bot without an open store, seen through its segment files. Like the store,
+     * it never deletes the newest segment, which keeps the line count.
+     */
+    private static final class ClosedLog {
+        private final String botId;
+        private final Path directory;
+        private final Deque<LogSegment> sealed = new ArrayDeque<>();
+        private long usage;
+
+        private ClosedLog(String botId, Path directory) {
+            this.botId = botId;
+            this.directory = directory;
+        }
+
+        static ClosedLog scan(String botId, Path directory) throws IOException {
+            TreeMap<Long, Boolean> baseLines = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LogSegment.DATA_SUFFIX + "*")) {
+                for (Path file : files) {
+                    long base = LogSegment.parseBaseLine(file);
+                    if (base >= 0) {
+                        baseLines.merge(base, file.toString().endsWith(CompressedSegment.SUFFIX), Boolean::logicalOr);
+                    }
+                }
+            }
+            ClosedLog log = new ClosedLog(botId, directory);
+            for (Map.Entry<Long, Boolean> entry : baseLines.entrySet()) {
+                LogSegment segment = new LogSegment(directory, entry.getKey(), entry.getValue());
+                log.usage += segment.diskBytes();
+                if (!entry.getKey().equals(baseLines.lastKey())) {
+                    log.sealed.addLast(segment);
+                }
+            }
+            return log;
+        }
+
+        long getOldestSealedMs() {
+            if (sealed.isEmpty()) {
+                return Long.MAX_VALUE;
+            }
+            try {
+                return sealed.peekFirst().lastModifiedMs();
+            } catch (IOException e) {
+                return 0; // gone or unreadable: first to go
+            }
+        }
+
+        /**
+         * Deletes the oldest sealed segment unless the bot's store was opened meanwhile.
+         *
+         * @return The bytes freed, or 0.
+         */
+        long evictOldest() {
+            LogSegment oldest = sealed.pollFirst();
+            if (oldest == null) {
+                return 0;
+            }
+            long bytes = oldest.diskBytes();
+            boolean[] deleted = new boolean[1];
+            // Holds the map entry, so forBot cannot open this log while its files go.
+            STORES.compute(botId, (id, store) -> {
+                if (store == null) {
+                    try {
+                        oldest.deleteFiles();
+                        deleted[0] = true;
+                    } catch (IOException e) {
+                        System.err.println("BotLogStores: Could not delete segment " + oldest.getBaseLine() + " in " + directory
+                                + ": " + e.getMessage());
+                    }
+                }
+                return store;
+            });
+            if (!deleted[0]) {
+                sealed.clear(); // opened meanwhile: its store takes over
+                return 0;
+            }
+            usage -= bytes;
+            return bytes;
+        }
+    }
+
+    private static final class StoreOpenException extends RuntimeException {
+        StoreOpenException(IOException cause) {
+            super(cause);
+        }
+    }
+}
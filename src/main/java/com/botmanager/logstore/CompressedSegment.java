@@ -0,0 +1,224 @@
+package com.botmanager.logstore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The lines of a sealed {@link LogSegment}, deflated in blocks of {@link #BLOCK_LINES} lines
+ * ({@code <base>.logz}).
+ * <p>
+ * Each block is compressed on its own and a table at the end of the file records where it
+ * starts, so reading a line only inflates the one block holding it, and a scan streams
+ * through the blocks one at a time. The most recently inflated block is kept for the
+ * reads that usually follow it.
+ * <p>
+ * Layout: magic, version, line count, lines per block; the blocks; block count, block
+ * offsets (one more than blocks), inflated block sizes; trailer offset, magic.
+ */
+final class CompressedSegment {
+
+    static final String SUFFIX = ".logz";
+    static final int BLOCK_LINES = 256;
+    private static final int MAGIC = 0x42544c5a; // "BTLZ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int FOOTER_BYTES = 12;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final MappedByteBuffer map;
+    private final long[] offsets;
+    private final int[] sizes;
+
+    private byte[] blockBytes = new byte[0];
+    private int cachedBlock = -1;
+    private ByteBuffer cachedBuffer;
+
+    private CompressedSegment(Path path, MappedByteBuffer map, long[] offsets, int[] sizes) {
+        this.path = path;
+        this.map = map;
+        this.offsets = offsets;
+        this.sizes = sizes;
+    }
+
+    /**
+     * @return A reader of the same mapped file with its own block cache, for use on another thread.
+     */
+    CompressedSegment duplicate() {
+        return new CompressedSegment(path, map, offsets, sizes);
+    }
+
+    /**
+     * Compresses the first {@code lineCount} lines of a plain segment file into {@code target}.
+     *
+     * @throws IOException If the file cannot be read or has fewer lines.
+     */
+    static void write(Path source, long lineCount, Path target) throws IOException {
+        int blocks = (int) ((lineCount + BLOCK_LINES - 1) / BLOCK_LINES);
+        long[] offsets = new long[blocks + 1];
+        int[] sizes = new int[blocks];
+        byte[] chunk = new byte[CHUNK_BYTES];
+        byte[] block = new byte[CHUNK_BYTES];
+        byte[] deflated = new byte[CHUNK_BYTES];
+        Deflater deflater = new Deflater();
+        try (InputStream in = Files.newInputStream(source);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), CHUNK_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lineCount);
+            out.writeInt(BLOCK_LINES);
+            long position = HEADER_BYTES;
+            int chunkPos = 0;
+            int chunkLength = 0;
+            long written = 0;
+            for (int b = 0; b < blocks; b++) {
+                int wanted = (int) Math.min(BLOCK_LINES, lineCount - written);
+                int lines = 0;
+                int size = 0;
+                while (lines < wanted) {
+                    if (chunkPos == chunkLength) {
+                        chunkLength = in.read(chunk);
+                        chunkPos = 0;
+                        if (chunkLength == -1) {
+                            throw new IOException(source + " ends before line " + (written + lines));
+                        }
+                    }
+                    int end = chunkPos;
+                    while (end < chunkLength && lines < wanted) {
+                        if (chunk[end++] == '\n') {
+                            lines++;
+                        }
+                    }
+                    if (size + end - chunkPos > block.length) {
+                        block = Arrays.copyOf(block, Math.max(block.length * 2, size + end - chunkPos));
+                    }
+                    System.arraycopy(chunk, chunkPos, block, size, end - chunkPos);
+                    size += end - chunkPos;
+                    chunkPos = end;
+                }
+                written += lines;
+
+                offsets[b] = position;
+                sizes[b] = size;
+                deflater.reset();
+                deflater.setInput(block, 0, size);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(deflated);
+                    out.write(deflated, 0, n);
+                    position += n;
+                }
+            }
+            offsets[blocks] = position;
+
+            out.writeInt(blocks);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            for (int size : sizes) {
+                out.writeInt(size);
+            }
+            out.writeLong(position);
+            out.writeInt(MAGIC);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Maps a compressed segment and reads its block table.
+     *
+     * @throws IOException If the file is damaged or does not hold exactly {@code expectedLines} lines.
+     */
+    static CompressedSegment open(Path path, long expectedLines) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + FOOTER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Damaged compressed segment " + path);
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = map.capacity();
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(16) != BLOCK_LINES
+                || map.getInt(size - 4) != MAGIC) {
+            throw new IOException("Damaged compressed segment " + path);
+        }
+        if (map.getLong(8) != expectedLines) {
+            throw new IOException("Compressed segment " + path + " holds " + map.getLong(8) + " lines, expected " + expectedLines);
+        }
+        long trailer = map.getLong(size - FOOTER_BYTES);
+        int blocks = (int) ((expectedLines + BLOCK_LINES - 1) / BLOCK_LINES);
+        if (trailer < HEADER_BYTES || trailer + 4 + (blocks + 1L) * Long.BYTES + (long) blocks * Integer.BYTES + FOOTER_BYTES != size
+                || map.getInt((int) trailer) != blocks) {
+            throw new IOException("Damaged compressed segment " + path);
+        }
+        long[] offsets = new long[blocks + 1];
+        int[] sizes = new int[blocks];
+        int pos = (int) trailer + 4;
+        for (int i = 0; i <= blocks; i++, pos += Long.BYTES) {
+            offsets[i] = map.getLong(pos);
+        }
+        for (int i = 0; i < blocks; i++, pos += Integer.BYTES) {
+            sizes[i] = map.getInt(pos);
+        }
+        return new CompressedSegment(path, map, offsets, sizes);
+    }
+
+    /**
+     * @return The line count from the header of a compressed segment file.
+     */
+    static long readLineCount(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Damaged compressed segment " + path);
+            }
+            return in.readLong();
+        }
+    }
+
+    /**
+     * @return The inflated lines of block {@code number} (lines {@code number * BLOCK_LINES} on),
+     *         newline-terminated, in {@code [0, limit)} of the buffer. Valid until the next call.
+     */
+    ByteBuffer block(int number) throws IOException {
+        if (number == cachedBlock) {
+            return cachedBuffer;
+        }
+        int size = sizes[number];
+        if (blockBytes.length < size) {
+            blockBytes = new byte[size];
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(map.slice((int) offsets[number], (int) (offsets[number + 1] - offsets[number])));
+            int inflated = 0;
+            while (inflated < size) {
+                int n = inflater.inflate(blockBytes, inflated, size - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Damaged block " + number + " in " + path);
+                }
+                inflated += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged block " + number + " in " + path + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        cachedBlock = number;
+        cachedBuffer = ByteBuffer.wrap(blockBytes, 0, size);
+        return cachedBuffer;
+    }
+}
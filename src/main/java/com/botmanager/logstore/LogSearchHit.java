@@ -0,0 +1,41 @@
+package com.botmanager.logstore;
+
+/**
+ * One matching line from {@link BotLogStores#search}.
+ */
+public final class LogSearchHit {
+
+    private final String botId;
+    private final long lineNumber;
+    private final long timeMs;
+    private final String text;
+
+    LogSearchHit(String botId, long lineNumber, long timeMs, String text) {
+        this.botId = botId;
+        this.lineNumber = lineNumber;
+        this.timeMs = timeMs;
+        this.text = text;
+    }
+
+    public String getBotId() {
+        return botId;
+    }
+
+    /**
+     * @return The line's number in the bot's log, as used by {@link BotLogStore#readLine(long)}.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return When the line was written (epoch ms, second precision), or 0 if unknown.
+     */
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
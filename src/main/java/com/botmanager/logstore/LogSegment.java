@@ -0,0 +1,449 @@
+package com.botmanager.logstore;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One file of a {@link BotLogStore}: newline-separated UTF-8 lines starting at
+ * {@link #getBaseLine()}, plus a sparse index holding the byte offset of every
+ * {@link BotLogStore#INDEX_INTERVAL}th line. Reads go through a read-only memory map.
+ * <p>
+ * Alongside are the time each line was written ({@code .tim}, one unsigned 32-bit epoch
+ * second per line, 0 if unknown) and, once searched or indexed, its {@link LogTermIndex}.
+ * <p>
+ * A sealed segment may be replaced by its {@link CompressedSegment}; reads then inflate
+ * the block holding the line instead of going through the map and sparse index.
+ */
+final class LogSegment {
+
+    static final String DATA_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+    static final String TIME_SUFFIX = ".tim";
+
+    private final long baseLine;
+    private final Path dataPath;
+    private final Path indexPath;
+    private final Path timePath;
+    private final Path termsPath;
+    private final Path compressedPath;
+    private boolean compressedOnDisk;
+
+    private long lineCount;
+    private long sizeBytes;
+
+    private long[] index;
+    private int indexSize;
+
+    private MappedByteBuffer map;
+    private long mappedBytes;
+    private MappedByteBuffer timeMap;
+    private CompressedSegment compressed;
+
+    // Search index state, guarded by the owning store.
+    LogTermIndex terms;
+    long indexedLines;
+
+    /**
+     * Receives lines from {@link #scanLines}; the line is {@code buffer[start, end)} without its newline.
+     */
+    interface LineVisitor {
+        /** @return {@code false} to stop scanning. */
+        boolean visit(long relativeLine, ByteBuffer buffer, int start, int end);
+    }
+
+    LogSegment(Path directory, long baseLine) {
+        this(directory, baseLine, false);
+    }
+
+    LogSegment(Path directory, long baseLine, boolean compressedOnDisk) {
+        this.baseLine = baseLine;
+        String name = String.format("%020d", baseLine);
+        this.dataPath = directory.resolve(name + DATA_SUFFIX);
+        this.indexPath = directory.resolve(name + INDEX_SUFFIX);
+        this.timePath = directory.resolve(name + TIME_SUFFIX);
+        this.termsPath = directory.resolve(name + LogTermIndex.SUFFIX);
+        this.compressedPath = directory.resolve(name + CompressedSegment.SUFFIX);
+        this.compressedOnDisk = compressedOnDisk;
+    }
+
+    private LogSegment(LogSegment source) {
+        this.baseLine = source.baseLine;
+        this.dataPath = source.dataPath;
+        this.indexPath = source.indexPath;
+        this.timePath = source.timePath;
+        this.termsPath = source.termsPath;
+        this.compressedPath = source.compressedPath;
+        this.compressedOnDisk = source.compressedOnDisk;
+        this.lineCount = source.lineCount;
+        this.sizeBytes = source.sizeBytes;
+    }
+
+    /**
+     * Parses the base line out of a plain or compressed segment file name, or returns -1 if the name does not match.
+     */
+    static long parseBaseLine(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        String suffix = name.endsWith(DATA_SUFFIX) ? DATA_SUFFIX : name.endsWith(CompressedSegment.SUFFIX) ? CompressedSegment.SUFFIX : null;
+        if (suffix == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    long getBaseLine() { return baseLine; }
+    Path getDataPath() { return dataPath; }
+    Path getIndexPath() { return indexPath; }
+    Path getTimePath() { return timePath; }
+    Path getTermsPath() { return termsPath; }
+    Path getCompressedPath() { return compressedPath; }
+    boolean isCompressed() { return compressedOnDisk; }
+    long getLineCount() { return lineCount; }
+    long getSizeBytes() { return sizeBytes; }
+
+    void setLineCount(long lineCount) { this.lineCount = lineCount; }
+
+    /**
+     * Records a line that was just appended at {@code offset}, adding an index entry when due.
+     */
+    void recordAppend(long offset, int encodedLength) {
+        if (lineCount % BotLogStore.INDEX_INTERVAL == 0) {
+            addIndexEntry(offset);
+        }
+        lineCount++;
+        sizeBytes = offset + encodedLength;
+    }
+
+    /**
+     * Initializes an empty index for a freshly created segment.
+     */
+    void rebuildIndexForEmpty() {
+        index = new long[16];
+        indexSize = 0;
+        lineCount = 0;
+        sizeBytes = 0;
+    }
+
+    boolean hasIndex() {
+        return compressedOnDisk ? compressed != null : index != null;
+    }
+
+    /**
+     * Switches reads to the compressed file that now replaces the plain one.
+     */
+    void markCompressed() {
+        unmap();
+        compressedOnDisk = true;
+        index = null;
+        indexSize = 0;
+    }
+
+    /**
+     * @return Bytes the segment's files take on disk.
+     */
+    long diskBytes() {
+        return sizeOf(dataPath) + sizeOf(indexPath) + sizeOf(compressedPath) + sizeOf(timePath) + sizeOf(termsPath);
+    }
+
+    /**
+     * @return When the segment's lines were last written (epoch ms).
+     */
+    long lastModifiedMs() throws IOException {
+        return Files.getLastModifiedTime(compressedOnDisk ? compressedPath : dataPath).toMillis();
+    }
+
+    /**
+     * Deletes all of the segment's files.
+     */
+    void deleteFiles() throws IOException {
+        unmap();
+        for (Path path : new Path[] {dataPath, indexPath, compressedPath, timePath, termsPath}) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Loads the persisted sparse index, rebuilding it from the data file if it is missing or stale.
+     * Used for sealed segments, whose line count is known from the next segment's base line.
+     */
+    void loadIndex(long expectedLines) throws IOException {
+        lineCount = expectedLines;
+        if (compressedOnDisk) {
+            compressed = CompressedSegment.open(compressedPath, expectedLines);
+            return;
+        }
+        sizeBytes = Files.size(dataPath);
+        long expectedEntries = (expectedLines + BotLogStore.INDEX_INTERVAL - 1) / BotLogStore.INDEX_INTERVAL;
+        if (Files.exists(indexPath) && Files.size(indexPath) == expectedEntries * Long.BYTES) {
+            index = new long[(int) expectedEntries];
+            indexSize = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+                while (indexSize < expectedEntries) {
+                    index[indexSize++] = in.readLong();
+                }
+            }
+            return;
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * Scans the data file to recount lines and rebuild the sparse index. Bytes after the last
+     * newline (a line torn by a crash) are not counted.
+     *
+     * @return The byte length of the complete lines, i.e. where the next append should go.
+     */
+    long rebuildIndex() throws IOException {
+        index = new long[16];
+        indexSize = 0;
+        lineCount = 0;
+        long offset = 0;
+        long lineStart = 0;
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(dataPath))) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        if (lineCount % BotLogStore.INDEX_INTERVAL == 0) {
+                            addIndexEntry(lineStart);
+                        }
+                        lineCount++;
+                        lineStart = offset + i + 1;
+                    }
+                }
+                offset += read;
+            }
+        }
+        sizeBytes = lineStart;
+        map = null;
+        return lineStart;
+    }
+
+    /**
+     * Serializes the in-memory index entries to the index file.
+     */
+    void writeIndex() throws IOException {
+        byte[] bytes = new byte[indexSize * Long.BYTES];
+        for (int i = 0; i < indexSize; i++) {
+            long value = index[i];
+            for (int b = 0; b < Long.BYTES; b++) {
+                bytes[i * Long.BYTES + b] = (byte) (value >>> (56 - 8 * b));
+            }
+        }
+        Files.write(indexPath, bytes);
+    }
+
+    /**
+     * Copies the segment as it is now, for reading without the store's lock. The copy shares
+     * this segment's maps, which are dropped but never unmapped, so it stays readable after the
+     * segment is compressed or deleted; it has its own sparse index and compressed-block cache.
+     * Lines appended later are not in the copy.
+     */
+    LogSegment snapshot() throws IOException {
+        if (!hasIndex()) {
+            throw new IllegalStateException("Segment index not loaded: " + dataPath);
+        }
+        LogSegment copy = new LogSegment(this);
+        if (compressedOnDisk) {
+            copy.compressed = compressed.duplicate();
+        } else {
+            copy.map = map == null || mappedBytes < sizeBytes ? remap() : map;
+            copy.mappedBytes = mappedBytes;
+            copy.index = Arrays.copyOf(index, indexSize);
+            copy.indexSize = indexSize;
+        }
+        copy.timeMap = timeMap;
+        return copy;
+    }
+
+    /**
+     * Reads one line. {@code relativeLine} must be below {@link #getLineCount()} and the bytes
+     * must already be on disk.
+     */
+    String readLine(long relativeLine) throws IOException {
+        if (!hasIndex()) {
+            throw new IllegalStateException("Segment index not loaded: " + dataPath);
+        }
+        if (compressedOnDisk) {
+            String[] line = new String[1];
+            scanLines(relativeLine, relativeLine + 1, (relative, buffer, start, end) -> {
+                byte[] bytes = new byte[end - start];
+                buffer.get(start, bytes);
+                line[0] = new String(bytes, StandardCharsets.UTF_8);
+                return false;
+            });
+            return line[0];
+        }
+        int entry = (int) (relativeLine / BotLogStore.INDEX_INTERVAL);
+        long start = index[entry];
+        MappedByteBuffer buffer = mapped(start);
+
+        while (true) {
+            int pos = (int) start;
+            int limit = (int) mappedBytes;
+            int skip = (int) (relativeLine % BotLogStore.INDEX_INTERVAL);
+            while (skip > 0 && pos < limit) {
+                if (buffer.get(pos++) == '\n') {
+                    skip--;
+                }
+            }
+            int end = pos;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && mappedBytes < sizeBytes) {
+                // The line continues past the mapped region of a growing segment; map the rest and retry.
+                buffer = remap();
+                continue;
+            }
+            byte[] bytes = new byte[end - pos];
+            buffer.get(pos, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Calls {@code visitor} for lines {@code [fromRelative, toRelative)} in order. The bytes must
+     * already be on disk.
+     */
+    void scanLines(long fromRelative, long toRelative, LineVisitor visitor) throws IOException {
+        if (fromRelative >= toRelative) {
+            return;
+        }
+        if (!hasIndex()) {
+            throw new IllegalStateException("Segment index not loaded: " + dataPath);
+        }
+        if (compressedOnDisk) {
+            scanCompressed(fromRelative, toRelative, visitor);
+            return;
+        }
+        MappedByteBuffer buffer = map == null || mappedBytes < sizeBytes ? remap() : map;
+        int pos = (int) index[(int) (fromRelative / BotLogStore.INDEX_INTERVAL)];
+        int limit = (int) mappedBytes;
+        for (int skip = (int) (fromRelative % BotLogStore.INDEX_INTERVAL); skip > 0 && pos < limit; ) {
+            if (buffer.get(pos++) == '\n') {
+                skip--;
+            }
+        }
+        for (long line = fromRelative; line < toRelative && pos < limit; line++) {
+            int end = pos;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (!visitor.visit(line, buffer, pos, end)) {
+                return;
+            }
+            pos = end + 1;
+        }
+    }
+
+    /**
+     * Streams through the compressed blocks covering {@code [fromRelative, toRelative)}, one at a time.
+     */
+    private void scanCompressed(long fromRelative, long toRelative, LineVisitor visitor) throws IOException {
+        long line = fromRelative;
+        while (line < toRelative) {
+            int number = (int) (line / CompressedSegment.BLOCK_LINES);
+            ByteBuffer block = compressed.block(number);
+            int limit = block.limit();
+            int pos = 0;
+            for (int skip = (int) (line % CompressedSegment.BLOCK_LINES); skip > 0 && pos < limit; ) {
+                if (block.get(pos++) == '\n') {
+                    skip--;
+                }
+            }
+            long blockEnd = Math.min(toRelative, (number + 1L) * CompressedSegment.BLOCK_LINES);
+            for (; line < blockEnd && pos < limit; line++) {
+                int end = pos;
+                while (end < limit && block.get(end) != '\n') {
+                    end++;
+                }
+                if (!visitor.visit(line, block, pos, end)) {
+                    return;
+                }
+                pos = end + 1;
+            }
+            line = blockEnd;
+        }
+    }
+
+    /**
+     * @return When the line was written, in epoch milliseconds (second precision), or 0 if unknown.
+     */
+    long readTimeMs(long relativeLine) throws IOException {
+        long position = relativeLine * Integer.BYTES;
+        if (timeMap == null || position + Integer.BYTES > timeMap.capacity()) {
+            try (FileChannel channel = FileChannel.open(timePath, StandardOpenOption.READ)) {
+                timeMap = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                return 0; // written before times were recorded
+            }
+            if (position + Integer.BYTES > timeMap.capacity()) {
+                return 0;
+            }
+        }
+        return Integer.toUnsignedLong(timeMap.getInt((int) position)) * 1000;
+    }
+
+    /**
+     * Drops the memory maps; the next read re-maps the files.
+     */
+    void unmap() {
+        map = null;
+        mappedBytes = 0;
+        timeMap = null;
+        compressed = null;
+    }
+
+    boolean isMapped() {
+        return map != null || compressed != null;
+    }
+
+    private MappedByteBuffer mapped(long requiredOffset) throws IOException {
+        if (map == null || requiredOffset >= mappedBytes) {
+            return remap();
+        }
+        return map;
+    }
+
+    private MappedByteBuffer remap() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            mappedBytes = Math.min(sizeBytes, channel.size());
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedBytes);
+        }
+        return map;
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void addIndexEntry(long offset) {
+        if (index == null) {
+            index = new long[16];
+        }
+        if (indexSize == index.length) {
+            index = Arrays.copyOf(index, indexSize * 2);
+        }
+        index[indexSize++] = offset;
+    }
+}
@@ -0,0 +1,278 @@
+package com.botmanager.logstore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Inverted index of one {@link LogSegment}: for every word hash (see {@link LogTokenizer}),
+ * the segment-relative numbers of the lines containing it.
+ * <p>
+ * While its segment is being written the index grows in an open-addressing table of plain
+ * int lists. Once the segment is sealed and fully indexed it is {@link #freeze() frozen}
+ * into a sorted hash array plus delta/varint-coded postings (about a byte and a half per
+ * occurrence) and saved next to the segment as {@code <base>.tix}.
+ */
+final class LogTermIndex {
+
+    static final String SUFFIX = ".tix";
+    private static final int MAGIC = 0x42544958; // "BTIX"
+    private static final int VERSION = 1;
+    private static final int[] NO_LINES = new int[0];
+
+    // Growing: hash -> lines. A zero key marks a free slot; a real zero hash is stored as 1.
+    private long[] keys;
+    private int[][] lists;
+    private int[] sizes;
+    private int terms;
+
+    // Frozen.
+    private long[] hashes;
+    private int[] offsets;
+    private byte[] postings;
+
+    private LogTermIndex() {
+    }
+
+    static LogTermIndex growing() {
+        LogTermIndex index = new LogTermIndex();
+        index.keys = new long[256];
+        index.lists = new int[256][];
+        index.sizes = new int[256];
+        return index;
+    }
+
+    boolean isFrozen() {
+        return hashes != null;
+    }
+
+    /**
+     * Records that {@code line} contains the word {@code hash}. Lines must be added in
+     * ascending order; repeats within a line are ignored.
+     */
+    void add(int line, long hash) {
+        if (hash == 0) {
+            hash = 1;
+        }
+        int slot = slot(hash);
+        if (keys[slot] == 0) {
+            keys[slot] = hash;
+            lists[slot] = new int[2];
+            terms++;
+            if (terms * 2 > keys.length) {
+                grow();
+                slot = slot(hash);
+            }
+        }
+        int size = sizes[slot];
+        int[] list = lists[slot];
+        if (size > 0 && list[size - 1] == line) {
+            return;
+        }
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+            lists[slot] = list;
+        }
+        list[size] = line;
+        sizes[slot] = size + 1;
+    }
+
+    /**
+     * @return The ascending lines containing the word, possibly empty.
+     */
+    int[] lines(long hash) {
+        if (hash == 0) {
+            hash = 1;
+        }
+        if (!isFrozen()) {
+            int slot = slot(hash);
+            return keys[slot] == 0 ? NO_LINES : Arrays.copyOf(lists[slot], sizes[slot]);
+        }
+        int term = Arrays.binarySearch(hashes, hash);
+        if (term < 0) {
+            return NO_LINES;
+        }
+        int[] lines = new int[16];
+        int count = 0;
+        int line = 0;
+        for (int pos = offsets[term]; pos < offsets[term + 1]; ) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings[pos++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            line += delta;
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            lines[count++] = line;
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    /**
+     * Converts the growing table into the compact, read-only form.
+     */
+    void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        long[] sorted = new long[terms];
+        int n = 0;
+        for (long key : keys) {
+            if (key != 0) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        int[] termOffsets = new int[terms + 1];
+        byte[] out = new byte[Math.max(16, terms * 4)];
+        int length = 0;
+        for (int term = 0; term < terms; term++) {
+            int slot = slot(sorted[term]);
+            int[] list = lists[slot];
+            int previous = 0;
+            for (int i = 0; i < sizes[slot]; i++) {
+                if (length + 5 > out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int delta = list[i] - previous;
+                previous = list[i];
+                while ((delta & ~0x7f) != 0) {
+                    out[length++] = (byte) ((delta & 0x7f) | 0x80);
+                    delta >>>= 7;
+                }
+                out[length++] = (byte) delta;
+            }
+            termOffsets[term + 1] = length;
+        }
+        hashes = sorted;
+        offsets = termOffsets;
+        postings = Arrays.copyOf(out, length);
+        keys = null;
+        lists = null;
+        sizes = null;
+    }
+
+    /**
+     * Saves a frozen index covering {@code lineCount} lines, atomically.
+     */
+    void write(Path path, long lineCount) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        writeTo(temp, lineCount);
+        replace(temp, path);
+    }
+
+    /**
+     * Saves a frozen index covering {@code lineCount} lines to {@code file} as is; see {@link #replace}.
+     */
+    void writeTo(Path file, long lineCount) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lineCount);
+            out.writeInt(hashes.length);
+            for (long hash : hashes) {
+                out.writeLong(hash);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.write(postings);
+        }
+    }
+
+    /**
+     * Moves a file written by {@link #writeTo} into place, atomically where supported.
+     */
+    static void replace(Path temp, Path path) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return The number of lines the saved index covers, or -1 if there is no usable one.
+     */
+    static long coveredLines(Path path) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION ? in.readLong() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Loads a saved index, or returns {@code null} if it is missing, damaged or does not cover
+     * exactly {@code lineCount} lines.
+     */
+    static LogTermIndex read(Path path, long lineCount) throws IOException {
+        byte[] bytes;
+        try (InputStream in = Files.newInputStream(path)) {
+            bytes = in.readAllBytes();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != lineCount) {
+            return null;
+        }
+        int terms = buffer.getInt();
+        if (terms < 0 || (long) terms * 12 + 4 > buffer.remaining()) {
+            return null;
+        }
+        LogTermIndex index = new LogTermIndex();
+        index.hashes = new long[terms];
+        buffer.asLongBuffer().get(index.hashes);
+        buffer.position(buffer.position() + terms * Long.BYTES);
+        index.offsets = new int[terms + 1];
+        buffer.asIntBuffer().get(index.offsets);
+        buffer.position(buffer.position() + (terms + 1) * Integer.BYTES);
+        if (index.offsets[terms] != buffer.remaining()) {
+            return null;
+        }
+        index.postings = new byte[buffer.remaining()];
+        buffer.get(index.postings);
+        return index;
+    }
+
+    private int slot(long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) * 0x9E3779B9 & mask;
+        while (keys[slot] != 0 && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[][] oldLists = lists;
+        int[] oldSizes = sizes;
+        keys = new long[oldKeys.length * 2];
+        lists = new int[keys.length][];
+        sizes = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lists[slot] = oldLists[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+    }
+}
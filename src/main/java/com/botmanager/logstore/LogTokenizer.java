@@ -0,0 +1,98 @@
+package com.botmanager.logstore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits UTF-8 log lines into words for the search index, straight from the mapped bytes.
+ * <p>
+ * A word is a run of ASCII letters, digits, {@code _} or non-ASCII bytes (so accented words
+ * stay whole), at least {@link #MIN_WORD_BYTES} long. {@code java.lang.NullPointerException}
+ * is three words, a guild id is one. Words are identified by a 64-bit FNV-1a hash of their
+ * ASCII-lower-cased bytes, which keeps the index free of strings; a collision only costs a
+ * candidate line that the verification step then rejects.
+ */
+final class LogTokenizer {
+
+    static final int MIN_WORD_BYTES = 2;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private LogTokenizer() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    interface WordSink {
+        void word(long hash);
+    }
+
+    /**
+     * Calls {@code sink} for each word in {@code buffer[start, end)}, in order, repeats included.
+     */
+    static void forEachWord(ByteBuffer buffer, int start, int end, WordSink sink) {
+        long hash = FNV_OFFSET;
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            int b = buffer.get(i) & 0xff;
+            if (isWordByte(b)) {
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                hash = (hash ^ b) * FNV_PRIME;
+                length++;
+            } else {
+                if (length >= MIN_WORD_BYTES) {
+                    sink.word(hash);
+                }
+                hash = FNV_OFFSET;
+                length = 0;
+            }
+        }
+        if (length >= MIN_WORD_BYTES) {
+            sink.word(hash);
+        }
+    }
+
+    /**
+     * @return The distinct words of a query, or an empty array if it has none.
+     */
+    static long[] queryWords(String query) {
+        byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+        long[][] words = {new long[8]};
+        int[] count = {0};
+        forEachWord(ByteBuffer.wrap(bytes), 0, bytes.length, hash -> {
+            for (int i = 0; i < count[0]; i++) {
+                if (words[0][i] == hash) {
+                    return;
+                }
+            }
+            if (count[0] == words[0].length) {
+                words[0] = Arrays.copyOf(words[0], count[0] * 2);
+            }
+            words[0][count[0]++] = hash;
+        });
+        return Arrays.copyOf(words[0], count[0]);
+    }
+
+    /**
+     * @return {@code true} if the line in {@code buffer[start, end)} contains every one of {@code words}.
+     */
+    static boolean containsAll(ByteBuffer buffer, int start, int end, long[] words) {
+        boolean[] found = new boolean[words.length];
+        int[] missing = {words.length};
+        forEachWord(buffer, start, end, hash -> {
+            for (int i = 0; i < words.length; i++) {
+                if (!found[i] && words[i] == hash) {
+                    found[i] = true;
+                    missing[0]--;
+                }
+            }
+        });
+        return missing[0] == 0;
+    }
+
+    private static boolean isWordByte(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b >= 0x80;
+    }
+}
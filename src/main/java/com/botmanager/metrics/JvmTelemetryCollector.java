@@ -0,0 +1,276 @@
+package com.botmanager.metrics;
+
+import com.botmanager.util.IoThreads;
+import com.sun.tools.attach.VirtualMachine;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polls heap, GC, thread and class figures from inside every running bot JVM.
+ * <p>
+ * Uses the Attach API to start each bot's local management agent and connects to it over
+ * JMX. That agent is only reachable by the same OS user, so no JMX port is opened and the
+ * start command stays unchanged. Bots that are not attachable yet (still starting) or at
+ * all (attach disabled, not a HotSpot JVM) are retried with a backoff. Each bot is polled
+ * on its own {@link IoThreads} task, so one unresponsive JVM cannot stall the others.
+ * <p>
+ * Samples go into the {@link JvmTelemetryHistory} registered for the bot. When a bot spends
+ * most of its time in GC for several samples in a row the listener is told once, until it
+ * recovers.
+ */
+public class JvmTelemetryCollector {
+
+    /** Poll interval ({@code -Dbotmanager.telemetry.intervalMs}). */
+    public static final long DEFAULT_INTERVAL_MS = Long.getLong("botmanager.telemetry.intervalMs", 2000);
+    /** GC time share that counts as GC pressure ({@code -Dbotmanager.telemetry.gcAlertPercent}). */
+    public static final int GC_ALERT_PERCENT = Integer.getInteger("botmanager.telemetry.gcAlertPercent", 50);
+    /** Intervals the GC share is averaged over before alerting. */
+    public static final int GC_ALERT_SAMPLES = 3;
+    private static final long MIN_RETRY_MS = 2000;
+    private static final long MAX_RETRY_MS = 60_000;
+
+    /**
+     * Receives GC pressure alerts on a collector thread.
+     */
+    public interface Listener {
+        void onGcPressure(String botId, double gcTimePercent, long recentFullGcs, long heapUsed, long heapCommitted);
+    }
+
+    private final Map<String, Process> processes;
+    private final Listener listener;
+    private final long intervalMs;
+    private final boolean attachAvailable = ModuleLayer.boot().findModule("jdk.attach").isPresent();
+    private final Map<String, JvmTelemetryHistory> histories = new ConcurrentHashMap<>();
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param processes Live map of bot id to running process.
+     * @param listener  Told about sustained GC pressure; may be {@code null}.
+     */
+    public JvmTelemetryCollector(Map<String, Process> processes, Listener listener) {
+        this(processes, listener, DEFAULT_INTERVAL_MS);
+    }
+
+    public JvmTelemetryCollector(Map<String, Process> processes, Listener listener, long intervalMs) {
+        this.processes = processes;
+        this.listener = listener;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Starts recording a bot's samples into {@code history}.
+     */
+    public void register(String botId, JvmTelemetryHistory history) {
+        histories.put(botId, history);
+    }
+
+    public void unregister(String botId) {
+        histories.remove(botId);
+        Connection connection = connections.remove(botId);
+        if (connection != null) {
+            IoThreads.execute(connection::disconnect);
+        }
+    }
+
+    /**
+     * @return {@code false} if this runtime lacks the Attach API (e.g. a trimmed jlink image).
+     */
+    public boolean isAvailable() {
+        return attachAvailable;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || !attachAvailable) {
+            if (!attachAvailable) {
+                System.err.println("JvmTelemetryCollector: jdk.attach is not available; JVM telemetry is disabled.");
+            }
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bot-jvm-telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        connections.values().forEach(connection -> IoThreads.execute(connection::disconnect));
+        connections.clear();
+    }
+
+    private void tick() {
+        try {
+            processes.forEach((botId, process) -> {
+                JvmTelemetryHistory history = histories.get(botId);
+                if (history == null) {
+                    return;
+                }
+                Connection connection = connections.get(botId);
+                if (connection == null || connection.pid != process.pid()) {
+                    if (connection != null) {
+                        IoThreads.execute(connection::disconnect);
+                    }
+                    connection = new Connection(process.pid());
+                    connections.put(botId, connection);
+                    history.clear(); // counters of the new JVM start from zero
+                }
+                Connection polled = connection;
+                if (polled.busy.compareAndSet(false, true)) {
+                    IoThreads.execute(() -> poll(botId, polled, history));
+                }
+            });
+            for (Iterator<Map.Entry<String, Connection>> it = connections.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Connection> entry = it.next();
+                if (!processes.containsKey(entry.getKey())) {
+                    it.remove();
+                    IoThreads.execute(entry.getValue()::disconnect);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("JvmTelemetryCollector: Poll round failed: " + e.getMessage());
+        }
+    }
+
+    private void poll(String botId, Connection connection, JvmTelemetryHistory history) {
+        try {
+            long now = System.currentTimeMillis();
+            if (!connection.isConnected()) {
+                if (now < connection.nextAttemptMs) {
+                    return;
+                }
+                connection.connect();
+            }
+            connection.sample(history, now);
+            connection.retryDelayMs = MIN_RETRY_MS;
+
+            double gcPercent = history.getGcTimePercent(GC_ALERT_SAMPLES);
+            if (gcPercent >= GC_ALERT_PERCENT && history.size() > GC_ALERT_SAMPLES) {
+                if (!connection.alerted && listener != null) {
+                    int last = history.size() - 1;
+                    listener.onGcPressure(botId, gcPercent, history.getRecentFullGcs(GC_ALERT_SAMPLES),
+                            history.getHeapUsed(last), history.getHeapCommitted(last));
+                }
+                connection.alerted = true;
+            } else if (gcPercent >= 0 && gcPercent < GC_ALERT_PERCENT / 2.0) {
+                connection.alerted = false;
+            }
+        } catch (Exception e) {
+            // Not attachable yet, or the JVM went away mid-poll: try again later.
+            connection.disconnect();
+            connection.nextAttemptMs = System.currentTimeMillis() + connection.retryDelayMs;
+            connection.retryDelayMs = Math.min(MAX_RETRY_MS, connection.retryDelayMs * 2);
+        } finally {
+            connection.busy.set(false);
+        }
+    }
+
+    private static boolean isOldGenerationCollector(String name) {
+        return name.contains("Old") || name.contains("MarkSweep") || name.contains("Major") || name.contains("Full");
+    }
+
+    /**
+     * JMX connection to one bot JVM plus the MXBean proxies used for polling.
+     */
+    private static final class Connection {
+        final long pid;
+        final AtomicBoolean busy = new AtomicBoolean();
+        long nextAttemptMs;
+        long retryDelayMs = MIN_RETRY_MS;
+        boolean alerted;
+
+        private volatile JMXConnector connector;
+        private MemoryMXBean memory;
+        private ThreadMXBean threads;
+        private ClassLoadingMXBean classLoading;
+        private List<GarbageCollectorMXBean> collectors;
+        private boolean[] oldGeneration;
+
+        Connection(long pid) {
+            this.pid = pid;
+        }
+
+        boolean isConnected() {
+            return connector != null;
+        }
+
+        void connect() throws Exception {
+            VirtualMachine vm = VirtualMachine.attach(Long.toString(pid));
+            String address;
+            try {
+                address = vm.startLocalManagementAgent();
+            } finally {
+                vm.detach();
+            }
+            JMXConnector jmx = JMXConnectorFactory.connect(new JMXServiceURL(address));
+            try {
+                MBeanServerConnection server = jmx.getMBeanServerConnection();
+                memory = ManagementFactory.newPlatformMXBeanProxy(server, ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+                threads = ManagementFactory.newPlatformMXBeanProxy(server, ManagementFactory.THREAD_MXBEAN_NAME, ThreadMXBean.class);
+                classLoading = ManagementFactory.newPlatformMXBeanProxy(server, ManagementFactory.CLASS_LOADING_MXBEAN_NAME, ClassLoadingMXBean.class);
+                collectors = ManagementFactory.getPlatformMXBeans(server, GarbageCollectorMXBean.class);
+                oldGeneration = new boolean[collectors.size()];
+                for (int i = 0; i < collectors.size(); i++) {
+                    oldGeneration[i] = isOldGenerationCollector(collectors.get(i).getName());
+                }
+            } catch (IOException | RuntimeException e) {
+                jmx.close();
+                throw e;
+            }
+            connector = jmx;
+        }
+
+        void sample(JvmTelemetryHistory history, long now) {
+            MemoryUsage heap = memory.getHeapMemoryUsage();
+            long gcCount = 0;
+            long gcTime = 0;
+            long fullGcCount = 0;
+            for (int i = 0; i < collectors.size(); i++) {
+                GarbageCollectorMXBean collector = collectors.get(i);
+                long count = Math.max(0, collector.getCollectionCount());
+                gcCount += count;
+                gcTime += Math.max(0, collector.getCollectionTime());
+                if (oldGeneration[i]) {
+                    fullGcCount += count;
+                }
+            }
+            history.record(now, heap.getUsed(), heap.getCommitted(), gcCount, gcTime, fullGcCount,
+                    threads.getThreadCount(), classLoading.getLoadedClassCount());
+        }
+
+        void disconnect() {
+            JMXConnector jmx = connector;
+            connector = null;
+            if (jmx != null) {
+                try {
+                    jmx.close();
+                } catch (IOException ignored) {
+                    // The bot is gone or unreachable; nothing to clean up on our side.
+                }
+            }
+        }
+    }
+}
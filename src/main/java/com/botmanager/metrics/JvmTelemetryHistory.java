@@ -0,0 +1,136 @@
+package com.botmanager.metrics;
+
+/**
+ * Bounded history of one bot's JVM telemetry (heap, GC, threads, classes), oldest samples
+ * overwritten first. Kept as parallel primitive arrays, allocated with the first sample,
+ * so a long history costs a few kilobytes and recording a sample allocates nothing.
+ * <p>
+ * Written by the {@link JvmTelemetryCollector}, read from the FX thread.
+ */
+public final class JvmTelemetryHistory {
+
+    /** Samples kept per bot ({@code -Dbotmanager.telemetry.historySize}). */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("botmanager.telemetry.historySize", 300);
+
+    private final int capacity;
+    private long[] timestamps;
+    private long[] heapUsed;
+    private long[] heapCommitted;
+    private long[] gcCount;
+    private long[] gcTimeMs;
+    private long[] fullGcCount;
+    private int[] threads;
+    private int[] loadedClasses;
+    private int head;
+    private int size;
+
+    public JvmTelemetryHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JvmTelemetryHistory(int capacity) {
+        this.capacity = Math.max(2, capacity);
+    }
+
+    // Bots that never run never pay for the arrays.
+    private void allocate() {
+        timestamps = new long[capacity];
+        heapUsed = new long[capacity];
+        heapCommitted = new long[capacity];
+        gcCount = new long[capacity];
+        gcTimeMs = new long[capacity];
+        fullGcCount = new long[capacity];
+        threads = new int[capacity];
+        loadedClasses = new int[capacity];
+    }
+
+    synchronized void record(long timestampMs, long used, long committed, long collections, long collectionTimeMs,
+                             long fullCollections, int threadCount, int classCount) {
+        if (timestamps == null) {
+            allocate();
+        }
+        int slot = (head + size) % capacity;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+        } else {
+            size++;
+        }
+        timestamps[slot] = timestampMs;
+        heapUsed[slot] = used;
+        heapCommitted[slot] = committed;
+        gcCount[slot] = collections;
+        gcTimeMs[slot] = collectionTimeMs;
+        fullGcCount[slot] = fullCollections;
+        threads[slot] = threadCount;
+        loadedClasses[slot] = classCount;
+    }
+
+    /**
+     * Forgets all samples, e.g. when the bot is restarted and its counters start from zero.
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return Wall-clock time of the {@code i}-th sample, 0 = oldest. */
+    public synchronized long getTimestamp(int i) { return timestamps[slot(i)]; }
+
+    public synchronized long getHeapUsed(int i) { return heapUsed[slot(i)]; }
+
+    public synchronized long getHeapCommitted(int i) { return heapCommitted[slot(i)]; }
+
+    /** @return Collections since JVM start, all collectors. */
+    public synchronized long getGcCount(int i) { return gcCount[slot(i)]; }
+
+    /** @return Accumulated collection time since JVM start, all collectors. */
+    public synchronized long getGcTimeMs(int i) { return gcTimeMs[slot(i)]; }
+
+    /** @return Old-generation / full collections since JVM start. */
+    public synchronized long getFullGcCount(int i) { return fullGcCount[slot(i)]; }
+
+    public synchronized int getThreads(int i) { return threads[slot(i)]; }
+
+    public synchronized int getLoadedClasses(int i) { return loadedClasses[slot(i)]; }
+
+    /**
+     * @return Share of wall-clock time spent in GC over the last {@code samples} intervals
+     *         (0-100), or -1 with fewer than two samples.
+     */
+    public synchronized double getGcTimePercent(int samples) {
+        if (size < 2) {
+            return -1;
+        }
+        int newest = size - 1;
+        int oldest = Math.max(0, newest - Math.max(1, samples));
+        long wallMs = timestamps[slot(newest)] - timestamps[slot(oldest)];
+        if (wallMs <= 0) {
+            return -1;
+        }
+        long gcMs = gcTimeMs[slot(newest)] - gcTimeMs[slot(oldest)];
+        return Math.min(100.0, Math.max(0, gcMs) * 100.0 / wallMs);
+    }
+
+    /**
+     * @return Full collections during the last {@code samples} intervals, or -1 with fewer than two samples.
+     */
+    public synchronized long getRecentFullGcs(int samples) {
+        if (size < 2) {
+            return -1;
+        }
+        int newest = size - 1;
+        int oldest = Math.max(0, newest - Math.max(1, samples));
+        return fullGcCount[slot(newest)] - fullGcCount[slot(oldest)];
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Sample " + i + " out of bounds for size " + size);
+        }
+        return (head + i) % capacity;
+    }
+}
@@ -0,0 +1,215 @@
+package com.botmanager.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code /proc/<pid>} files of one process, kept open between samples.
+ * <p>
+ * procfs regenerates a file's contents on every read from offset 0, so each sample is a
+ * positional read into the caller's buffer followed by a hand-written scan: no file
+ * opens, strings or regexes per sample.
+ */
+final class ProcFiles implements Closeable {
+
+    /** Kernel clock ticks per second for {@code utime}/{@code stime} (USER_HZ, 100 on every mainstream Linux). */
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static final byte[] VM_RSS = "VmRSS:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VM_HWM = "VmHWM:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] READ_BYTES = "read_bytes:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRITE_BYTES = "write_bytes:".getBytes(StandardCharsets.US_ASCII);
+
+    private final long pid;
+    private final FileChannel stat;
+    private final FileChannel status;
+    private final FileChannel io;
+    long lastSeenRound;
+
+    private ProcFiles(long pid, FileChannel stat, FileChannel status, FileChannel io) {
+        this.pid = pid;
+        this.stat = stat;
+        this.status = status;
+        this.io = io;
+    }
+
+    static ProcFiles open(long pid) throws IOException {
+        Path dir = Paths.get("/proc", Long.toString(pid));
+        FileChannel stat = FileChannel.open(dir.resolve("stat"), StandardOpenOption.READ);
+        FileChannel status = null;
+        try {
+            status = FileChannel.open(dir.resolve("status"), StandardOpenOption.READ);
+            FileChannel io;
+            try {
+                io = FileChannel.open(dir.resolve("io"), StandardOpenOption.READ);
+            } catch (AccessDeniedException e) {
+                io = null; // needs ptrace access; I/O columns stay empty
+            }
+            return new ProcFiles(pid, stat, status, io);
+        } catch (IOException e) {
+            stat.close();
+            if (status != null) {
+                status.close();
+            }
+            throw e;
+        }
+    }
+
+    long getPid() {
+        return pid;
+    }
+
+    /**
+     * Reads the current figures into {@code usage}.
+     *
+     * @return {@code false} if the process is gone.
+     */
+    boolean sample(ByteBuffer buffer, ResourceUsage usage, long nowNanos) {
+        try {
+            byte[] b = buffer.array();
+
+            int length = readFully(stat, buffer);
+            int close = lastIndexOf(b, length, (byte) ')');
+            if (close < 0) {
+                return false;
+            }
+            // Fields after "(comm)" start at field 3; utime=14, stime=15, num_threads=20.
+            long cpuTicks = 0;
+            int threads = -1;
+            int pos = close + 2;
+            for (int field = 3; field <= 20 && pos < length; field++) {
+                if (field == 14 || field == 15) {
+                    cpuTicks += parseLong(b, pos, length);
+                } else if (field == 20) {
+                    threads = (int) parseLong(b, pos, length);
+                }
+                while (pos < length && b[pos] != ' ') {
+                    pos++;
+                }
+                pos++;
+            }
+
+            length = readFully(status, buffer);
+            long rssKb = findValue(b, length, VM_RSS);
+            long peakKb = findValue(b, length, VM_HWM);
+
+            long readBytes = -1;
+            long writeBytes = -1;
+            if (io != null) {
+                length = readFully(io, buffer);
+                readBytes = findValue(b, length, READ_BYTES);
+                writeBytes = findValue(b, length, WRITE_BYTES);
+            }
+
+            long elapsedNanos = nowNanos - usage.lastSampleNanos;
+            if (usage.lastCpuTicks >= 0 && elapsedNanos > 0) {
+                double seconds = elapsedNanos / 1_000_000_000.0;
+                usage.cpuPercent = (cpuTicks - usage.lastCpuTicks) * 100.0 / CLOCK_TICKS_PER_SECOND / seconds;
+                if (readBytes >= 0 && usage.lastReadBytes >= 0) {
+                    usage.readBytesPerSecond = (long) ((readBytes - usage.lastReadBytes) / seconds);
+                    usage.writeBytesPerSecond = (long) ((writeBytes - usage.lastWriteBytes) / seconds);
+                }
+            }
+            usage.lastCpuTicks = cpuTicks;
+            usage.lastReadBytes = readBytes;
+            usage.lastWriteBytes = writeBytes;
+            usage.lastSampleNanos = nowNanos;
+            usage.threads = threads;
+            usage.rssBytes = rssKb >= 0 ? rssKb * 1024 : -1;
+            usage.peakRssBytes = peakKb >= 0 ? peakKb * 1024 : -1;
+            usage.totalReadBytes = readBytes;
+            usage.totalWriteBytes = writeBytes;
+            return true;
+        } catch (IOException e) {
+            return false; // ESRCH once the process has exited
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(stat);
+        closeQuietly(status);
+        closeQuietly(io);
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = 0;
+        int read;
+        while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+            position += read;
+        }
+        return buffer.position();
+    }
+
+    private static int lastIndexOf(byte[] b, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (b[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a line starting with {@code key} and parses the number that follows it.
+     *
+     * @return The value, or -1 if the key is absent.
+     */
+    private static long findValue(byte[] b, int length, byte[] key) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (startsWith(b, lineStart, length, key)) {
+                int pos = lineStart + key.length;
+                while (pos < length && (b[pos] == ' ' || b[pos] == '\t')) {
+                    pos++;
+                }
+                return parseLong(b, pos, length);
+            }
+            while (lineStart < length && b[lineStart] != '\n') {
+                lineStart++;
+            }
+            lineStart++;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] b, int offset, int length, byte[] key) {
+        if (offset + key.length > length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (b[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] b, int pos, int length) {
+        long value = 0;
+        while (pos < length && b[pos] >= '0' && b[pos] <= '9') {
+            value = value * 10 + (b[pos] - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do; the descriptor is gone either way.
+        }
+    }
+}
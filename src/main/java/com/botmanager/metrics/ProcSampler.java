@@ -0,0 +1,172 @@
+package com.botmanager.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Samples CPU, memory, thread and I/O figures of every running bot at a fixed interval.
+ * <p>
+ * On Linux each process's {@code /proc/<pid>/stat}, {@code status} and {@code io} files are
+ * opened once and re-read in place into a single shared buffer, so a round over 100 bots
+ * is a few hundred {@code pread}s and allocates next to nothing. Elsewhere only CPU time
+ * is available, through {@link ProcessHandle.Info}.
+ * <p>
+ * Figures are published as {@link ResourceUsage} objects that are updated in place; the
+ * {@code onSample} callback runs on the sampler thread after each round.
+ */
+public class ProcSampler {
+
+    /** Sampling interval ({@code -Dbotmanager.metrics.intervalMs}). */
+    public static final long DEFAULT_INTERVAL_MS = Long.getLong("botmanager.metrics.intervalMs", 1000);
+    private static final int BUFFER_BYTES = 8 * 1024;
+
+    private final Map<String, Process> processes;
+    private final Runnable onSample;
+    private final long intervalMs;
+    private final boolean procAvailable = Files.isReadable(Paths.get("/proc/self/stat"));
+
+    private final Map<String, ResourceUsage> usages = new ConcurrentHashMap<>();
+    // Sampler thread only.
+    private final Map<String, ProcFiles> openFiles = new HashMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final BiConsumer<String, Process> sampleOne = this::sample;
+    private long round;
+    private long roundNanos;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param processes Live map of bot id to running process (read from the sampler thread).
+     * @param onSample  Called on the sampler thread after every round; may be {@code null}.
+     */
+    public ProcSampler(Map<String, Process> processes, Runnable onSample) {
+        this(processes, onSample, DEFAULT_INTERVAL_MS);
+    }
+
+    public ProcSampler(Map<String, Process> processes, Runnable onSample, long intervalMs) {
+        this.processes = processes;
+        this.onSample = onSample;
+        this.intervalMs = intervalMs;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bot-resource-sampler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sampleAll, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * @return The latest figures for a bot, or {@code null} if it has not been sampled while running.
+     */
+    public ResourceUsage getUsage(String botId) {
+        return usages.get(botId);
+    }
+
+    /**
+     * @return {@code true} if full figures are available; otherwise only CPU is sampled.
+     */
+    public boolean isProcAvailable() {
+        return procAvailable;
+    }
+
+    private void sampleAll() {
+        try {
+            round++;
+            roundNanos = System.nanoTime();
+            processes.forEach(sampleOne);
+
+            // Release files of processes that are gone and forget bots that stopped.
+            for (Iterator<Map.Entry<String, ProcFiles>> it = openFiles.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, ProcFiles> entry = it.next();
+                if (entry.getValue().lastSeenRound != round) {
+                    entry.getValue().close();
+                    it.remove();
+                }
+            }
+            usages.keySet().retainAll(processes.keySet());
+
+            if (onSample != null) {
+                onSample.run();
+            }
+        } catch (RuntimeException e) {
+            // Never let one bad sample cancel the schedule.
+            System.err.println("ProcSampler: Sampling failed: " + e.getMessage());
+        }
+    }
+
+    private void sample(String botId, Process process) {
+        long pid = process.pid();
+        ResourceUsage usage = usages.get(botId);
+        if (usage == null) {
+            usage = new ResourceUsage();
+            usage.reset(pid);
+            usages.put(botId, usage);
+        } else if (usage.pid != pid) {
+            usage.reset(pid); // restarted since the last round
+        }
+
+        if (!procAvailable) {
+            sampleCpuOnly(process, usage);
+            return;
+        }
+
+        ProcFiles files = openFiles.get(botId);
+        if (files != null && files.getPid() != pid) {
+            files.close();
+            files = null;
+        }
+        if (files == null) {
+            try {
+                files = ProcFiles.open(pid);
+            } catch (IOException e) {
+                return; // exited between listing and opening
+            }
+            openFiles.put(botId, files);
+        }
+        files.lastSeenRound = round;
+        if (!files.sample(buffer, usage, roundNanos)) {
+            files.close();
+            openFiles.remove(botId);
+        }
+    }
+
+    private void sampleCpuOnly(Process process, ResourceUsage usage) {
+        Duration cpu = process.info().totalCpuDuration().orElse(null);
+        if (cpu == null) {
+            return;
+        }
+        // Store CPU time in 10 ms "ticks" so the rate calculation matches the /proc path.
+        long ticks = cpu.toMillis() / 10;
+        long elapsedNanos = roundNanos - usage.lastSampleNanos;
+        if (usage.lastCpuTicks >= 0 && elapsedNanos > 0) {
+            usage.cpuPercent = (ticks - usage.lastCpuTicks) * 10.0 / TimeUnit.NANOSECONDS.toMillis(elapsedNanos) * 100.0;
+        }
+        usage.lastCpuTicks = ticks;
+        usage.lastSampleNanos = roundNanos;
+    }
+}
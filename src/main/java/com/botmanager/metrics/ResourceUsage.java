@@ -0,0 +1,64 @@
+package com.botmanager.metrics;
+
+/**
+ * Latest resource figures for one bot process, updated in place by {@link ProcSampler}.
+ * Fields are written by the sampler thread and may be read from any thread; a reader can
+ * see values from two consecutive samples, which is fine for display.
+ */
+public final class ResourceUsage {
+
+    volatile long pid = -1;
+    volatile double cpuPercent = Double.NaN;
+    volatile long rssBytes = -1;
+    volatile long peakRssBytes = -1;
+    volatile int threads = -1;
+    volatile long readBytesPerSecond = -1;
+    volatile long writeBytesPerSecond = -1;
+    volatile long totalReadBytes = -1;
+    volatile long totalWriteBytes = -1;
+
+    // Previous counters for rate calculations; sampler thread only.
+    long lastCpuTicks = -1;
+    long lastReadBytes = -1;
+    long lastWriteBytes = -1;
+    long lastSampleNanos;
+
+    public long getPid() { return pid; }
+
+    /** @return CPU use since the previous sample, 100 = one full core; NaN before the second sample. */
+    public double getCpuPercent() { return cpuPercent; }
+
+    /** @return Resident memory, or -1 if unknown. */
+    public long getRssBytes() { return rssBytes; }
+
+    /** @return Highest resident memory seen by the kernel for this process, or -1 if unknown. */
+    public long getPeakRssBytes() { return peakRssBytes; }
+
+    public int getThreads() { return threads; }
+
+    /** @return Storage reads per second, or -1 if unknown. */
+    public long getReadBytesPerSecond() { return readBytesPerSecond; }
+
+    /** @return Storage writes per second, or -1 if unknown. */
+    public long getWriteBytesPerSecond() { return writeBytesPerSecond; }
+
+    public long getTotalReadBytes() { return totalReadBytes; }
+
+    public long getTotalWriteBytes() { return totalWriteBytes; }
+
+    void reset(long newPid) {
+        pid = newPid;
+        cpuPercent = Double.NaN;
+        rssBytes = -1;
+        peakRssBytes = -1;
+        threads = -1;
+        readBytesPerSecond = -1;
+        writeBytesPerSecond = -1;
+        totalReadBytes = -1;
+        totalWriteBytes = -1;
+        lastCpuTicks = -1;
+        lastReadBytes = -1;
+        lastWriteBytes = -1;
+        lastSampleNanos = 0;
+    }
+}
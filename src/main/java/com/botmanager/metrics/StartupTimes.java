@@ -0,0 +1,82 @@
+package com.botmanager.metrics;
+
+import com.botmanager.util.CdsArchives;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long each bot took from launch to ready, kept apart for runs with and without a
+ * mapped class archive so the gain of {@link CdsArchives} shows across restarts.
+ * <p>
+ * A bot is ready at its first output line containing one of the {@link #READY_MARKERS}. Safe
+ * to use from any thread.
+ */
+public final class StartupTimes {
+
+    /**
+     * Output that marks a bot as ready: JDA's and the generated bots' by default
+     * ({@code -Dbotmanager.startup.readyMarker}, alternatives separated by {@code |}).
+     */
+    public static final List<String> READY_MARKERS = List.of(
+            System.getProperty("botmanager.startup.readyMarker", "Finished Loading!|is online!").split("\\|"));
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Startup times of one bot, in milliseconds, -1 where there is none yet.
+     */
+    public static final class Entry {
+        private final long lastMs;
+        private final CdsArchives.Mode lastMode;
+        private final long lastColdMs;
+        private final long lastSharedMs;
+
+        Entry(long lastMs, CdsArchives.Mode lastMode, long lastColdMs, long lastSharedMs) {
+            this.lastMs = lastMs;
+            this.lastMode = lastMode;
+            this.lastColdMs = lastColdMs;
+            this.lastSharedMs = lastSharedMs;
+        }
+
+        public long getLastMs() { return lastMs; }
+
+        public CdsArchives.Mode getLastMode() { return lastMode; }
+
+        /** @return The latest startup that loaded its classes from the jar (including recording runs). */
+        public long getLastColdMs() { return lastColdMs; }
+
+        /** @return The latest startup that mapped a class archive. */
+        public long getLastSharedMs() { return lastSharedMs; }
+    }
+
+    /**
+     * @return {@code true} if the output line shows that the bot is ready.
+     */
+    public static boolean isReadyLine(String line) {
+        for (String marker : READY_MARKERS) {
+            if (!marker.isEmpty() && line.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void record(String botId, CdsArchives.Mode mode, long startupMs) {
+        entries.compute(botId, (id, previous) -> {
+            long cold = previous != null ? previous.lastColdMs : -1;
+            long shared = previous != null ? previous.lastSharedMs : -1;
+            return mode == CdsArchives.Mode.SHARED
+                    ? new Entry(startupMs, mode, cold, startupMs)
+                    : new Entry(startupMs, mode, startupMs, shared);
+        });
+    }
+
+    /**
+     * @return The bot's startup times, or {@code null} if it has not become ready since the manager started.
+     */
+    public Entry get(String botId) {
+        return entries.get(botId);
+    }
+}
@@ -1,5 +1,6 @@
 package com.botmanager.patcher;
 
+import com.botmanager.util.IoThreads;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -183,7 +184,7 @@ public class Patcher extends Application {
             }
         });
 
-        new Thread(updateCheckTask).start();
+        IoThreads.execute(updateCheckTask);
     }
 
     private void downloadUpdate(VersionInfo versionInfo) {
@@ -266,7 +267,7 @@ public class Patcher extends Application {
             }
         });
 
-        new Thread(downloadTask).start();
+        IoThreads.execute(downloadTask);
     }
 
     private String getLocalAppVersion() {
@@ -0,0 +1,344 @@
+package com.botmanager.process;
+
+import com.botmanager.console.ConsoleChannel;
+import com.botmanager.console.LogLines;
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.metrics.StartupTimes;
+import com.botmanager.util.CdsArchives;
+import com.botmanager.util.CommandGenerator;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Starts and stops bot processes and pumps their output into the bot's console.
+ * All bots' output is read by one {@link OutputPoller} thread, whatever the size of the fleet.
+ * Safe to call from any thread. Lifecycle callbacks are delivered through the
+ * supplied executor (the FX thread in the app), which is also where the caller is
+ * expected to update the {@link Bot} model.
+ * <p>
+ * Stopping never blocks: it is a chain on {@link Process#onExit()} that asks the whole
+ * process tree to terminate, waits up to a grace period and then kills whatever is left.
+ */
+public class BotProcessManager {
+
+    /** Time a bot gets to shut down cleanly before it is killed ({@code -Dbotmanager.process.stopGraceMs}). */
+    public static final long DEFAULT_STOP_GRACE_MS = Long.getLong("botmanager.process.stopGraceMs", 5000);
+
+    /**
+     * How a stop request ended.
+     */
+    public enum StopOutcome {
+        /** The process exited within the grace period. */
+        GRACEFUL,
+        /** The process ignored the termination request and was killed. */
+        FORCED,
+        /** There was no live process to stop. */
+        NOT_RUNNING
+    }
+
+    /**
+     * Receives process lifecycle callbacks on the callback executor.
+     */
+    public interface Listener {
+        void onStarted(Bot bot, Process process);
+
+        /**
+         * @param stopRequested {@code true} if the exit followed a {@link #stop(Bot)} request,
+         *                      {@code false} if the process exited (or crashed) on its own.
+         */
+        void onExited(Bot bot, Process process, int exitCode, boolean stopRequested);
+    }
+
+    private final Executor callbackExecutor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Process> processes = new ConcurrentHashMap<>();
+    /** Ids of bots between the start of {@link #start(Bot)} and their process being registered. */
+    private final Set<String> starting = ConcurrentHashMap.newKeySet();
+    private final Map<String, BotStdinChannel> stdinChannels = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<StopOutcome>> pendingStops = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> bytesPumped = new ConcurrentHashMap<>();
+    private final Set<Process> stopRequested = ConcurrentHashMap.newKeySet();
+    private final Set<Process> forcedKills = ConcurrentHashMap.newKeySet();
+    private final StartupTimes startupTimes = new StartupTimes();
+    private final MemoryBudget memoryBudget = new MemoryBudget();
+    private final AtomicInteger activePumps = new AtomicInteger();
+    private final OutputPoller outputPoller = new OutputPoller();
+
+    public BotProcessManager(Executor callbackExecutor, Listener listener) {
+        this.callbackExecutor = callbackExecutor;
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Registers another lifecycle listener, called after the ones already registered.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Launches a bot.
+     *
+     * @param bot The bot to start.
+     * @return The started process.
+     * @throws FileNotFoundException If no start command could be generated (usually a missing JAR).
+     * @throws IOException           If the bot is already running or starting, would overcommit the
+     *                               {@link MemoryBudget} or the process could not be spawned.
+     */
+    public Process start(Bot bot) throws IOException {
+        // Claim the bot first, so concurrent starts cannot both pass the check and reserve memory twice.
+        if (!starting.add(bot.getId())) {
+            throw new IOException(bot.getName() + " is already starting.");
+        }
+        try {
+            Process existing = processes.get(bot.getId());
+            if (existing != null && existing.isAlive()) {
+                throw new IOException(bot.getName() + " is already running (pid " + existing.pid() + ").");
+            }
+            return launch(bot);
+        } finally {
+            starting.remove(bot.getId());
+        }
+    }
+
+    private Process launch(Bot bot) throws IOException {
+        MemoryBudget.Plan memoryPlan = memoryBudget.reserve(bot);
+        List<String> commandParts = CommandGenerator.generateJavaJarStartCommand(bot, memoryPlan.getJvmOptions());
+        if (commandParts == null) {
+            memoryBudget.release(memoryPlan);
+            throw new FileNotFoundException("No executable JAR (with a Main-Class) found in target/ or build/libs/ of "
+                    + bot.getProjectPath() + ".");
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder(commandParts);
+        processBuilder.directory(new File(bot.getProjectPath()));
+        processBuilder.redirectErrorStream(true);
+
+        CdsArchives.Mode cdsMode = CdsArchives.modeOf(commandParts);
+        long launchedNanos = System.nanoTime();
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            memoryBudget.release(memoryPlan);
+            throw e;
+        }
+        if (memoryPlan.getWarning() != null) {
+            bot.getConsole().offer("[WARN] " + memoryPlan.getWarning());
+        }
+        BotStdinChannel stdin = new BotStdinChannel(process);
+        processes.put(bot.getId(), process);
+        stdinChannels.put(bot.getId(), stdin);
+        startOutputPump(bot, process, cdsMode, launchedNanos);
+
+        process.onExit().thenAccept(exited -> {
+            processes.remove(bot.getId(), exited);
+            memoryBudget.release(memoryPlan);
+            if (stdinChannels.remove(bot.getId(), stdin)) {
+                stdin.close();
+            }
+            int exitCode = exited.exitValue();
+            boolean requested = stopRequested.remove(exited);
+            boolean killed = forcedKills.remove(exited) || exitCode == 137; // 128 + SIGKILL
+            if (cdsMode == CdsArchives.Mode.RECORDING) {
+                CdsArchives.finishRecording(bot.getId(), !killed);
+            }
+            callbackExecutor.execute(() -> listeners.forEach(l -> l.onExited(bot, exited, exitCode, requested)));
+        });
+        callbackExecutor.execute(() -> listeners.forEach(l -> l.onStarted(bot, process)));
+        return process;
+    }
+
+    /**
+     * Stops a bot with the default grace period.
+     *
+     * @see #stop(Bot, long)
+     */
+    public CompletableFuture<StopOutcome> stop(Bot bot) {
+        return stop(bot, DEFAULT_STOP_GRACE_MS);
+    }
+
+    /**
+     * Asks a bot and all of its child processes to terminate, escalating to a forced kill
+     * after {@code gracefulMs}. Returns immediately; a second call while a stop is still in
+     * progress returns the same future.
+     *
+     * @param bot        The bot to stop.
+     * @param gracefulMs How long to wait after the termination request before killing the tree.
+     * @return Completes once the bot process has actually exited.
+     */
+    public CompletableFuture<StopOutcome> stop(Bot bot, long gracefulMs) {
+        Process process = processes.get(bot.getId());
+        if (process == null || !process.isAlive()) {
+            return CompletableFuture.completedFuture(StopOutcome.NOT_RUNNING);
+        }
+        CompletableFuture<StopOutcome> stop = new CompletableFuture<>();
+        CompletableFuture<StopOutcome> existing = pendingStops.putIfAbsent(bot.getId(), stop);
+        if (existing != null) {
+            return existing;
+        }
+
+        stopRequested.add(process);
+        // Snapshot the tree first: once the bot exits its children are re-parented and no longer found.
+        List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+        process.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+
+        process.onExit()
+                .thenApply(exited -> StopOutcome.GRACEFUL)
+                .completeOnTimeout(StopOutcome.FORCED, gracefulMs, TimeUnit.MILLISECONDS)
+                .thenCompose(outcome -> {
+                    if (outcome == StopOutcome.FORCED) {
+                        if (process.isAlive()) {
+                            forcedKills.add(process);
+                        }
+                        process.destroyForcibly();
+                    }
+                    // Children that outlived the bot (or ignored the request) are killed outright.
+                    descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+                    return process.onExit().thenApply(exited -> outcome);
+                })
+                .whenComplete((outcome, error) -> {
+                    pendingStops.remove(bot.getId(), stop);
+                    if (error != null) {
+                        stop.completeExceptionally(error);
+                    } else {
+                        stop.complete(outcome);
+                    }
+                });
+        return stop;
+    }
+
+    /**
+     * Stops a bot and starts it again the moment the old process has exited.
+     *
+     * @return Completes with the new process, or exceptionally with the start failure.
+     */
+    public CompletableFuture<Process> restart(Bot bot) {
+        return stop(bot).thenApply(outcome -> {
+            try {
+                return start(bot);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * @return {@code true} while a stop request for the bot is still waiting for the process to exit.
+     */
+    public boolean isStopping(Bot bot) {
+        return pendingStops.containsKey(bot.getId());
+    }
+
+    /**
+     * @return Read-only live view of bot id to process, for samplers running off the FX thread.
+     */
+    public Map<String, Process> getProcesses() {
+        return Collections.unmodifiableMap(processes);
+    }
+
+    /**
+     * @return The live process of a bot, or {@code null}.
+     */
+    public Process getProcess(Bot bot) {
+        Process process = processes.get(bot.getId());
+        return process != null && process.isAlive() ? process : null;
+    }
+
+    /**
+     * Sends one command line to a running bot's stdin. Never blocks.
+     *
+     * @return Completes once the command has been flushed to the bot, or exceptionally
+     *         if the bot is not running or its input is broken.
+     */
+    public CompletableFuture<Void> sendCommand(Bot bot, String command) {
+        BotStdinChannel stdin = stdinChannels.get(bot.getId());
+        return stdin != null ? stdin.send(command) : notRunning(bot);
+    }
+
+    /**
+     * Sends many command lines (e.g. a replayed script) to a running bot. They are written
+     * in order and coalesced into as few writes as possible. Never blocks.
+     *
+     * @return Completes once every command has been flushed to the bot.
+     */
+    public CompletableFuture<Void> sendCommands(Bot bot, List<String> commands) {
+        BotStdinChannel stdin = stdinChannels.get(bot.getId());
+        return stdin != null ? stdin.sendAll(commands) : notRunning(bot);
+    }
+
+    /**
+     * @return The stdin channel of a running bot, or {@code null}.
+     */
+    public BotStdinChannel getStdin(Bot bot) {
+        return stdinChannels.get(bot.getId());
+    }
+
+    /**
+     * @return Number of output pumps currently attached to a process.
+     */
+    public int getActivePumps() {
+        return activePumps.get();
+    }
+
+    /**
+     * @return Bytes read from the bot's output since the manager started, across restarts.
+     */
+    public long getBytesPumped(Bot bot) {
+        LongAdder bytes = bytesPumped.get(bot.getId());
+        return bytes != null ? bytes.sum() : 0;
+    }
+
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return Launch-to-ready times of the bots started by this manager.
+     */
+    public StartupTimes getStartupTimes() {
+        return startupTimes;
+    }
+
+    private static CompletableFuture<Void> notRunning(Bot bot) {
+        return CompletableFuture.failedFuture(new IOException(bot.getName() + " is not running."));
+    }
+
+    private void startOutputPump(Bot bot, Process process, CdsArchives.Mode cdsMode, long launchedNanos) {
+        ConsoleChannel console = bot.getConsole();
+        String prefix = "[BOT] " + bot.getName() + ": ";
+        boolean[] ready = {false}; // pump thread only
+        // Lines are only queued here; the console flusher renders them once per frame.
+        OutputPump pump = new OutputPump(process, (line, meta) -> {
+            if (!ready[0] && StartupTimes.isReadyLine(line)) {
+                ready[0] = true;
+                startupTimes.record(bot.getId(), cdsMode, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchedNanos));
+            }
+            console.offer(prefix + line, LogLines.shift(meta, prefix.length()));
+        }, bytesPumped.computeIfAbsent(bot.getId(), id -> new LongAdder()));
+        activePumps.incrementAndGet();
+        outputPoller.register(pump).whenComplete((ignored, error) -> {
+            if (error != null) {
+                console.offer("[ERROR] Reading output for " + bot.getName() + ": " + error.getMessage());
+            }
+            activePumps.decrementAndGet();
+            console.offer("[INFO] " + bot.getName() + " process finished.");
+        });
+    }
+}
@@ -0,0 +1,155 @@
+package com.botmanager.process;
+
+import com.botmanager.util.IoThreads;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The standard input of one running bot.
+ * <p>
+ * The stream is opened once per process and stays open until the process exits.
+ * Commands from any thread are queued and written by a single drain task on the
+ * {@link IoThreads} executor: whatever has queued up by the time it runs is written
+ * in one go and flushed once, so a burst of commands (or a replayed script) costs one
+ * syscall instead of one per command, and a bot that stops reading stdin only ever
+ * blocks the drain task.
+ */
+public final class BotStdinChannel {
+
+    private static final int WRITE_BUFFER_CHARS = 8 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final Queue<Batch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    BotStdinChannel(Process process) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), Charset.defaultCharset()),
+                WRITE_BUFFER_CHARS);
+    }
+
+    /**
+     * Queues one command line.
+     *
+     * @return Completes once the command has been flushed to the bot, or exceptionally if the
+     *         channel is closed or the write failed.
+     */
+    public CompletableFuture<Void> send(String command) {
+        return enqueue(Collections.singletonList(command));
+    }
+
+    /**
+     * Queues several command lines that are written back to back, in order.
+     *
+     * @return Completes once every command has been flushed to the bot.
+     */
+    public CompletableFuture<Void> sendAll(List<String> commands) {
+        return enqueue(new ArrayList<>(commands));
+    }
+
+    /**
+     * @return Number of queued batches not yet written.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Closes the bot's stdin after everything already queued has been written.
+     */
+    void close() {
+        closed = true;
+        scheduleDrain();
+    }
+
+    private CompletableFuture<Void> enqueue(List<String> lines) {
+        Batch batch = new Batch(lines);
+        IOException error = failure;
+        if (error != null) {
+            batch.done.completeExceptionally(error);
+            return batch.done;
+        }
+        if (closed) {
+            batch.done.completeExceptionally(new IOException("Bot input is closed."));
+            return batch.done;
+        }
+        queue.add(batch);
+        scheduleDrain();
+        return batch.done;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            IoThreads.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<Batch> written = new ArrayList<>();
+            Batch batch;
+            while ((batch = queue.poll()) != null) {
+                written.add(batch);
+                if (failure == null) {
+                    try {
+                        for (String line : batch.lines) {
+                            writer.write(line);
+                            writer.write(LINE_SEPARATOR);
+                        }
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+            if (!written.isEmpty() && failure == null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            for (Batch done : written) {
+                if (failure != null) {
+                    done.done.completeExceptionally(failure);
+                } else {
+                    done.done.complete(null);
+                }
+            }
+            if (closed && queue.isEmpty()) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // The process is gone; nothing left to deliver.
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // Commands queued after the last poll but before the flag was cleared.
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private static final class Batch {
+        final List<String> lines;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Batch(List<String> lines) {
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.botmanager.process;
+
+import com.botmanager.controller.MainController.Bot;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restarts bots whose process exits on its own, according to each bot's {@link RestartPolicy}.
+ * <p>
+ * Restarts back off exponentially ({@code base * 2^n}, capped, with jitter so a fleet
+ * that crashed together does not reconnect to the gateway in lockstep). The backoff resets
+ * once a bot has stayed up for a while. If a bot fails too often within a window the
+ * breaker trips and it stays down until someone starts it by hand.
+ * <p>
+ * All state lives on the callback executor (the FX thread in the app); the scheduler thread
+ * only hands restarts back to it.
+ */
+public class BotSupervisor implements BotProcessManager.Listener {
+
+    /** First restart delay ({@code -Dbotmanager.supervisor.baseDelayMs}). */
+    public static final long BASE_DELAY_MS = Long.getLong("botmanager.supervisor.baseDelayMs", 1000);
+    /** Upper bound for the restart delay ({@code -Dbotmanager.supervisor.maxDelayMs}). */
+    public static final long MAX_DELAY_MS = Long.getLong("botmanager.supervisor.maxDelayMs", 5 * 60 * 1000);
+    /** A run at least this long resets the backoff ({@code -Dbotmanager.supervisor.stableRunMs}). */
+    public static final long STABLE_RUN_MS = Long.getLong("botmanager.supervisor.stableRunMs", 60 * 1000);
+    /** Failures within the window that trip the breaker ({@code -Dbotmanager.supervisor.crashLoopFailures}). */
+    public static final int CRASH_LOOP_FAILURES = Integer.getInteger("botmanager.supervisor.crashLoopFailures", 5);
+    /** Window for counting failures ({@code -Dbotmanager.supervisor.crashLoopWindowMs}). */
+    public static final long CRASH_LOOP_WINDOW_MS = Long.getLong("botmanager.supervisor.crashLoopWindowMs", 10 * 60 * 1000);
+
+    /**
+     * Receives supervision events on the callback executor.
+     */
+    public interface Listener {
+        void onRestartScheduled(Bot bot, int attempt, long delayMs, int exitCode);
+
+        void onRestarted(Bot bot, int attempt, long latencyMs);
+
+        void onRestartFailed(Bot bot, int attempt, String reason);
+
+        void onCrashLoop(Bot bot, int failures, long windowMs);
+    }
+
+    private final BotProcessManager processManager;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    private final Map<String, State> states = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bot-supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BotSupervisor(BotProcessManager processManager, Executor callbackExecutor, Listener listener) {
+        this.processManager = processManager;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        processManager.addListener(this);
+    }
+
+    @Override
+    public void onStarted(Bot bot, Process process) {
+        state(bot).startedAtNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onExited(Bot bot, Process process, int exitCode, boolean stopRequested) {
+        State state = state(bot);
+        if (stopRequested || processManager.getProcess(bot) != null) {
+            return; // stopped on purpose, or a newer process has already replaced this one
+        }
+        long now = System.nanoTime();
+        if (state.startedAtNanos != 0 && now - state.startedAtNanos >= TimeUnit.MILLISECONDS.toNanos(STABLE_RUN_MS)) {
+            state.consecutiveRestarts = 0;
+        }
+        if (!bot.getRestartPolicy().shouldRestart(exitCode)) {
+            return;
+        }
+        state.crashedAtNanos = now;
+        scheduleRestart(bot, state, exitCode);
+    }
+
+    /**
+     * Clears a bot's backoff and crash-loop state and cancels any pending restart. Call when
+     * the user starts or stops the bot by hand. The last restart latency is kept.
+     */
+    public void reset(Bot bot) {
+        State state = states.get(bot.getId());
+        if (state == null) {
+            return;
+        }
+        if (state.pending != null) {
+            state.pending.cancel(false);
+            state.pending = null;
+        }
+        state.restartSerial++; // a restart already handed to the callback executor is dropped
+        state.failureTimes.clear();
+        state.consecutiveRestarts = 0;
+        state.crashLooping = false;
+    }
+
+    /**
+     * @return {@code true} if a restart is waiting for its backoff delay.
+     */
+    public boolean isRestartPending(Bot bot) {
+        State state = states.get(bot.getId());
+        return state != null && state.pending != null;
+    }
+
+    /**
+     * @return {@code true} if the breaker has tripped for the bot.
+     */
+    public boolean isCrashLooping(Bot bot) {
+        State state = states.get(bot.getId());
+        return state != null && state.crashLooping;
+    }
+
+    /**
+     * @return Time from the last crash to the replacement process being up, or -1 if the bot
+     *         has not been restarted by the supervisor.
+     */
+    public long getLastRestartLatencyMs(Bot bot) {
+        State state = states.get(bot.getId());
+        return state != null ? state.lastRestartLatencyMs : -1;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void scheduleRestart(Bot bot, State state, int exitCode) {
+        long now = System.nanoTime();
+        long windowStart = now - TimeUnit.MILLISECONDS.toNanos(CRASH_LOOP_WINDOW_MS);
+        while (!state.failureTimes.isEmpty() && state.failureTimes.peekFirst() < windowStart) {
+            state.failureTimes.removeFirst();
+        }
+        state.failureTimes.addLast(now);
+        if (state.failureTimes.size() >= CRASH_LOOP_FAILURES) {
+            state.crashLooping = true;
+            listener.onCrashLoop(bot, state.failureTimes.size(), CRASH_LOOP_WINDOW_MS);
+            return;
+        }
+
+        int attempt = ++state.consecutiveRestarts;
+        long delayMs = backoffDelay(attempt);
+        listener.onRestartScheduled(bot, attempt, delayMs, exitCode);
+        long serial = ++state.restartSerial;
+        state.pending = scheduler.schedule(() -> callbackExecutor.execute(() -> restart(bot, state, attempt, serial)),
+                delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void restart(Bot bot, State state, int attempt, long serial) {
+        if (state.restartSerial != serial || state.pending == null) {
+            return; // reset (manual start/stop or removal) while waiting
+        }
+        state.pending = null;
+        if (processManager.getProcess(bot) != null) {
+            return;
+        }
+        try {
+            processManager.start(bot);
+            state.lastRestartLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - state.crashedAtNanos);
+            listener.onRestarted(bot, attempt, state.lastRestartLatencyMs);
+        } catch (IOException e) {
+            listener.onRestartFailed(bot, attempt, e.getMessage());
+            // A bot that cannot even be launched counts as another failure.
+            scheduleRestart(bot, state, -1);
+        }
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half the delay is fixed, the other half random.
+     */
+    static long backoffDelay(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << shift);
+        if (delay <= 1) {
+            return delay;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private State state(Bot bot) {
+        return states.computeIfAbsent(bot.getId(), id -> new State());
+    }
+
+    private static final class State {
+        final Deque<Long> failureTimes = new ArrayDeque<>();
+        int consecutiveRestarts;
+        long startedAtNanos;
+        long crashedAtNanos;
+        long lastRestartLatencyMs = -1;
+        boolean crashLooping;
+        ScheduledFuture<?> pending;
+        long restartSerial;
+    }
+}
@@ -0,0 +1,248 @@
+package com.botmanager.process;
+
+import com.botmanager.controller.MainController.Bot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs Start All / Stop All across the fleet in parallel.
+ * <p>
+ * At most {@link #getMaxInFlight()} bots are being launched at any moment, so a large
+ * fleet does not spawn dozens of JVMs onto the CPU at once. A worker slot is only held
+ * while the process is spawned: a start then counts as successful once the process has
+ * survived a short settle window, tracked on its exit future, and bots that die during
+ * startup (missing token, bad config) are reported as failures. Stops are all issued at
+ * once, since a stop request never blocks and the grace periods run side by side. Each bot's
+ * {@code startupDelayMs} postpones its launch relative to the start of the operation
+ * without occupying a worker slot while it waits.
+ * <p>
+ * Per-bot results and the final report are delivered through the callback executor in the
+ * order they complete.
+ */
+public class FleetOperationEngine {
+
+    /** Default concurrency limit ({@code -Dbotmanager.fleet.maxInFlight}). */
+    public static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger("botmanager.fleet.maxInFlight",
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+    /** How long a freshly started bot must stay alive to count as started ({@code -Dbotmanager.fleet.settleMs}). */
+    public static final long STARTUP_SETTLE_MS = Long.getLong("botmanager.fleet.settleMs", 2000);
+
+    public enum Operation { START, STOP }
+
+    private final BotProcessManager processManager;
+    private final Executor callbackExecutor;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService delayScheduler;
+
+    public FleetOperationEngine(BotProcessManager processManager, Executor callbackExecutor) {
+        this(processManager, callbackExecutor, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public FleetOperationEngine(BotProcessManager processManager, Executor callbackExecutor, int maxInFlight) {
+        this.processManager = processManager;
+        this.callbackExecutor = callbackExecutor;
+        int limit = Math.max(1, maxInFlight);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(limit, limit, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "fleet-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.allowCoreThreadTimeOut(true);
+        this.delayScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fleet-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts every given bot.
+     *
+     * @param bots     Bots to start; the list is copied.
+     * @param onResult Called once per bot as soon as its start succeeds or fails.
+     * @return Completes with the summary after every bot has been handled.
+     */
+    public CompletableFuture<Report> startAll(List<Bot> bots, Consumer<BotResult> onResult) {
+        return run(Operation.START, bots, onResult);
+    }
+
+    /**
+     * Stops every given bot, killing those that do not exit within
+     * {@link BotProcessManager#DEFAULT_STOP_GRACE_MS}.
+     *
+     * @param bots     Bots to stop; the list is copied.
+     * @param onResult Called once per bot as soon as it has exited.
+     * @return Completes with the summary after every bot has been handled.
+     */
+    public CompletableFuture<Report> stopAll(List<Bot> bots, Consumer<BotResult> onResult) {
+        return run(Operation.STOP, bots, onResult);
+    }
+
+    public int getMaxInFlight() {
+        return workers.getMaximumPoolSize();
+    }
+
+    /**
+     * Changes the concurrency limit; applies to tasks that have not started yet.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        int limit = Math.max(1, maxInFlight);
+        if (limit > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(limit);
+            workers.setCorePoolSize(limit);
+        } else {
+            workers.setCorePoolSize(limit);
+            workers.setMaximumPoolSize(limit);
+        }
+    }
+
+    public void shutdown() {
+        delayScheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private CompletableFuture<Report> run(Operation operation, List<Bot> bots, Consumer<BotResult> onResult) {
+        List<Bot> targets = new ArrayList<>(bots);
+        long operationStart = System.nanoTime();
+        List<CompletableFuture<BotResult>> results = new ArrayList<>(targets.size());
+
+        for (Bot bot : targets) {
+            CompletableFuture<BotResult> result = new CompletableFuture<>();
+            Runnable task = () -> {
+                try {
+                    (operation == Operation.START ? startOne(bot) : stopOne(bot)).whenComplete((outcome, error) ->
+                            result.complete(outcome != null ? outcome : new BotResult(bot, operation, false,
+                                    "Unexpected error: " + unwrap(error).getMessage(), 0)));
+                } catch (RuntimeException e) {
+                    result.complete(new BotResult(bot, operation, false, "Unexpected error: " + e.getMessage(), 0));
+                }
+            };
+            long delayMs = operation == Operation.START ? Math.max(0, bot.getStartupDelayMs()) : 0;
+            if (operation == Operation.STOP) {
+                task.run();
+            } else if (delayMs > 0) {
+                delayScheduler.schedule(() -> workers.execute(task), delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                workers.execute(task);
+            }
+            result.thenAcceptAsync(onResult, callbackExecutor);
+            results.add(result);
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    int succeeded = 0;
+                    for (CompletableFuture<BotResult> result : results) {
+                        if (result.join().isSuccess()) {
+                            succeeded++;
+                        }
+                    }
+                    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - operationStart);
+                    return new Report(operation, targets.size(), succeeded, elapsedMs);
+                }, callbackExecutor);
+    }
+
+    /**
+     * Spawns the bot on the calling worker; the settle window is then tracked without a thread.
+     */
+    private CompletableFuture<BotResult> startOne(Bot bot) {
+        long begin = System.nanoTime();
+        Process process;
+        try {
+            process = processManager.start(bot);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(new BotResult(bot, Operation.START, false, e.getMessage(), elapsedSince(begin)));
+        }
+        return process.onExit()
+                .thenApply(exited -> new BotResult(bot, Operation.START, false,
+                        "Exited during startup with code " + exited.exitValue(), elapsedSince(begin)))
+                .completeOnTimeout(null, STARTUP_SETTLE_MS, TimeUnit.MILLISECONDS)
+                .thenApply(failed -> failed != null ? failed
+                        : new BotResult(bot, Operation.START, true, "Started (pid " + process.pid() + ")", elapsedSince(begin)));
+    }
+
+    private CompletableFuture<BotResult> stopOne(Bot bot) {
+        long begin = System.nanoTime();
+        return processManager.stop(bot).handle((outcome, error) -> {
+            if (error != null) {
+                return new BotResult(bot, Operation.STOP, false, String.valueOf(unwrap(error).getMessage()), elapsedSince(begin));
+            }
+            String message;
+            switch (outcome) {
+                case GRACEFUL: message = "Stopped"; break;
+                case FORCED: message = "Did not respond; forced to stop"; break;
+                default: message = "Was not running"; break;
+            }
+            return new BotResult(bot, Operation.STOP, true, message, elapsedSince(begin));
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static long elapsedSince(long beginNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginNanos);
+    }
+
+    /**
+     * Outcome of starting or stopping one bot.
+     */
+    public static final class BotResult {
+        private final Bot bot;
+        private final Operation operation;
+        private final boolean success;
+        private final String message;
+        private final long elapsedMs;
+
+        BotResult(Bot bot, Operation operation, boolean success, String message, long elapsedMs) {
+            this.bot = bot;
+            this.operation = operation;
+            this.success = success;
+            this.message = message;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public Bot getBot() { return bot; }
+        public Operation getOperation() { return operation; }
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public long getElapsedMs() { return elapsedMs; }
+    }
+
+    /**
+     * Summary of a whole fleet operation.
+     */
+    public static final class Report {
+        private final Operation operation;
+        private final int requested;
+        private final int succeeded;
+        private final long elapsedMs;
+
+        Report(Operation operation, int requested, int succeeded, long elapsedMs) {
+            this.operation = operation;
+            this.requested = requested;
+            this.succeeded = succeeded;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public Operation getOperation() { return operation; }
+        public int getRequested() { return requested; }
+        public int getSucceeded() { return succeeded; }
+        public int getFailed() { return requested - succeeded; }
+        public long getElapsedMs() { return elapsedMs; }
+    }
+}
@@ -0,0 +1,356 @@
+package com.botmanager.process;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.util.JarResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+
+/**
+ * Restarts running bots onto their rebuilt jar.
+ * <p>
+ * One {@link WatchService}, served by a single thread, watches the project directory and
+ * the build output directories ({@code target/}, {@code build/libs/}) of every running bot;
+ * output directories that a clean build deletes and recreates are registered again as they
+ * reappear. A build produces a storm of events, so a bot is only looked at once its
+ * directories have been quiet for {@link #QUIET_MS}. If {@link JarResolver} then finds a jar
+ * other than the one the bot was started from (by path, size or modification time), the jar
+ * must open as a zip with a {@code Main-Class} whose class file inflates and matches its CRC
+ * before the bot is stopped, so a half-written or broken jar never takes a bot down; the
+ * replacement is launched the moment the old process has exited.
+ * <p>
+ * Lifecycle callbacks and the {@link Listener} run on the callback executor (the FX thread
+ * in the app).
+ */
+public class JarRedeployer implements BotProcessManager.Listener {
+
+    /** Whether rebuilt jars are redeployed ({@code -Dbotmanager.redeploy.enabled}). */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("botmanager.redeploy.enabled", "true"));
+    /** Time without file events before a bot's jar is checked ({@code -Dbotmanager.redeploy.quietMs}). */
+    public static final long QUIET_MS = Long.getLong("botmanager.redeploy.quietMs", 1500);
+    private static final String[] WATCHED_DIRECTORIES = {"", "target", "build", "build/libs"};
+
+    /**
+     * Receives redeploy events on the callback executor.
+     */
+    public interface Listener {
+        void onRedeployStarted(Bot bot, Path jar);
+
+        /**
+         * @param downtimeMs Time from the stop request to the new process being launched.
+         */
+        void onRedeployed(Bot bot, Path jar, long downtimeMs);
+
+        void onRedeployFailed(Bot bot, Path jar, String reason);
+    }
+
+    private final BotProcessManager processManager;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    // Guarded by this.
+    private final Map<String, Watch> watches = new HashMap<>();
+    private final Map<Path, WatchKey> keysByDirectory = new HashMap<>();
+    private final Map<WatchKey, Set<String>> botsByKey = new HashMap<>();
+    private WatchService watchService;
+
+    public JarRedeployer(BotProcessManager processManager, Executor callbackExecutor, Listener listener) {
+        this.processManager = processManager;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        processManager.addListener(this);
+    }
+
+    public synchronized void start() {
+        if (watchService != null || !ENABLED) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            System.err.println("JarRedeployer: Cannot watch for rebuilt jars: " + e.getMessage());
+            return;
+        }
+        WatchService service = watchService;
+        Thread thread = new Thread(() -> run(service), "bot-jar-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Closing only releases the watches.
+            }
+            watchService = null;
+            watches.clear();
+            keysByDirectory.clear();
+            botsByKey.clear();
+        }
+    }
+
+    @Override
+    public synchronized void onStarted(Bot bot, Process process) {
+        if (watchService == null || bot.getProjectPath() == null || bot.getProjectPath().trim().isEmpty()) {
+            return;
+        }
+        unwatch(bot.getId()); // the project path may have changed since the last run
+        Watch watch = new Watch(bot, Paths.get(bot.getProjectPath()));
+        Path jar = JarResolver.resolve(bot);
+        if (jar != null) {
+            watch.setJar(jar, attributes(jar));
+        }
+        watches.put(bot.getId(), watch);
+        registerDirectories(watch);
+    }
+
+    @Override
+    public synchronized void onExited(Bot bot, Process process, int exitCode, boolean stopRequested) {
+        if (processManager.getProcess(bot) == null) {
+            unwatch(bot.getId());
+        }
+    }
+
+    private void run(WatchService service) {
+        try {
+            while (true) {
+                long waitMs = nextDueMs();
+                WatchKey key = waitMs < 0 ? service.take() : service.poll(waitMs, TimeUnit.MILLISECONDS);
+                for (; key != null; key = service.poll()) {
+                    onEvents(key);
+                }
+                for (Watch watch : takeDue()) {
+                    check(watch);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped.
+        } catch (RuntimeException e) {
+            System.err.println("JarRedeployer: Watcher stopped: " + e.getMessage());
+        }
+    }
+
+    private synchronized void onEvents(WatchKey key) {
+        key.pollEvents(); // only the fact that something changed matters
+        Set<String> botIds = botsByKey.get(key);
+        if (!key.reset()) {
+            // The directory is gone (e.g. a clean build); it is registered again when it reappears.
+            botsByKey.remove(key);
+            keysByDirectory.values().remove(key);
+        }
+        if (botIds == null) {
+            return;
+        }
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIET_MS);
+        for (String botId : botIds) {
+            Watch watch = watches.get(botId);
+            if (watch != null) {
+                watch.dueNanos = due;
+                registerDirectories(watch);
+            }
+        }
+    }
+
+    /**
+     * @return Milliseconds until the next bot is due for a check, or -1 if none is.
+     */
+    private synchronized long nextDueMs() {
+        long next = Long.MAX_VALUE;
+        for (Watch watch : watches.values()) {
+            if (watch.dueNanos != 0) {
+                next = Math.min(next, watch.dueNanos);
+            }
+        }
+        return next == Long.MAX_VALUE ? -1 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime() + 999_999));
+    }
+
+    private synchronized List<Watch> takeDue() {
+        List<Watch> due = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Watch watch : watches.values()) {
+            if (watch.dueNanos != 0 && now - watch.dueNanos >= 0) {
+                watch.dueNanos = 0;
+                due.add(watch);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Runs on the watcher thread, outside the lock: resolving and verifying a jar opens files.
+     */
+    private void check(Watch watch) {
+        Bot bot = watch.bot;
+        if (processManager.getProcess(bot) == null) {
+            return;
+        }
+        Path jar = JarResolver.resolve(bot);
+        BasicFileAttributes attributes = jar != null ? attributes(jar) : null;
+        if (attributes == null) {
+            return; // mid-build: no executable jar yet
+        }
+        String signature = signature(jar, attributes);
+        synchronized (this) {
+            if (watches.get(bot.getId()) != watch || signature.equals(watch.signature) || signature.equals(watch.rejected)) {
+                return;
+            }
+        }
+        String problem = verify(jar);
+        synchronized (this) {
+            if (watches.get(bot.getId()) != watch) {
+                return;
+            }
+            if (problem != null) {
+                watch.rejected = signature;
+            } else {
+                watch.setJar(jar, attributes);
+            }
+        }
+        if (problem != null) {
+            callbackExecutor.execute(() -> listener.onRedeployFailed(bot, jar, problem));
+        } else {
+            callbackExecutor.execute(() -> redeploy(bot, jar));
+        }
+    }
+
+    private void redeploy(Bot bot, Path jar) {
+        if (processManager.getProcess(bot) == null || processManager.isStopping(bot)) {
+            return; // stopped meanwhile; the next start picks up the new jar anyway
+        }
+        listener.onRedeployStarted(bot, jar);
+        long stopRequestedNanos = System.nanoTime();
+        processManager.restart(bot).whenComplete((process, error) -> callbackExecutor.execute(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                listener.onRedeployFailed(bot, jar, cause.getMessage());
+            } else {
+                listener.onRedeployed(bot, jar, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stopRequestedNanos));
+            }
+        }));
+    }
+
+    /**
+     * Quick integrity check: the jar's central directory and manifest must be readable, and
+     * its main class must inflate completely and match its CRC.
+     *
+     * @return {@code null} if the jar looks runnable, otherwise what is wrong with it.
+     */
+    static String verify(Path jar) {
+        try (JarFile file = new JarFile(jar.toFile(), false)) {
+            Manifest manifest = file.getManifest();
+            String mainClass = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS) : null;
+            if (mainClass == null || mainClass.isBlank()) {
+                return "the manifest has no Main-Class";
+            }
+            JarEntry entry = file.getJarEntry(mainClass.trim().replace('.', '/') + ".class");
+            if (entry == null) {
+                return "main class " + mainClass.trim() + " is missing";
+            }
+            CRC32 crc = new CRC32();
+            try (InputStream in = file.getInputStream(entry)) {
+                crc.update(in.readAllBytes());
+            }
+            if (entry.getCrc() != -1 && entry.getCrc() != crc.getValue()) {
+                return "main class " + mainClass.trim() + " is corrupt";
+            }
+            return null;
+        } catch (IOException e) {
+            return "not a valid jar (" + e.getMessage() + ")";
+        }
+    }
+
+    /**
+     * Registers the bot's existing watched directories that are not registered yet.
+     */
+    private void registerDirectories(Watch watch) {
+        for (String name : WATCHED_DIRECTORIES) {
+            Path directory = name.isEmpty() ? watch.project : watch.project.resolve(name);
+            WatchKey key = keysByDirectory.get(directory);
+            if (key == null || !key.isValid()) {
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                try {
+                    key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (IOException | ClosedWatchServiceException e) {
+                    System.err.println("JarRedeployer: Cannot watch " + directory + ": " + e.getMessage());
+                    continue;
+                }
+                keysByDirectory.put(directory, key);
+            }
+            botsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(watch.bot.getId());
+        }
+    }
+
+    private void unwatch(String botId) {
+        if (watches.remove(botId) == null) {
+            return;
+        }
+        for (Iterator<Map.Entry<WatchKey, Set<String>>> it = botsByKey.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<WatchKey, Set<String>> entry = it.next();
+            if (entry.getValue().remove(botId) && entry.getValue().isEmpty()) {
+                entry.getKey().cancel();
+                keysByDirectory.values().remove(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    private static BasicFileAttributes attributes(Path jar) {
+        try {
+            return Files.readAttributes(jar, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String signature(Path jar, BasicFileAttributes attributes) {
+        return jar + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * A running bot and the jar it was started from.
+     */
+    private static final class Watch {
+        final Bot bot;
+        final Path project;
+        String signature;
+        String rejected;
+        long dueNanos;
+
+        Watch(Bot bot, Path project) {
+            this.bot = bot;
+            this.project = project;
+        }
+
+        void setJar(Path jar, BasicFileAttributes attributes) {
+            signature = attributes != null ? signature(jar, attributes) : null;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.botmanager.process;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.util.StringFormatter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares the host's memory between bot JVMs instead of letting each one size its heap from
+ * the whole machine (a quarter of RAM by default, so a few dozen bots overcommit it).
+ * <p>
+ * The budget is {@link #BUDGET_PERCENT} of the smaller of physical memory and the memory
+ * limit of the manager's cgroup (v2 or v1, checked up the hierarchy), which its bots
+ * inherit. Each start reserves a footprint for the bot: its highest observed resident size
+ * plus headroom, or {@link #DEFAULT_FOOTPRINT_MB} for a bot not seen running yet, or what
+ * its own {@code -Xmx} implies. The footprint is split into {@code -Xmx},
+ * {@code -XX:MaxMetaspaceSize} and a smaller {@code -Xss}, with the serial collector for
+ * small JVMs; options the bot's JVM arguments already set are left alone. Running bots
+ * count with the larger of their reservation and their current resident size. A start that
+ * does not fit is shrunk to what is left, with a warning, and refused once less than
+ * {@link #MIN_FOOTPRINT_MB} is left.
+ * <p>
+ * Thread-safe. Disable with {@code -Dbotmanager.memory.enabled=false}.
+ */
+public class MemoryBudget {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("botmanager.memory.enabled", "true"));
+    /** Share of host memory given to bots ({@code -Dbotmanager.memory.budgetPercent}). */
+    public static final int BUDGET_PERCENT = Integer.getInteger("botmanager.memory.budgetPercent", 75);
+    /** Footprint of a bot without observations ({@code -Dbotmanager.memory.defaultFootprintMb}). */
+    public static final long DEFAULT_FOOTPRINT_MB = Long.getLong("botmanager.memory.defaultFootprintMb", 512);
+    /** Smallest footprint a bot is started with ({@code -Dbotmanager.memory.minFootprintMb}). */
+    public static final long MIN_FOOTPRINT_MB = Long.getLong("botmanager.memory.minFootprintMb", 160);
+    private static final double HEADROOM = 1.25;
+    private static final double HEAP_SHARE = 0.6;
+    private static final long MIN_METASPACE_MB = 64;
+    private static final long MAX_METASPACE_MB = 256;
+    private static final String THREAD_STACK = "-Xss512k";
+    private static final long SERIAL_GC_BELOW_MB = 1536;
+    private static final long MB = 1024 * 1024;
+
+    private final long budgetBytes;
+    private final String limitSource;
+    // Guarded by this.
+    private final Map<String, Plan> reservations = new HashMap<>();
+    private final Map<String, Long> residentBytes = new HashMap<>();
+    private final Map<String, Long> peakResidentBytes = new HashMap<>();
+
+    public MemoryBudget() {
+        long physical = physicalMemoryBytes();
+        long cgroup = cgroupLimitBytes();
+        long limit = cgroup > 0 && (physical <= 0 || cgroup < physical) ? cgroup : physical;
+        this.limitSource = limit == cgroup ? "cgroup limit" : "physical memory";
+        this.budgetBytes = limit > 0 ? limit / 100 * BUDGET_PERCENT : -1;
+    }
+
+    /**
+     * A budget of a fixed size instead of one derived from the host.
+     *
+     * @param budgetBytes The memory bots may use, or -1 for unknown (no limits are applied).
+     * @param limitSource What the budget was derived from, for messages.
+     */
+    MemoryBudget(long budgetBytes, String limitSource) {
+        this.budgetBytes = budgetBytes;
+        this.limitSource = limitSource;
+    }
+
+    /**
+     * A bot's reserved footprint and the JVM options that keep it within it.
+     */
+    public static final class Plan {
+        private final String botId;
+        private final long footprintBytes;
+        private final List<String> jvmOptions;
+        private final String warning;
+
+        Plan(String botId, long footprintBytes, List<String> jvmOptions, String warning) {
+            this.botId = botId;
+            this.footprintBytes = footprintBytes;
+            this.jvmOptions = jvmOptions;
+            this.warning = warning;
+        }
+
+        public long getFootprintBytes() { return footprintBytes; }
+
+        /** @return Options to add to the bot's own JVM arguments. */
+        public List<String> getJvmOptions() { return jvmOptions; }
+
+        /** @return Why the bot got less than it should, or {@code null}. */
+        public String getWarning() { return warning; }
+    }
+
+    /**
+     * @return The memory bots may use, or -1 if the host's memory is unknown.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return The memory held by running bots: each one's reservation or resident size, whichever is larger.
+     */
+    public synchronized long getCommittedBytes() {
+        return committedExcept(null);
+    }
+
+    /**
+     * Records a running bot's resident size and its highest resident size so far.
+     */
+    public synchronized void observe(String botId, long rssBytes, long peakRssBytes) {
+        if (rssBytes > 0) {
+            residentBytes.put(botId, rssBytes);
+        }
+        if (peakRssBytes > 0) {
+            peakResidentBytes.merge(botId, peakRssBytes, Math::max);
+        }
+    }
+
+    /**
+     * Plans and reserves the bot's footprint for a start.
+     *
+     * @throws IOException If the budget has less than {@link #MIN_FOOTPRINT_MB} left.
+     */
+    public synchronized Plan reserve(Bot bot) throws IOException {
+        String jvmArgs = bot.getJvmArgs() != null ? bot.getJvmArgs().trim() : "";
+        long explicitHeap = -1;
+        boolean setsHeap = false;
+        boolean setsStack = false;
+        boolean setsMetaspace = false;
+        boolean setsGc = false;
+        for (String arg : jvmArgs.isEmpty() ? new String[0] : jvmArgs.split("\\s+")) {
+            if (arg.startsWith("-Xmx") || arg.startsWith("-XX:MaxHeapSize=")) {
+                explicitHeap = parseSize(arg.substring(arg.startsWith("-Xmx") ? 4 : 16));
+                setsHeap = true;
+            } else if (arg.startsWith("-XX:MaxRAM")) {
+                setsHeap = true;
+            } else if (arg.startsWith("-Xss") || arg.startsWith("-XX:ThreadStackSize=")) {
+                setsStack = true;
+            } else if (arg.startsWith("-XX:MaxMetaspaceSize=")) {
+                setsMetaspace = true;
+            } else if (arg.startsWith("-XX:+Use") && arg.endsWith("GC")) {
+                setsGc = true;
+            }
+        }
+        if (!ENABLED || budgetBytes <= 0) {
+            return new Plan(bot.getId(), 0, Collections.emptyList(), null);
+        }
+
+        long wanted;
+        if (explicitHeap > 0) {
+            wanted = (long) (explicitHeap / HEAP_SHARE);
+        } else {
+            Long peak = peakResidentBytes.get(bot.getId());
+            wanted = Math.max(MIN_FOOTPRINT_MB * MB, peak != null ? (long) (peak * HEADROOM) : DEFAULT_FOOTPRINT_MB * MB);
+        }
+        long available = budgetBytes - committedExcept(bot.getId());
+        long footprint = wanted;
+        String warning = null;
+        if (wanted > available) {
+            if (available < MIN_FOOTPRINT_MB * MB) {
+                throw new IOException("Starting " + bot.getName() + " would overcommit memory: running bots hold "
+                        + StringFormatter.formatBytes(committedExcept(bot.getId())) + " of the "
+                        + StringFormatter.formatBytes(budgetBytes) + " budget (" + BUDGET_PERCENT + "% of the " + limitSource
+                        + "), " + StringFormatter.formatBytes(Math.max(0, available)) + " left, it needs "
+                        + StringFormatter.formatBytes(wanted) + ".");
+            }
+            if (explicitHeap > 0) {
+                warning = bot.getName() + "'s -Xmx implies " + StringFormatter.formatBytes(wanted) + " but only "
+                        + StringFormatter.formatBytes(available) + " of the memory budget is left; the host may swap.";
+            } else {
+                footprint = available;
+                warning = bot.getName() + " gets " + StringFormatter.formatBytes(available) + " instead of "
+                        + StringFormatter.formatBytes(wanted) + ": the memory budget is nearly used up.";
+            }
+        }
+
+        long footprintMb = footprint / MB;
+        List<String> options = new ArrayList<>();
+        if (!setsHeap) {
+            options.add("-Xmx" + (long) (footprintMb * HEAP_SHARE) + "m");
+        }
+        if (!setsMetaspace) {
+            options.add("-XX:MaxMetaspaceSize=" + Math.min(MAX_METASPACE_MB, Math.max(MIN_METASPACE_MB, footprintMb * 15 / 100)) + "m");
+        }
+        if (!setsStack) {
+            options.add(THREAD_STACK);
+        }
+        if (!setsGc && footprintMb < SERIAL_GC_BELOW_MB) {
+            options.add("-XX:+UseSerialGC"); // one GC thread and the least overhead for small heaps
+        }
+        Plan plan = new Plan(bot.getId(), footprint, Collections.unmodifiableList(options), warning);
+        reservations.put(bot.getId(), plan);
+        return plan;
+    }
+
+    /**
+     * Releases a reservation once its process has exited (or failed to launch). A newer
+     * reservation for the same bot is kept.
+     */
+    public synchronized void release(Plan plan) {
+        reservations.remove(plan.botId, plan);
+        if (!reservations.containsKey(plan.botId)) {
+            residentBytes.remove(plan.botId);
+        }
+    }
+
+    private long committedExcept(String botId) {
+        long committed = 0;
+        for (Plan plan : reservations.values()) {
+            if (!plan.botId.equals(botId)) {
+                committed += Math.max(plan.footprintBytes, residentBytes.getOrDefault(plan.botId, 0L));
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * @return The size of a JVM size option value such as {@code 512m} or {@code 2G}, or -1.
+     */
+    static long parseSize(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        char unit = Character.toLowerCase(value.charAt(value.length() - 1));
+        int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : unit == 't' ? 40 : 0;
+        try {
+            return Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1)) << shift;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long physicalMemoryBytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/meminfo"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("MemTotal:")) {
+                    return Long.parseLong(line.substring(9).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux: ask the JVM.
+        }
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getTotalMemorySize();
+        }
+        return -1;
+    }
+
+    /**
+     * @return The tightest memory limit on the manager's cgroup and its ancestors, or -1 if none.
+     */
+    private static long cgroupLimitBytes() {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get("/proc/self/cgroup"), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            return -1;
+        }
+        long limit = -1;
+        for (String line : lines) {
+            String[] fields = line.split(":", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            Path root;
+            String file;
+            if (fields[0].equals("0") && fields[1].isEmpty()) {
+                root = Paths.get("/sys/fs/cgroup");
+                file = "memory.max";
+            } else if (("," + fields[1] + ",").contains(",memory,")) {
+                root = Paths.get("/sys/fs/cgroup/memory");
+                file = "memory.limit_in_bytes";
+            } else {
+                continue;
+            }
+            // Inside a container the cgroup path is often not visible; the root then holds its limit.
+            for (Path dir = root.resolve(fields[2].replaceFirst("^/+", "")).normalize(); dir != null && dir.startsWith(root);
+                 dir = dir.getParent()) {
+                long value = readLimit(dir.resolve(file));
+                if (value > 0 && (limit < 0 || value < limit)) {
+                    limit = value;
+                }
+            }
+        }
+        return limit;
+    }
+
+    private static long readLimit(Path file) {
+        try {
+            String value = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+            long limit = value.equals("max") ? -1 : Long.parseLong(value);
+            return limit >= Long.MAX_VALUE / 2 ? -1 : limit; // v1 reports "unlimited" as a huge number
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
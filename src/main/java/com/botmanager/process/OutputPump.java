@@ -0,0 +1,144 @@
+package com.botmanager.process;
+
+import com.botmanager.console.LogLines;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies a process's output into line callbacks.
+ * <p>
+ * Reads raw bytes and splits lines itself, so every byte can be counted and no
+ * {@code BufferedReader} or intermediate {@code char[]} is kept per process. Over-long
+ * lines are split at {@link #MAX_LINE_BYTES}. Each line's logback header is parsed from
+ * those bytes ({@link LogLines}) before it is decoded, and passed along with it.
+ * <p>
+ * A pump owns no thread: the {@link OutputPoller} calls {@link #poll(byte[])}, which only
+ * reads what the pipe already holds and so never blocks on a quiet bot.
+ */
+final class OutputPump {
+
+    static final int MAX_LINE_BYTES = 64 * 1024;
+    /** How long an exited process may still report no output before its stream counts as drained. */
+    private static final long EXIT_DRAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Process process;
+    private final InputStream in;
+    private final LineSink lineSink;
+    private final LongAdder bytesPumped;
+    private final Charset charset = Charset.defaultCharset();
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long exitSeenNanos;
+    private boolean finished;
+
+    /**
+     * Receives each line with its header as packed by {@link LogLines}.
+     */
+    interface LineSink {
+        void line(String text, long meta);
+    }
+
+    OutputPump(Process process, LineSink lineSink, LongAdder bytesPumped) {
+        this.process = process;
+        this.in = process.getInputStream();
+        this.lineSink = lineSink;
+        this.bytesPumped = bytesPumped;
+    }
+
+    /**
+     * Reads at most one buffer of what the pipe already holds, without blocking. Once the
+     * process has exited, the JDK moves what is left in the pipe into the stream, so an
+     * exited process that keeps reporting nothing has been read in full; the stream is then
+     * closed. Poller thread only.
+     *
+     * @return The number of bytes read, or -1 once the output is finished.
+     */
+    int poll(byte[] buffer) throws IOException {
+        if (finished) {
+            return -1;
+        }
+        try {
+            int available = in.available();
+            if (available > 0) {
+                int read = in.read(buffer, 0, Math.min(available, buffer.length));
+                if (read == -1) {
+                    finish();
+                    return -1;
+                }
+                consume(buffer, read);
+                return read;
+            }
+            if (!process.isAlive()) {
+                long now = System.nanoTime();
+                if (exitSeenNanos == 0) {
+                    exitSeenNanos = now;
+                } else if (now - exitSeenNanos >= EXIT_DRAIN_NANOS) {
+                    finish();
+                    return -1;
+                }
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            finish();
+            throw e;
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing more to read either way.
+        }
+        if (lineLength > 0) {
+            emitLine();
+        }
+    }
+
+    private void consume(byte[] buffer, int count) {
+        bytesPumped.add(count);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == '\n') {
+                append(buffer, start, i - start);
+                emitLine();
+                start = i + 1;
+            }
+        }
+        append(buffer, start, count - start);
+    }
+
+    private void append(byte[] buffer, int offset, int length) {
+        while (length > 0) {
+            int room = MAX_LINE_BYTES - lineLength;
+            if (room == 0) {
+                emitLine();
+                room = MAX_LINE_BYTES;
+            }
+            int take = Math.min(room, length);
+            if (lineLength + take > line.length) {
+                line = Arrays.copyOf(line, Math.min(MAX_LINE_BYTES, Math.max(line.length * 2, lineLength + take)));
+            }
+            System.arraycopy(buffer, offset, line, lineLength, take);
+            lineLength += take;
+            offset += take;
+            length -= take;
+        }
+    }
+
+    private void emitLine() {
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        lineSink.line(new String(line, 0, length, charset), LogLines.parse(line, length));
+        lineLength = 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.botmanager.process;
+
+/**
+ * When the {@link BotSupervisor} brings a bot back after its process exits on its own.
+ * Exits caused by a stop request never trigger a restart.
+ */
+public enum RestartPolicy {
+    /** Restart after any exit that was not requested, including a clean exit code 0. */
+    ALWAYS("Always"),
+    /** Restart only after a non-zero exit code. */
+    ON_FAILURE("On failure"),
+    /** Never restart automatically. */
+    NEVER("Never");
+
+    private final String displayName;
+
+    RestartPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return {@code true} if an unrequested exit with this code should be followed by a restart.
+     */
+    public boolean shouldRestart(int exitCode) {
+        switch (this) {
+            case ALWAYS: return true;
+            case ON_FAILURE: return exitCode != 0;
+            default: return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
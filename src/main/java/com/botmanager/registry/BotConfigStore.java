@@ -0,0 +1,994 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.controller.MainController.EnvVariable;
+import com.botmanager.process.RestartPolicy;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the bot fleet in {@code bots-config.json} across restarts.
+ * <p>
+ * <b>Loading.</b> Startup only builds a summary of each bot (id, name, description, project
+ * path) plus where its full definition sits in the snapshot file. {@link #load()} returns
+ * summary-only {@link Bot}s whose details are read from that byte range the first time they
+ * are needed; {@link #trimDetails(Bot)} drops the least recently used ones again, so memory
+ * stays proportional to the bots actually being looked at, not to the fleet.
+ * <p>
+ * <b>Saving.</b> {@link #markDirty(Bot)} compares the bot with its saved definition and
+ * appends only what differs (a changed field, one env variable) to {@code bots-config.journal},
+ * one JSON line per change; bursts of changes are debounced into a single append. Once the
+ * journal passes {@link #COMPACT_THRESHOLD_BYTES}, the writer thread replays snapshot and
+ * journal into a new snapshot (temporary file plus atomic move) and truncates the journal.
+ * <p>
+ * Every journal entry carries a sequence number and the snapshot records the last one it
+ * includes, so replay skips entries that a compaction already folded in, and a line torn by
+ * a crash is dropped. Neither a crash during an append nor during compaction can lose more
+ * than the change being written.
+ */
+public class BotConfigStore {
+
+    /** Quiet period before pending changes are appended ({@code -Dbotmanager.config.saveDebounceMs}). */
+    public static final long SAVE_DEBOUNCE_MS = Long.getLong("botmanager.config.saveDebounceMs", 200);
+    /** Journal size that triggers compaction ({@code -Dbotmanager.config.journalCompactBytes}). */
+    public static final long COMPACT_THRESHOLD_BYTES = Long.getLong("botmanager.config.journalCompactBytes", 1024 * 1024);
+    /** Bots whose details are kept in memory ({@code -Dbotmanager.config.detailsCacheSize}). */
+    public static final int DETAILS_CACHE_SIZE = Integer.getInteger("botmanager.config.detailsCacheSize", 256);
+    /** Longest a change waits under a constant stream of edits. */
+    private static final long MAX_SAVE_DELAY_MS = Math.max(SAVE_DEBOUNCE_MS, 5000);
+    private static final int FORMAT_VERSION = 2;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final byte[] NEWLINE = {'\n'};
+    private static final byte[] SEPARATOR = {',', '\n'};
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Persistent bot fields that can change on their own, with their names in the file.
+     */
+    public enum Field {
+        NAME("name"), DESCRIPTION("description"), PROJECT_PATH("projectPath"), VERSION("version"),
+        MAIN_FILE("mainFile"), LOG_LEVEL("logLevel"), JVM_ARGS("jvmArgs"),
+        STARTUP_DELAY_MS("startupDelayMs"), RESTART_POLICY("restartPolicy");
+
+        private static final Map<String, Field> BY_KEY = new HashMap<>();
+
+        static {
+            for (Field field : values()) {
+                BY_KEY.put(field.key, field);
+            }
+        }
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        static Field fromKey(String key) {
+            return BY_KEY.get(key);
+        }
+    }
+
+    private final Path file;
+    private final Path tempFile;
+    private final Path journalFile;
+    private final ScheduledThreadPoolExecutor writer;
+    private final Bot.DetailsLoader detailsLoader = this::loadDetails;
+
+    // Guarded by this: where each bot's definition is, bots holding details, and unwritten changes.
+    private final Map<String, IndexEntry> index = new HashMap<>();
+    private final LinkedHashMap<String, Bot> detailed = new LinkedHashMap<>(64, 0.75f, true);
+    private FileChannel snapshotReader;
+    private List<Change> pending = new ArrayList<>();
+    private long firstUnsavedNanos;
+    private long lastChangeNanos;
+    private ScheduledFuture<?> pendingSave;
+
+    // Guarded by writeLock.
+    private final Object writeLock = new Object();
+    private FileChannel journal;
+    private long nextSeq;
+    private long journalBytes;
+
+    public BotConfigStore(Path file) {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        String name = file.getFileName().toString();
+        this.journalFile = file.resolveSibling((name.endsWith(".json") ? name.substring(0, name.length() - 5) : name) + ".journal");
+        this.writer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "bot-config-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "bot-config-shutdown"));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Indexes snapshot and journal on the writer thread. A missing snapshot yields an empty
+     * fleet; an unreadable one is moved aside (so compaction cannot overwrite it).
+     *
+     * @return Summary-only bots in file order, none of them running.
+     */
+    public CompletableFuture<List<Bot>> load() {
+        return CompletableFuture.supplyAsync(() -> {
+            Replay replay;
+            try {
+                synchronized (writeLock) {
+                    replay = openJournal();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<Bot> bots = new ArrayList<>(replay.entries.size());
+            synchronized (this) {
+                closeQuietly(snapshotReader);
+                snapshotReader = replay.snapshotChannel;
+                for (Map.Entry<String, IndexEntry> entry : replay.entries.entrySet()) {
+                    IndexEntry indexed = entry.getValue();
+                    index.putIfAbsent(entry.getKey(), indexed); // bots saved while loading win
+                    bots.add(new Bot(entry.getKey(), indexed.name, indexed.description, indexed.projectPath, detailsLoader));
+                    indexed.name = null;
+                    indexed.description = null;
+                    indexed.projectPath = null;
+                }
+            }
+            if (journalBytes >= COMPACT_THRESHOLD_BYTES) {
+                writer.execute(this::compactQuietly);
+            }
+            return bots;
+        }, writer);
+    }
+
+    /**
+     * Drops the details of the least recently used bots beyond {@link #DETAILS_CACHE_SIZE}.
+     * Call on the FX thread between edits; {@code keep} (the selected bot) is never dropped.
+     */
+    public void trimDetails(Bot keep) {
+        List<Bot> evicted = new ArrayList<>();
+        synchronized (this) {
+            int excess = detailed.size() - DETAILS_CACHE_SIZE;
+            for (Iterator<Bot> it = detailed.values().iterator(); excess > 0 && it.hasNext(); ) {
+                Bot bot = it.next();
+                if (bot != keep) {
+                    it.remove();
+                    evicted.add(bot);
+                    excess--;
+                }
+            }
+        }
+        evicted.forEach(Bot::evictDetails);
+    }
+
+    /**
+     * @return Number of bots whose details are currently in memory.
+     */
+    public synchronized int getDetailsLoadedCount() {
+        return detailed.size();
+    }
+
+    /**
+     * Saves a new or changed bot. Call on the thread that owns the bot (the FX thread).
+     * Only fields and env variables that differ from the saved definition are journaled.
+     */
+    public void markDirty(Bot bot) {
+        BotRecord current = BotRecord.of(bot);
+        byte[] bytes;
+        try {
+            bytes = serialize(current);
+        } catch (IOException e) {
+            System.err.println("BotConfigStore: Could not serialize bot " + current.id + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            IndexEntry saved = index.get(current.id);
+            BotRecord previous = null;
+            if (saved != null) {
+                try {
+                    previous = readRecord(saved);
+                } catch (IOException e) {
+                    previous = null; // journal the whole bot instead
+                }
+            }
+            int before = pending.size();
+            if (previous == null) {
+                pending.add(Change.put(current));
+            } else {
+                diff(previous, current, pending);
+            }
+            if (pending.size() != before) {
+                IndexEntry updated = new IndexEntry();
+                updated.bytes = bytes;
+                index.put(current.id, updated);
+                scheduleSave();
+            }
+        }
+    }
+
+    /**
+     * Drops a bot from the registry.
+     */
+    public synchronized void remove(String botId) {
+        detailed.remove(botId);
+        if (index.remove(botId) != null) {
+            pending.add(Change.remove(botId));
+            scheduleSave();
+        }
+    }
+
+    /**
+     * @return {@code true} if changes are waiting to be written.
+     */
+    public synchronized boolean isDirty() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Appends pending changes now, on the writer thread.
+     */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::appendQuietly, writer);
+    }
+
+    /**
+     * Folds the journal into a new snapshot now, on the writer thread.
+     */
+    public CompletableFuture<Void> compact() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                synchronized (writeLock) {
+                    append();
+                    compactJournal();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    /**
+     * Writes the saved definitions of the given bots to a {@link FleetFile}, on the writer thread.
+     * Each definition is read and written on its own, so the export needs no more memory for
+     * 10,000 bots than for ten; the file is replaced atomically once complete.
+     *
+     * @param botIds The bots to export, in file order; ids without a saved definition are skipped.
+     * @return The number of bots written.
+     */
+    public CompletableFuture<Integer> exportFleet(List<String> botIds, Path target) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            int count = 0;
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), WRITE_BUFFER_BYTES);
+                     JsonGenerator generator = JSON.createGenerator(out)) {
+                    FleetFile.writeStart(generator);
+                    for (String id : botIds) {
+                        BotRecord record;
+                        synchronized (this) {
+                            IndexEntry entry = index.get(id);
+                            record = entry != null ? readRecord(entry) : null;
+                        }
+                        if (record != null) {
+                            record.write(generator);
+                            count++;
+                        }
+                    }
+                    FleetFile.writeEnd(generator);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Only a leftover temporary file.
+                }
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        }, writer);
+    }
+
+    /**
+     * Appends pending changes on the calling thread and stops the writer. Safe to call more than once.
+     */
+    public void close() {
+        writer.shutdown();
+        synchronized (writeLock) {
+            appendQuietly();
+            closeQuietly(journal);
+            journal = null;
+        }
+    }
+
+    private Bot.Details loadDetails(Bot bot) {
+        BotRecord record;
+        synchronized (this) {
+            detailed.put(bot.getId(), bot);
+            IndexEntry saved = index.get(bot.getId());
+            try {
+                record = saved != null ? readRecord(saved) : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the details of bot " + bot.getId(), e);
+            }
+        }
+        if (record == null) {
+            record = new BotRecord(); // removed meanwhile; defaults
+        }
+        return new Bot.Details(record.version, record.mainFile, record.logLevel, record.jvmArgs,
+                record.startupDelayMs, record.restartPolicy, record.env);
+    }
+
+    // Guarded by this.
+    private BotRecord readRecord(IndexEntry entry) throws IOException {
+        byte[] bytes = entry.bytes;
+        if (bytes == null) {
+            bytes = new byte[entry.length];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long position = entry.offset;
+            while (buffer.hasRemaining()) {
+                if (snapshotReader.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Snapshot ends inside a bot definition");
+                }
+            }
+        }
+        return parseRecord(bytes, 0, bytes.length);
+    }
+
+    private static BotRecord parseRecord(byte[] content, int offset, int length) throws IOException {
+        try (JsonParser parser = JSON.createParser(content, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a bot definition");
+            }
+            return BotRecord.read(parser);
+        }
+    }
+
+    private static byte[] serialize(BotRecord record) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            record.write(generator);
+        }
+        return out.toByteArray();
+    }
+
+    private static void diff(BotRecord previous, BotRecord current, List<Change> out) {
+        String id = current.id;
+        setIfChanged(out, id, Field.NAME, previous.name, current.name);
+        setIfChanged(out, id, Field.DESCRIPTION, previous.description, current.description);
+        setIfChanged(out, id, Field.PROJECT_PATH, previous.projectPath, current.projectPath);
+        setIfChanged(out, id, Field.VERSION, previous.version, current.version);
+        setIfChanged(out, id, Field.MAIN_FILE, previous.mainFile, current.mainFile);
+        setIfChanged(out, id, Field.LOG_LEVEL, previous.logLevel, current.logLevel);
+        setIfChanged(out, id, Field.JVM_ARGS, previous.jvmArgs, current.jvmArgs);
+        setIfChanged(out, id, Field.STARTUP_DELAY_MS,
+                Integer.toString(previous.startupDelayMs), Integer.toString(current.startupDelayMs));
+        setIfChanged(out, id, Field.RESTART_POLICY, previous.restartPolicy.name(), current.restartPolicy.name());
+
+        List<EnvVariable> oldEnv = previous.env;
+        List<EnvVariable> newEnv = current.env;
+        for (int i = 0; i < newEnv.size(); i++) {
+            EnvVariable variable = newEnv.get(i);
+            if (i >= oldEnv.size() || !Objects.equals(oldEnv.get(i).getKey(), variable.getKey())
+                    || !Objects.equals(oldEnv.get(i).getValue(), variable.getValue())) {
+                out.add(Change.putEnv(id, i, variable.getKey(), variable.getValue()));
+            }
+        }
+        for (int i = oldEnv.size() - 1; i >= newEnv.size(); i--) {
+            out.add(Change.deleteEnv(id, i));
+        }
+    }
+
+    private static void setIfChanged(List<Change> out, String id, Field field, String oldValue, String newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            out.add(Change.set(id, field, newValue));
+        }
+    }
+
+    // Guarded by this.
+    private void scheduleSave() {
+        long now = System.nanoTime();
+        lastChangeNanos = now;
+        if (pendingSave == null && !writer.isShutdown()) {
+            firstUnsavedNanos = now;
+            pendingSave = writer.schedule(this::debouncedSave, SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void debouncedSave() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            long quietMs = TimeUnit.NANOSECONDS.toMillis(now - lastChangeNanos);
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - firstUnsavedNanos);
+            if (quietMs < SAVE_DEBOUNCE_MS && waitedMs < MAX_SAVE_DELAY_MS) {
+                long delayMs = Math.min(SAVE_DEBOUNCE_MS - quietMs, MAX_SAVE_DELAY_MS - waitedMs);
+                pendingSave = writer.schedule(this::debouncedSave, delayMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+            pendingSave = null;
+        }
+        appendQuietly();
+    }
+
+    private void appendQuietly() {
+        synchronized (writeLock) {
+            try {
+                append();
+                if (journalBytes >= COMPACT_THRESHOLD_BYTES && !writer.isShutdown()) {
+                    writer.execute(this::compactQuietly);
+                }
+            } catch (IOException e) {
+                System.err.println("BotConfigStore: Could not save to " + journalFile + ": " + e.getMessage());
+                synchronized (this) {
+                    if (pendingSave == null && !writer.isShutdown()) {
+                        firstUnsavedNanos = System.nanoTime();
+                        pendingSave = writer.schedule(this::debouncedSave, MAX_SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        synchronized (writeLock) {
+            if (journalBytes < COMPACT_THRESHOLD_BYTES) {
+                return; // another compaction got here first
+            }
+            try {
+                compactJournal();
+            } catch (IOException e) {
+                System.err.println("BotConfigStore: Compaction of " + journalFile + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Guarded by writeLock.
+    private void append() throws IOException {
+        List<Change> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        try {
+            if (journal == null) {
+                closeQuietly(openJournal().snapshotChannel);
+            }
+            ByteArrayOutputStream lines = new ByteArrayOutputStream(batch.size() * 96);
+            long seq = nextSeq;
+            for (Change change : batch) {
+                try (JsonGenerator generator = JSON.createGenerator(lines)) {
+                    change.write(generator, seq++);
+                }
+                lines.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            nextSeq = seq;
+            journalBytes += lines.size();
+        } catch (IOException e) {
+            // Put the batch back in front of anything queued since, and start the journal afresh
+            // at its last good line on the next attempt.
+            synchronized (this) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            closeQuietly(journal);
+            journal = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Replays snapshot and journal, cuts a torn last line off the journal and opens it for
+     * appending. The caller owns the returned replay's snapshot channel.
+     */
+    // Guarded by writeLock.
+    private Replay openJournal() throws IOException {
+        closeQuietly(journal);
+        journal = null;
+        Replay replay = replay();
+        try {
+            Files.createDirectories(journalFile.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                channel.truncate(replay.journalValidBytes);
+                channel.position(replay.journalValidBytes);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            journal = channel;
+        } catch (IOException e) {
+            closeQuietly(replay.snapshotChannel);
+            throw e;
+        }
+        journalBytes = replay.journalValidBytes;
+        nextSeq = replay.lastSeq + 1;
+        return replay;
+    }
+
+    // Guarded by writeLock.
+    private void compactJournal() throws IOException {
+        Replay replay = replay();
+        Map<String, long[]> locations = new HashMap<>(replay.entries.size() * 2);
+        try {
+            writeSnapshot(replay, locations);
+        } finally {
+            closeQuietly(replay.snapshotChannel);
+        }
+        FileChannel reader = FileChannel.open(file, StandardOpenOption.READ);
+
+        // The snapshot now covers every journal entry; a crash before this truncate only means
+        // they are skipped by sequence number on the next replay.
+        if (journal == null) {
+            closeQuietly(openJournal().snapshotChannel);
+        }
+        journal.truncate(0);
+        journal.position(0);
+        journalBytes = 0;
+
+        // Point the index at the new file. Bots with unwritten changes keep their in-memory copy.
+        synchronized (this) {
+            Set<String> unwritten = new HashSet<>();
+            for (Change change : pending) {
+                unwritten.add(change.id);
+            }
+            FileChannel previous = snapshotReader;
+            snapshotReader = reader;
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                long[] location = locations.get(entry.getKey());
+                if (location != null && !unwritten.contains(entry.getKey())) {
+                    IndexEntry indexed = entry.getValue();
+                    indexed.offset = location[0];
+                    indexed.length = (int) location[1];
+                    indexed.bytes = null;
+                }
+            }
+            closeQuietly(previous);
+        }
+    }
+
+    private void writeSnapshot(Replay replay, Map<String, long[]> locations) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_BYTES);
+            byte[] header = ("{\"version\":" + FORMAT_VERSION + ",\"journalSeq\":" + replay.lastSeq + ",\"bots\":[")
+                    .getBytes(StandardCharsets.US_ASCII);
+            out.write(header);
+            long position = header.length;
+            boolean first = true;
+            for (Map.Entry<String, IndexEntry> entry : replay.entries.entrySet()) {
+                IndexEntry indexed = entry.getValue();
+                byte[] separator = first ? NEWLINE : SEPARATOR;
+                out.write(separator);
+                position += separator.length;
+                if (indexed.bytes != null) {
+                    out.write(indexed.bytes);
+                    locations.put(entry.getKey(), new long[]{position, indexed.bytes.length});
+                    position += indexed.bytes.length;
+                } else {
+                    out.write(replay.snapshot, (int) indexed.offset, indexed.length);
+                    locations.put(entry.getKey(), new long[]{position, indexed.length});
+                    position += indexed.length;
+                }
+                first = false;
+            }
+            out.write("\n]}\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            channel.force(false);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Indexes the snapshot and applies the journal on top. Bots the journal touched are
+     * re-serialized in memory; all others are left as byte ranges of the snapshot.
+     */
+    private Replay replay() throws IOException {
+        Replay replay = new Replay();
+        long snapshotSeq = readSnapshot(replay);
+        replay.lastSeq = snapshotSeq;
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(journalFile);
+        } catch (NoSuchFileException e) {
+            return replay;
+        }
+        int lineStart = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            if (i > lineStart) {
+                try (JsonParser parser = JSON.createParser(content, lineStart, i - lineStart)) {
+                    long seq = Change.apply(parser, replay, snapshotSeq);
+                    replay.lastSeq = Math.max(replay.lastSeq, seq);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("BotConfigStore: Skipping unreadable journal entry at byte " + lineStart + ": " + e.getMessage());
+                }
+            }
+            lineStart = i + 1;
+        }
+        replay.journalValidBytes = lineStart; // anything after the last newline is a torn write
+
+        for (Map.Entry<String, BotRecord> touched : replay.touched.entrySet()) {
+            BotRecord record = touched.getValue();
+            IndexEntry indexed = replay.entries.get(touched.getKey());
+            indexed.bytes = serialize(record);
+            indexed.name = record.name;
+            indexed.description = record.description;
+            indexed.projectPath = record.projectPath;
+        }
+        return replay;
+    }
+
+    /**
+     * Indexes the snapshot into {@code replay}, reading only the summary fields of each bot.
+     *
+     * @return The last journal sequence number the snapshot includes.
+     */
+    private long readSnapshot(Replay replay) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        // Read through the channel that is kept for details, so both see the same file.
+        byte[] content;
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + size + " bytes");
+            }
+            content = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+                // keep reading
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        long journalSeq = 0;
+        try (JsonParser parser = JSON.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object at the top level");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("journalSeq".equals(field)) {
+                    journalSeq = parser.getValueAsLong(0);
+                } else if ("bots".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        long start = parser.getTokenLocation().getByteOffset();
+                        IndexEntry indexed = readSummary(parser);
+                        long end = parser.getCurrentLocation().getByteOffset();
+                        if (indexed.id == null || indexed.id.isEmpty() || replay.entries.containsKey(indexed.id)) {
+                            System.err.println("BotConfigStore: Skipping bot without a unique id: " + indexed.name);
+                            continue;
+                        }
+                        indexed.offset = start;
+                        indexed.length = (int) (end - start);
+                        replay.entries.put(indexed.id, indexed);
+                        indexed.id = null;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Path aside = file.resolveSibling(file.getFileName() + ".corrupt-" + System.currentTimeMillis());
+            System.err.println("BotConfigStore: " + file + " is unreadable (" + e.getMessage() + "); moved to " + aside);
+            Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            replay.entries.clear();
+            return 0;
+        }
+        replay.snapshot = content;
+        replay.snapshotChannel = channel;
+        return journalSeq;
+    }
+
+    private static IndexEntry readSummary(JsonParser parser) throws IOException {
+        IndexEntry indexed = new IndexEntry();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id": indexed.id = parser.getValueAsString(); break;
+                case "name": indexed.name = parser.getValueAsString(""); break;
+                case "description": indexed.description = parser.getValueAsString(""); break;
+                case "projectPath": indexed.projectPath = parser.getValueAsString(""); break;
+                default: parser.skipChildren();
+            }
+        }
+        return indexed;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do; the descriptor is gone either way.
+        }
+    }
+
+    /**
+     * Where a bot's saved definition is: a byte range of the snapshot, or serialized in memory
+     * when it changed since the snapshot was written. The summary fields are only set while
+     * loading.
+     */
+    private static final class IndexEntry {
+        long offset;
+        int length;
+        byte[] bytes;
+        String id;
+        String name = "";
+        String description = "";
+        String projectPath = "";
+    }
+
+    /**
+     * Snapshot index plus journal, as read from disk.
+     */
+    private static final class Replay {
+        final LinkedHashMap<String, IndexEntry> entries = new LinkedHashMap<>();
+        final Map<String, BotRecord> touched = new HashMap<>();
+        byte[] snapshot;
+        FileChannel snapshotChannel;
+        long lastSeq;
+        long journalValidBytes;
+
+        void put(String id, BotRecord record) {
+            record.id = id;
+            entries.computeIfAbsent(id, key -> new IndexEntry());
+            touched.put(id, record);
+        }
+
+        void remove(String id) {
+            entries.remove(id);
+            touched.remove(id);
+        }
+
+        /**
+         * @return The bot's full definition for applying a change, or {@code null} if it is unknown.
+         */
+        BotRecord record(String id) throws IOException {
+            BotRecord record = touched.get(id);
+            if (record == null) {
+                IndexEntry indexed = entries.get(id);
+                if (indexed == null) {
+                    return null;
+                }
+                record = indexed.bytes != null
+                        ? parseRecord(indexed.bytes, 0, indexed.bytes.length)
+                        : parseRecord(snapshot, (int) indexed.offset, indexed.length);
+                record.id = id;
+                touched.put(id, record);
+            }
+            return record;
+        }
+    }
+
+    /**
+     * One journal entry.
+     */
+    private static final class Change {
+        private static final String PUT = "put";
+        private static final String REMOVE = "remove";
+        private static final String SET = "set";
+        private static final String ENV_PUT = "envPut";
+        private static final String ENV_DELETE = "envDelete";
+
+        final String op;
+        final String id;
+        BotRecord record;
+        Field field;
+        String key;
+        String value;
+        int index;
+
+        private Change(String op, String id) {
+            this.op = op;
+            this.id = id;
+        }
+
+        static Change put(BotRecord record) {
+            Change change = new Change(PUT, record.id);
+            change.record = record;
+            return change;
+        }
+
+        static Change remove(String id) {
+            return new Change(REMOVE, id);
+        }
+
+        static Change set(String id, Field field, String value) {
+            Change change = new Change(SET, id);
+            change.field = field;
+            change.value = value;
+            return change;
+        }
+
+        static Change putEnv(String id, int index, String key, String value) {
+            Change change = new Change(ENV_PUT, id);
+            change.index = index;
+            change.key = key;
+            change.value = value;
+            return change;
+        }
+
+        static Change deleteEnv(String id, int index) {
+            Change change = new Change(ENV_DELETE, id);
+            change.index = index;
+            return change;
+        }
+
+        void write(JsonGenerator generator, long seq) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("seq", seq);
+            generator.writeStringField("op", op);
+            generator.writeStringField("id", id);
+            switch (op) {
+                case PUT:
+                    generator.writeFieldName("bot");
+                    record.write(generator);
+                    break;
+                case SET:
+                    generator.writeStringField("field", field.key);
+                    generator.writeStringField("value", value);
+                    break;
+                case ENV_PUT:
+                    generator.writeNumberField("index", index);
+                    generator.writeStringField("key", key);
+                    generator.writeStringField("value", value);
+                    break;
+                case ENV_DELETE:
+                    generator.writeNumberField("index", index);
+                    break;
+                default:
+                    break;
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Reads one entry and applies it to {@code replay} unless the snapshot already includes it.
+         *
+         * @return The entry's sequence number.
+         */
+        static long apply(JsonParser parser, Replay replay, long snapshotSeq) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            long seq = -1;
+            String op = null;
+            String id = null;
+            BotRecord record = null;
+            String fieldKey = null;
+            String key = null;
+            String value = null;
+            int index = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "seq": seq = parser.getValueAsLong(-1); break;
+                    case "op": op = parser.getValueAsString(); break;
+                    case "id": id = parser.getValueAsString(); break;
+                    case "bot":
+                        if (token == JsonToken.START_OBJECT) {
+                            record = BotRecord.read(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                        break;
+                    case "field": fieldKey = parser.getValueAsString(); break;
+                    case "key": key = parser.getValueAsString(); break;
+                    case "value": value = parser.getValueAsString(); break;
+                    case "index": index = parser.getValueAsInt(-1); break;
+                    default: parser.skipChildren();
+                }
+            }
+            if (seq < 0 || op == null || id == null) {
+                throw new IOException("Incomplete journal entry");
+            }
+            if (seq <= snapshotSeq) {
+                return seq;
+            }
+            switch (op) {
+                case PUT:
+                    if (record != null) {
+                        replay.put(id, record);
+                    }
+                    break;
+                case REMOVE:
+                    replay.remove(id);
+                    break;
+                case SET: {
+                    Field field = Field.fromKey(fieldKey);
+                    BotRecord target = replay.record(id);
+                    if (target != null && field != null) {
+                        target.set(field, value);
+                    }
+                    break;
+                }
+                case ENV_PUT: {
+                    BotRecord target = replay.record(id);
+                    if (target != null && key != null) {
+                        target.putEnv(index, key, value == null ? "" : value);
+                    }
+                    break;
+                }
+                case ENV_DELETE: {
+                    BotRecord target = replay.record(id);
+                    if (target != null) {
+                        target.deleteEnv(index);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown journal operation " + op);
+            }
+            return seq;
+        }
+    }
+}
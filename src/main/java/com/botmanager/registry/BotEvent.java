@@ -0,0 +1,94 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+
+/**
+ * Something that happened to one bot, published on the {@link BotEventBus} of its {@link BotRegistry}.
+ */
+public abstract class BotEvent {
+
+    private final Bot bot;
+
+    private BotEvent(Bot bot) {
+        this.bot = bot;
+    }
+
+    public Bot getBot() {
+        return bot;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + bot.getId() + "]";
+    }
+
+    /** The bot joined the registry. */
+    public static final class Added extends BotEvent {
+        Added(Bot bot) {
+            super(bot);
+        }
+    }
+
+    /** The bot left the registry. */
+    public static final class Removed extends BotEvent {
+        Removed(Bot bot) {
+            super(bot);
+        }
+    }
+
+    /** A process was launched for the bot. */
+    public static final class Started extends BotEvent {
+        private final Process process;
+
+        Started(Bot bot, Process process) {
+            super(bot);
+            this.process = process;
+        }
+
+        public Process getProcess() {
+            return process;
+        }
+    }
+
+    /** The bot's process ended, on request or not. */
+    public static final class Exited extends BotEvent {
+        private final int exitCode;
+        private final boolean stopRequested;
+
+        Exited(Bot bot, int exitCode, boolean stopRequested) {
+            super(bot);
+            this.exitCode = exitCode;
+            this.stopRequested = stopRequested;
+        }
+
+        /** @return The exit code, or -1 if the process was already gone. */
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isStopRequested() {
+            return stopRequested;
+        }
+    }
+
+    /** The bot exited with a non-zero code without being asked to stop; follows its {@link Exited}. */
+    public static final class Crashed extends BotEvent {
+        private final int exitCode;
+
+        Crashed(Bot bot, int exitCode) {
+            super(bot);
+            this.exitCode = exitCode;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+
+    /** The bot's saved configuration was edited. */
+    public static final class ConfigChanged extends BotEvent {
+        ConfigChanged(Bot bot) {
+            super(bot);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.botmanager.registry;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers {@link BotEvent}s to subscribers by type, synchronously and in subscription order,
+ * on the publishing thread. A failing subscriber is reported and does not stop delivery
+ * to the others.
+ */
+public class BotEventBus {
+
+    /**
+     * Handle returned by {@link #subscribe}.
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final CopyOnWriteArrayList<Subscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Calls {@code handler} for every published event of {@code type} (including subtypes).
+     */
+    public <E extends BotEvent> Subscription subscribe(Class<E> type, Consumer<? super E> handler) {
+        Subscriber<E> subscriber = new Subscriber<>(type, handler);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public void publish(BotEvent event) {
+        for (Subscriber<?> subscriber : subscribers) {
+            try {
+                subscriber.deliver(event);
+            } catch (RuntimeException e) {
+                System.err.println("BotEventBus: Subscriber failed on " + event + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Subscriber<E extends BotEvent> {
+        private final Class<E> type;
+        private final Consumer<? super E> handler;
+
+        Subscriber(Class<E> type, Consumer<? super E> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        void deliver(BotEvent event) {
+            if (type.isInstance(event)) {
+                handler.accept(type.cast(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.controller.MainController.EnvVariable;
+import com.botmanager.process.RestartPolicy;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The saved definition of one bot: a plain copy of the {@link Bot} fields that persist, free
+ * of any UI state so it can be built, replayed and written on background threads.
+ */
+final class BotRecord {
+
+    String id;
+    String name = "";
+    String description = "";
+    String projectPath = "";
+    String version = "";
+    String mainFile = "";
+    String logLevel = "INFO";
+    String jvmArgs = "";
+    int startupDelayMs;
+    RestartPolicy restartPolicy = RestartPolicy.NEVER;
+    final List<EnvVariable> env = new ArrayList<>();
+
+    /**
+     * Copies a bot's persistent fields. Call on the thread that owns the bot.
+     */
+    static BotRecord of(Bot bot) {
+        BotRecord record = new BotRecord();
+        record.id = bot.getId();
+        record.name = bot.getName();
+        record.description = bot.getDescription();
+        record.projectPath = bot.getProjectPath();
+        record.version = bot.getVersion();
+        record.mainFile = bot.getMainFile();
+        record.logLevel = bot.getLogLevel();
+        record.jvmArgs = bot.getJvmArgs();
+        record.startupDelayMs = bot.getStartupDelayMs();
+        record.restartPolicy = bot.getRestartPolicy();
+        for (EnvVariable variable : bot.getEnvVariables()) {
+            record.env.add(new EnvVariable(variable.getKey(), variable.getValue()));
+        }
+        return record;
+    }
+
+    Bot toBot() {
+        Bot bot = new Bot(id, name, description, projectPath, version, mainFile, logLevel, false);
+        bot.setJvmArgs(jvmArgs);
+        bot.setStartupDelayMs(startupDelayMs);
+        bot.setRestartPolicy(restartPolicy);
+        // Copies: the UI edits variables in place, which must not touch the saved baseline.
+        for (EnvVariable variable : env) {
+            bot.getEnvVariables().add(new EnvVariable(variable.getKey(), variable.getValue()));
+        }
+        return bot;
+    }
+
+    /**
+     * Applies a single-field change from the journal.
+     */
+    void set(BotConfigStore.Field field, String value) {
+        switch (field) {
+            case NAME: name = orEmpty(value); break;
+            case DESCRIPTION: description = orEmpty(value); break;
+            case PROJECT_PATH: projectPath = orEmpty(value); break;
+            case VERSION: version = orEmpty(value); break;
+            case MAIN_FILE: mainFile = orEmpty(value); break;
+            case LOG_LEVEL: logLevel = value == null ? "INFO" : value; break;
+            case JVM_ARGS: jvmArgs = orEmpty(value); break;
+            case STARTUP_DELAY_MS: startupDelayMs = parseInt(value); break;
+            case RESTART_POLICY: restartPolicy = parseRestartPolicy(value); break;
+            default: throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+
+    /**
+     * Sets the variable at {@code index}, or appends it when {@code index} is the list size.
+     */
+    void putEnv(int index, String key, String value) {
+        if (index >= 0 && index < env.size()) {
+            env.set(index, new EnvVariable(key, value));
+        } else if (index == env.size()) {
+            env.add(new EnvVariable(key, value));
+        }
+    }
+
+    void deleteEnv(int index) {
+        if (index >= 0 && index < env.size()) {
+            env.remove(index);
+        }
+    }
+
+    void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", id);
+        generator.writeStringField("name", name);
+        generator.writeStringField("description", description);
+        generator.writeStringField("projectPath", projectPath);
+        generator.writeStringField("version", version);
+        generator.writeStringField("mainFile", mainFile);
+        generator.writeStringField("logLevel", logLevel);
+        generator.writeStringField("jvmArgs", jvmArgs);
+        generator.writeNumberField("startupDelayMs", startupDelayMs);
+        generator.writeStringField("restartPolicy", restartPolicy.name());
+        generator.writeArrayFieldStart("env");
+        for (EnvVariable variable : env) {
+            generator.writeStartObject();
+            generator.writeStringField("key", variable.getKey());
+            generator.writeStringField("value", variable.getValue());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a record; the parser must be positioned on its {@code START_OBJECT}.
+     */
+    static BotRecord read(JsonParser parser) throws IOException {
+        BotRecord record = new BotRecord();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id": record.id = parser.getValueAsString(); break;
+                case "name": record.name = parser.getValueAsString(""); break;
+                case "description": record.description = parser.getValueAsString(""); break;
+                case "projectPath": record.projectPath = parser.getValueAsString(""); break;
+                case "version": record.version = parser.getValueAsString(""); break;
+                case "mainFile": record.mainFile = parser.getValueAsString(""); break;
+                case "logLevel": record.logLevel = parser.getValueAsString("INFO"); break;
+                case "jvmArgs": record.jvmArgs = parser.getValueAsString(""); break;
+                case "startupDelayMs": record.startupDelayMs = parser.getValueAsInt(0); break;
+                case "restartPolicy": record.restartPolicy = parseRestartPolicy(parser.getValueAsString()); break;
+                case "env":
+                    if (token == JsonToken.START_ARRAY) {
+                        readEnv(parser, record.env);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default: parser.skipChildren();
+            }
+        }
+        return record;
+    }
+
+    private static void readEnv(JsonParser parser, List<EnvVariable> env) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String key = null;
+            String value = "";
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("key".equals(field)) {
+                    key = parser.getValueAsString();
+                } else if ("value".equals(field)) {
+                    value = parser.getValueAsString("");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (key != null) {
+                env.add(new EnvVariable(key, value));
+            }
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static RestartPolicy parseRestartPolicy(String name) {
+        try {
+            return name == null ? RestartPolicy.NEVER : RestartPolicy.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return RestartPolicy.NEVER;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The managed bots, with fleet counts kept up to date as they change and lifecycle events
+ * published on a {@link BotEventBus}.
+ * <p>
+ * Running, stopped and crashed counts are maintained from the list's own change events
+ * (additions, removals and {@link Bot#EXTRACTOR} updates), so reading them is O(1) and
+ * they stay right however a bot's state is changed. Lookups by id are O(1) as well.
+ * <p>
+ * Not thread-safe: use it, and the bots in it, on the FX thread. Events are delivered on
+ * the same thread, before the publishing call returns.
+ */
+public class BotRegistry {
+
+    private final ObservableList<Bot> bots = FXCollections.observableArrayList(Bot.EXTRACTOR);
+    private final BotEventBus events = new BotEventBus();
+    private final Map<String, Bot> byId = new HashMap<>();
+    private final Set<Bot> running = new HashSet<>();
+    private final Set<Bot> crashed = new HashSet<>();
+
+    public BotRegistry() {
+        bots.addListener((ListChangeListener<Bot>) this::onBotsChanged);
+    }
+
+    /**
+     * @return The live list of bots; changes made to it directly are tracked as well.
+     */
+    public ObservableList<Bot> getBots() {
+        return bots;
+    }
+
+    public BotEventBus getEvents() {
+        return events;
+    }
+
+    public Bot get(String botId) {
+        return byId.get(botId);
+    }
+
+    public void add(Bot bot) {
+        bots.add(bot);
+    }
+
+    public void addAll(Collection<Bot> added) {
+        bots.addAll(added);
+    }
+
+    /**
+     * Merges bots by id: a bot whose id is already registered has its definition copied onto
+     * the registered one, which publishes {@link BotEvent.ConfigChanged}; the others are added
+     * in a single list change.
+     *
+     * @return The number of bots added.
+     */
+    public int mergeAll(Collection<Bot> incoming) {
+        Map<String, Bot> added = new LinkedHashMap<>();
+        for (Bot bot : incoming) {
+            Bot existing = byId.get(bot.getId());
+            if (existing == null) {
+                Bot earlier = added.putIfAbsent(bot.getId(), bot);
+                if (earlier != null) {
+                    copyDefinition(bot, earlier); // the same id twice: the later one wins
+                }
+                continue;
+            }
+            copyDefinition(bot, existing);
+            markConfigChanged(existing);
+        }
+        bots.addAll(added.values());
+        return added.size();
+    }
+
+    public void remove(Bot bot) {
+        bots.remove(bot);
+    }
+
+    public int size() {
+        return bots.size();
+    }
+
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    public int getStoppedCount() {
+        return bots.size() - running.size();
+    }
+
+    /**
+     * @return Bots whose last exit was a crash and that have not been started since.
+     */
+    public int getCrashedCount() {
+        return crashed.size();
+    }
+
+    public boolean isCrashed(Bot bot) {
+        return crashed.contains(bot);
+    }
+
+    /**
+     * Records that {@code process} was launched for {@code bot} and publishes {@link BotEvent.Started}.
+     */
+    public void markStarted(Bot bot, Process process) {
+        bot.setBotProcess(process);
+        bot.setRunning(true);
+        events.publish(new BotEvent.Started(bot, process));
+    }
+
+    /**
+     * Records that the bot's process is gone and publishes {@link BotEvent.Exited}, followed by
+     * {@link BotEvent.Crashed} for an unrequested non-zero exit.
+     *
+     * @param exitCode The exit code, or -1 if the process was already gone.
+     */
+    public void markExited(Bot bot, int exitCode, boolean stopRequested) {
+        boolean crash = !stopRequested && exitCode != 0 && exitCode != -1;
+        bot.setRunning(false);
+        bot.setBotProcess(null);
+        if (crash && byId.get(bot.getId()) == bot) {
+            crashed.add(bot);
+        }
+        events.publish(new BotEvent.Exited(bot, exitCode, stopRequested));
+        if (crash) {
+            events.publish(new BotEvent.Crashed(bot, exitCode));
+        }
+    }
+
+    /**
+     * Publishes {@link BotEvent.ConfigChanged} after the bot's configuration was edited.
+     */
+    public void markConfigChanged(Bot bot) {
+        events.publish(new BotEvent.ConfigChanged(bot));
+    }
+
+    private void onBotsChanged(ListChangeListener.Change<? extends Bot> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            if (change.wasUpdated()) {
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    updateRunning(change.getList().get(i));
+                }
+                continue;
+            }
+            // A bot both removed and added (e.g. by setAll) stayed; look it up in O(1) so setAll stays linear.
+            Set<Bot> added = identitySet(change.getAddedSubList());
+            Set<Bot> removed = identitySet(change.getRemoved());
+            for (Bot bot : change.getRemoved()) {
+                if (!added.contains(bot)) {
+                    byId.remove(bot.getId(), bot);
+                    running.remove(bot);
+                    crashed.remove(bot);
+                    events.publish(new BotEvent.Removed(bot));
+                }
+            }
+            for (Bot bot : change.getAddedSubList()) {
+                if (!removed.contains(bot)) {
+                    byId.put(bot.getId(), bot);
+                    updateRunning(bot);
+                    events.publish(new BotEvent.Added(bot));
+                }
+            }
+        }
+    }
+
+    private static Set<Bot> identitySet(Collection<? extends Bot> bots) {
+        Set<Bot> set = Collections.newSetFromMap(new IdentityHashMap<>(bots.size()));
+        set.addAll(bots);
+        return set;
+    }
+
+    private static void copyDefinition(Bot from, Bot to) {
+        to.setName(from.getName());
+        to.setDescription(from.getDescription());
+        to.setProjectPath(from.getProjectPath());
+        to.setVersion(from.getVersion());
+        to.setMainFile(from.getMainFile());
+        to.setLogLevel(from.getLogLevel());
+        to.setJvmArgs(from.getJvmArgs());
+        to.setStartupDelayMs(from.getStartupDelayMs());
+        to.setRestartPolicy(from.getRestartPolicy());
+        to.getEnvVariables().setAll(from.getEnvVariables());
+    }
+
+    private void updateRunning(Bot bot) {
+        if (bot.isRunning()) {
+            running.add(bot);
+            crashed.remove(bot);
+        } else {
+            running.remove(bot);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Substring search over the name, description and project path of every bot.
+ * <p>
+ * Each bot's fields are lower-cased once, when it is added or changed, and every three-character
+ * sequence (trigram) of them is listed in a sorted posting list of bot numbers. A query
+ * intersects the posting lists of its own trigrams, shortest first, and only checks the few
+ * remaining candidates for the full substring; queries shorter than a trigram scan the
+ * normalized text. Nothing is allocated per bot, so 10,000 bots are searched well within a frame.
+ * <p>
+ * {@link #search(String, Consumer)} debounces keystrokes and evaluates on the
+ * {@code bot-search} thread. Updates ({@link #put(Bot)}, {@link #remove(String)}) come from
+ * the thread that owns the bots.
+ */
+public class BotSearchIndex {
+
+    /** Quiet period before a query is evaluated ({@code -Dbotmanager.search.debounceMs}). */
+    public static final long SEARCH_DEBOUNCE_MS = Long.getLong("botmanager.search.debounceMs", 120);
+    private static final char FIELD_SEPARATOR = '\n';
+
+    // Guarded by this. Bot numbers index texts and ids; freed numbers are reused.
+    private final Map<String, Integer> docs = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private int[] free = new int[16];
+    private int freeCount;
+
+    private final ScheduledThreadPoolExecutor searcher;
+    private ScheduledFuture<?> pendingSearch;
+
+    public BotSearchIndex() {
+        searcher = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "bot-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        searcher.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Adds a bot, or re-indexes it after its name, description or project path changed.
+     *
+     * @return {@code false} if the bot was already indexed with the same text.
+     */
+    public synchronized boolean put(Bot bot) {
+        String text = normalize(bot.getName()) + FIELD_SEPARATOR + normalize(bot.getDescription())
+                + FIELD_SEPARATOR + normalize(bot.getProjectPath());
+        Integer existing = docs.get(bot.getId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            String previous = texts.get(doc);
+            if (previous.equals(text)) {
+                return false;
+            }
+            removeTrigrams(doc, previous);
+            texts.set(doc, text);
+        } else if (freeCount > 0) {
+            doc = free[--freeCount];
+            ids.set(doc, bot.getId());
+            texts.set(doc, text);
+            docs.put(bot.getId(), doc);
+        } else {
+            doc = ids.size();
+            ids.add(bot.getId());
+            texts.add(text);
+            docs.put(bot.getId(), doc);
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new Postings()).add(doc);
+        }
+        return true;
+    }
+
+    public synchronized void remove(String botId) {
+        Integer doc = docs.remove(botId);
+        if (doc == null) {
+            return;
+        }
+        removeTrigrams(doc, texts.get(doc));
+        ids.set(doc, null);
+        texts.set(doc, null);
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = doc;
+    }
+
+    public synchronized int size() {
+        return docs.size();
+    }
+
+    /**
+     * Evaluates {@code query} after {@link #SEARCH_DEBOUNCE_MS} without a newer call, and passes
+     * the matching ids to {@code onResult} on the search thread. A newer call replaces any
+     * query still waiting.
+     */
+    public synchronized void search(String query, Consumer<Set<String>> onResult) {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+        }
+        pendingSearch = searcher.schedule(() -> {
+            try {
+                onResult.accept(query(query));
+            } catch (RuntimeException e) {
+                System.err.println("BotSearchIndex: Search for '" + query + "' failed: " + e.getMessage());
+            }
+        }, SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Ids of the bots whose name, description or project path contains {@code query},
+     *         ignoring case; all bots for a blank query.
+     */
+    public synchronized Set<String> query(String query) {
+        String needle = normalize(query);
+        Set<String> result = new HashSet<>();
+        if (needle.length() < 3) {
+            for (int doc = 0; doc < texts.size(); doc++) {
+                String text = texts.get(doc);
+                if (text != null && text.contains(needle)) {
+                    result.add(ids.get(doc));
+                }
+            }
+            return result;
+        }
+
+        Postings[] lists = new Postings[needle.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            Postings list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return result; // some trigram occurs nowhere
+            }
+            lists[i] = list;
+        }
+        Postings shortest = lists[0];
+        for (Postings list : lists) {
+            if (list.size < shortest.size) {
+                shortest = list;
+            }
+        }
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            int doc = shortest.docs[i];
+            for (Postings list : lists) {
+                if (list != shortest && !list.contains(doc)) {
+                    continue candidates;
+                }
+            }
+            // Trigrams can match out of order; confirm the whole substring.
+            if (texts.get(doc).contains(needle)) {
+                result.add(ids.get(doc));
+            }
+        }
+        return result;
+    }
+
+    public void close() {
+        searcher.shutdownNow();
+    }
+
+    // Guarded by this.
+    private void removeTrigrams(int doc, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Long key = trigram(text, i);
+            Postings list = postings.get(key);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted bot numbers containing one trigram.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+
+        void add(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, at, docs, at + 1, size - at);
+            docs[at] = doc;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.util.IoThreads;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Fleet export file: {@code {"format":"botmanager-fleet","version":1,"bots":[...]}}, each bot
+ * written like in the snapshot (definition, env variables, JVM arguments, startup delay).
+ * <p>
+ * Both directions stream through Jackson's generator and parser one bot at a time, so the
+ * document is never held in memory as a whole; {@link #read} hands bots over in batches of
+ * {@link #BATCH_SIZE}, with their project paths checked in parallel.
+ */
+public final class FleetFile {
+
+    public static final int BATCH_SIZE = 512;
+    static final String FORMAT = "botmanager-fleet";
+    static final int VERSION = 1;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private FleetFile() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Bots read from a fleet file, in file order.
+     */
+    public static final class Batch {
+        private final List<Bot> bots;
+        private final List<Bot> missingProjectPath;
+
+        Batch(List<Bot> bots, List<Bot> missingProjectPath) {
+            this.bots = bots;
+            this.missingProjectPath = missingProjectPath;
+        }
+
+        public List<Bot> getBots() {
+            return bots;
+        }
+
+        /**
+         * @return The bots of this batch whose project directory does not exist on this host.
+         */
+        public List<Bot> getMissingProjectPath() {
+            return missingProjectPath;
+        }
+    }
+
+    static void writeStart(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("format", FORMAT);
+        generator.writeNumberField("version", VERSION);
+        generator.writeArrayFieldStart("bots");
+    }
+
+    static void writeEnd(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a fleet file on the calling thread, handing every {@link #BATCH_SIZE} bots to
+     * {@code handler} before reading on. Bots without an id get a new one.
+     *
+     * @return The number of bots read.
+     * @throws IOException If the file cannot be read or is not a fleet file.
+     */
+    public static int read(Path source, Consumer<Batch> handler) throws IOException {
+        int count = 0;
+        try (InputStream in = Files.newInputStream(source); JsonParser parser = JSON.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException(source + " is not a fleet file");
+            }
+            boolean sawFormat = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "format":
+                        if (!FORMAT.equals(parser.getValueAsString())) {
+                            throw new IOException(source + " is not a fleet file");
+                        }
+                        sawFormat = true;
+                        break;
+                    case "version":
+                        if (parser.getValueAsInt() > VERSION) {
+                            throw new IOException(source + " was written by a newer version (format " + parser.getValueAsInt() + ")");
+                        }
+                        break;
+                    case "bots":
+                        if (!sawFormat || token != JsonToken.START_ARRAY) {
+                            throw new IOException(source + " is not a fleet file");
+                        }
+                        count += readBots(parser, handler);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int readBots(JsonParser parser, Consumer<Batch> handler) throws IOException {
+        int count = 0;
+        List<BotRecord> records = new ArrayList<>(BATCH_SIZE);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            BotRecord record = BotRecord.read(parser);
+            if (record.id == null || record.id.isBlank()) {
+                record.id = UUID.randomUUID().toString();
+            }
+            records.add(record);
+            if (records.size() == BATCH_SIZE) {
+                handler.accept(toBatch(records));
+                count += records.size();
+                records.clear();
+            }
+        }
+        if (!records.isEmpty()) {
+            handler.accept(toBatch(records));
+            count += records.size();
+        }
+        return count;
+    }
+
+    /**
+     * Checks the batch's project paths concurrently (each check may block on the file system).
+     */
+    private static Batch toBatch(List<BotRecord> records) {
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>(records.size());
+        for (BotRecord record : records) {
+            checks.add(CompletableFuture.supplyAsync(() -> isDirectory(record.projectPath), IoThreads.executor()));
+        }
+        List<Bot> bots = new ArrayList<>(records.size());
+        List<Bot> missing = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            Bot bot = records.get(i).toBot();
+            bots.add(bot);
+            if (!checks.get(i).join()) {
+                missing.add(bot);
+            }
+        }
+        return new Batch(bots, missing);
+    }
+
+    private static boolean isDirectory(String path) {
+        if (path == null || path.isBlank()) {
+            return false;
+        }
+        try {
+            return Files.isDirectory(Paths.get(path));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.botmanager.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Utility class for locating the manager's own data directory.
+ * Defaults to {@code ~/.discord-bot-manager}; override with {@code -Dbotmanager.home=/some/dir}.
+ */
+public final class AppPaths {
+
+    private static final String HOME_PROPERTY = "botmanager.home";
+    private static final String DEFAULT_DIRECTORY_NAME = ".discord-bot-manager";
+
+    private AppPaths() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return The root directory for everything the manager writes at runtime.
+     */
+    public static Path getDataDirectory() {
+        String override = System.getProperty(HOME_PROPERTY);
+        if (override != null && !override.trim().isEmpty()) {
+            return Paths.get(override.trim());
+        }
+        return Paths.get(System.getProperty("user.home"), DEFAULT_DIRECTORY_NAME);
+    }
+
+    /**
+     * @return The file the bot fleet is saved to.
+     */
+    public static Path getBotConfigFile() {
+        return getDataDirectory().resolve("bots-config.json");
+    }
+
+    /**
+     * @return The directory holding every bot's log directory.
+     */
+    public static Path getLogsDirectory() {
+        return getDataDirectory().resolve("logs");
+    }
+
+    /**
+     * @param botId The bot's unique id.
+     * @return The directory holding that bot's captured output.
+     */
+    public static Path getBotLogDirectory(String botId) {
+        return getLogsDirectory().resolve(botId);
+    }
+
+    /**
+     * @param botId The bot's unique id.
+     * @return The directory holding that bot's class data sharing archive.
+     */
+    public static Path getCdsDirectory(String botId) {
+        return getDataDirectory().resolve("cds").resolve(botId);
+    }
+}
@@ -0,0 +1,249 @@
+package com.botmanager.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Per-bot AppCDS archives, opt-in with {@code -Dbotmanager.cds=true}.
+ * <p>
+ * Once a bot's jar has been keyed (see below), its next start records a dynamic archive of
+ * the classes it loaded ({@code -XX:ArchiveClassesAtExit}, written by the bot's JVM when it
+ * exits); once that run ended cleanly the archive is kept and later starts map it ({@code -XX:SharedArchiveFile})
+ * instead of loading and verifying those classes again. Archives live under
+ * {@code <data>/cds/<botId>} next to a key of the jar's path, size, modification time and
+ * CRC32C, the bot's JVM arguments and the {@code java} binary on the {@code PATH} (its real
+ * path, size and modification time, as an archive only maps into the JVM build that wrote
+ * it); when any of them changes the archive is dropped and the next start records a new
+ * one. The bots' {@code java} must be 13 or newer.
+ * <p>
+ * Starts only compare the jar's path, size and modification time with the key. When they
+ * changed, that start runs without an archive and the jar is hashed on {@link IoThreads};
+ * if its content turns out unchanged (a rebuild that produced the same jar) the archive is
+ * kept, otherwise the next start records a new one. Each bot's files are guarded by a lock
+ * of their own, so starting many bots never queues behind one bot's disk I/O.
+ */
+public final class CdsArchives {
+
+    /** Whether start commands use archives ({@code -Dbotmanager.cds}). */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("botmanager.cds", "false"));
+    private static final String ARCHIVE_FILE = "classes.jsa";
+    private static final String RECORDING_FILE = "classes.jsa.recording";
+    private static final String KEY_FILE = "classes.key";
+    private static final String RECORD_OPTION = "-XX:ArchiveClassesAtExit=";
+    private static final String SHARED_OPTION = "-XX:SharedArchiveFile=";
+    private static final String CRC_PROPERTY = "crc32c";
+
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    private static final Set<String> REKEYING = ConcurrentHashMap.newKeySet();
+
+    private CdsArchives() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * How a start command uses class data sharing.
+     */
+    public enum Mode {
+        /** No archive: classes are loaded from the jar. */
+        NONE,
+        /** The run records an archive as it exits. */
+        RECORDING,
+        /** The run maps a recorded archive. */
+        SHARED
+    }
+
+    /**
+     * @return The JVM options that record or use the bot's archive, or none if archives are
+     *         disabled, the bot's own arguments already set up CDS, or the cache is unusable.
+     */
+    static List<String> options(String botId, Path jar, String jvmArgs) {
+        if (!ENABLED || (jvmArgs != null && (jvmArgs.contains("-XX:SharedArchiveFile") || jvmArgs.contains("-XX:ArchiveClassesAtExit")
+                || jvmArgs.contains("-Xshare:off")))) {
+            return Collections.emptyList();
+        }
+        Path directory = AppPaths.getCdsDirectory(botId);
+        synchronized (lock(botId)) {
+            try {
+                Properties key = keyOf(jar, jvmArgs);
+                Properties stored = readKey(directory.resolve(KEY_FILE));
+                if (stored == null || !key.equals(withoutCrc(stored))) {
+                    if (REKEYING.add(botId)) {
+                        IoThreads.execute(() -> rekey(botId, jar, key));
+                    }
+                    return Collections.emptyList();
+                }
+                Path archive = directory.resolve(ARCHIVE_FILE);
+                if (Files.isRegularFile(archive)) {
+                    return List.of(SHARED_OPTION + archive.toAbsolutePath());
+                }
+                return List.of(RECORD_OPTION + directory.resolve(RECORDING_FILE).toAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("CdsArchives: Cannot prepare the class archive for bot " + botId + ": " + e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    /**
+     * Hashes the jar and writes its key, dropping the archive unless the content is unchanged.
+     */
+    private static void rekey(String botId, Path jar, Properties key) {
+        try {
+            String crc = crcOf(jar);
+            Path directory = AppPaths.getCdsDirectory(botId);
+            synchronized (lock(botId)) {
+                Files.createDirectories(directory);
+                Properties stored = readKey(directory.resolve(KEY_FILE));
+                boolean sameContent = stored != null && crc.equals(stored.getProperty(CRC_PROPERTY))
+                        && Objects.equals(stored.getProperty("jar"), key.getProperty("jar"))
+                        && Objects.equals(stored.getProperty("jvmArgs"), key.getProperty("jvmArgs"))
+                        && Objects.equals(stored.getProperty("java"), key.getProperty("java"));
+                if (!sameContent) {
+                    Files.deleteIfExists(directory.resolve(ARCHIVE_FILE));
+                    Files.deleteIfExists(directory.resolve(RECORDING_FILE));
+                }
+                Properties updated = new Properties();
+                updated.putAll(key);
+                updated.setProperty(CRC_PROPERTY, crc);
+                writeKey(directory.resolve(KEY_FILE), updated);
+            }
+        } catch (IOException e) {
+            System.err.println("CdsArchives: Cannot prepare the class archive for bot " + botId + ": " + e.getMessage());
+        } finally {
+            REKEYING.remove(botId);
+        }
+    }
+
+    /**
+     * @return How a start command generated by {@link CommandGenerator} uses class data sharing.
+     */
+    public static Mode modeOf(List<String> command) {
+        for (String part : command) {
+            if (part.startsWith(SHARED_OPTION)) {
+                return Mode.SHARED;
+            }
+            if (part.startsWith(RECORD_OPTION)) {
+                return Mode.RECORDING;
+            }
+        }
+        return Mode.NONE;
+    }
+
+    /**
+     * Keeps the archive a {@link Mode#RECORDING recording} run wrote at exit, or discards it if
+     * the run was killed (the JVM may have been writing it).
+     */
+    public static void finishRecording(String botId, boolean exitedCleanly) {
+        Path directory = AppPaths.getCdsDirectory(botId);
+        Path recording = directory.resolve(RECORDING_FILE);
+        synchronized (lock(botId)) {
+            try {
+                if (!exitedCleanly || !Files.isRegularFile(recording) || Files.size(recording) == 0) {
+                    Files.deleteIfExists(recording);
+                    return;
+                }
+                Path archive = directory.resolve(ARCHIVE_FILE);
+                try {
+                    Files.move(recording, archive, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(recording, archive, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                System.err.println("CdsArchives: Cannot keep the class archive for bot " + botId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Object lock(String botId) {
+        return LOCKS.computeIfAbsent(botId, id -> new Object());
+    }
+
+    /**
+     * @return The key without the jar's checksum, which only {@link #rekey} computes.
+     */
+    private static Properties keyOf(Path jar, String jvmArgs) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        Properties key = new Properties();
+        key.setProperty("jar", jar.toAbsolutePath().toString());
+        key.setProperty("size", Long.toString(attributes.size()));
+        key.setProperty("modified", Long.toString(attributes.lastModifiedTime().toMillis()));
+        key.setProperty("jvmArgs", Objects.toString(jvmArgs, "").trim());
+        key.setProperty("java", javaBinaryKey());
+        return key;
+    }
+
+    private static Properties withoutCrc(Properties stored) {
+        Properties key = new Properties();
+        key.putAll(stored);
+        key.remove(CRC_PROPERTY);
+        return key;
+    }
+
+    private static String crcOf(Path jar) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(jar)) {
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * @return The real path, size and modification time of the {@code java} that start commands
+     *         run, which changes with every JDK update or switch, or {@code "unknown"}.
+     */
+    private static String javaBinaryKey() {
+        String name = System.getProperty("os.name", "").startsWith("Windows") ? "java.exe" : "java";
+        for (String directory : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+            try {
+                Path java = Paths.get(directory, name);
+                if (Files.isRegularFile(java) && Files.isExecutable(java)) {
+                    Path real = java.toRealPath();
+                    BasicFileAttributes attributes = Files.readAttributes(real, BasicFileAttributes.class);
+                    return real + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Unusable PATH entry: keep looking.
+            }
+        }
+        return "unknown";
+    }
+
+    private static Properties readKey(Path path) throws IOException {
+        Properties key = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            key.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return key;
+    }
+
+    private static void writeKey(Path path, Properties key) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            key.store(out, "Class archive key; the archive is dropped when this no longer matches");
+        }
+    }
+}
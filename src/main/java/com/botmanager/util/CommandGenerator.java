@@ -7,6 +7,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,23 +15,31 @@ import java.util.List;
  */
 public final class CommandGenerator {
 
-    private static final String TARGET_SUBDIRECTORY = "target";
-    private static final String DEFAULT_JAR_FILENAME_PATTERN = "%s-1.0-SNAPSHOT.jar";
-
     private CommandGenerator() {
         throw new IllegalStateException("Utility class");
     }
 
     /**
      * Generates the command list to start a Java-based bot using an executable JAR.
+     * With {@link CdsArchives#ENABLED} the command also records or maps the bot's class archive.
      *
      * @param bot The bot for which to generate the start command.
-     *            Must not be null and must have a valid project path and name.
+     *            Must not be null and must have a valid project path.
      * @return A list of strings representing the command and its arguments (e.g., ["java", "-jar", "path/to/bot.jar"]).
      *         Returns {@code null} if the bot's configuration is invalid, project path doesn't exist,
-     *         or the bot's JAR file cannot be found.
+     *         or the project has no executable JAR (see {@link JarResolver}).
      */
     public static List<String> generateJavaJarStartCommand(MainController.Bot bot) {
+        return generateJavaJarStartCommand(bot, Collections.emptyList());
+    }
+
+    /**
+     * Generates the start command with extra JVM options (e.g. heap limits planned for the bot)
+     * placed after the bot's own JVM arguments.
+     *
+     * @see #generateJavaJarStartCommand(MainController.Bot)
+     */
+    public static List<String> generateJavaJarStartCommand(MainController.Bot bot, List<String> plannedJvmOptions) {
         if (bot == null) {
             System.err.println("CommandGenerator: Bot object is null.");
             return null;
@@ -39,10 +48,6 @@ public final class CommandGenerator {
             System.err.println("CommandGenerator: Bot project path is null or empty for bot: " + bot.getName());
             return null;
         }
-        if (bot.getName() == null || bot.getName().trim().isEmpty()) {
-            System.err.println("CommandGenerator: Bot name is null or empty, cannot determine JAR name.");
-            return null;
-        }
 
         Path projectPathDir = Paths.get(bot.getProjectPath());
         if (!Files.isDirectory(projectPathDir)) {
@@ -50,11 +55,9 @@ public final class CommandGenerator {
             return null;
         }
 
-        String jarFileName = String.format(DEFAULT_JAR_FILENAME_PATTERN, bot.getName());
-        Path botJarPath = projectPathDir.resolve(TARGET_SUBDIRECTORY).resolve(jarFileName);
-
-        if (!Files.exists(botJarPath) || !Files.isRegularFile(botJarPath)) {
-            System.err.println("CommandGenerator: Bot JAR file not found or is not a regular file at: " + botJarPath);
+        Path botJarPath = JarResolver.resolve(bot);
+        if (botJarPath == null) {
+            System.err.println("CommandGenerator: No executable JAR (with a Main-Class) in target/ or build/libs/ of: " + projectPathDir);
             return null;
         }
 
@@ -66,6 +69,8 @@ public final class CommandGenerator {
             String[] individualJvmArgs = jvmArgs.trim().split("\\s+");
             command.addAll(Arrays.asList(individualJvmArgs));
         }
+        command.addAll(plannedJvmOptions);
+        command.addAll(CdsArchives.options(bot.getId(), botJarPath, jvmArgs));
 
         command.add("-jar");
         command.add(botJarPath.toString());
@@ -75,18 +80,14 @@ public final class CommandGenerator {
     }
 
     /**
-     * Helper method to get the expected path of the bot's JAR file.
+     * Helper method to get the path of the bot's JAR file.
      * Useful for constructing error messages in the UI.
      *
      * @param bot The bot.
-     * @return The expected Path to the JAR file, or null if bot/path info is invalid.
+     * @return The executable JAR {@link JarResolver} picks for the bot, or null if bot/path info
+     *         is invalid or the project has not been built.
      */
     public static Path getExpectedJarPath(MainController.Bot bot) {
-        if (bot == null || bot.getProjectPath() == null || bot.getProjectPath().trim().isEmpty() ||
-                bot.getName() == null || bot.getName().trim().isEmpty()) {
-            return null;
-        }
-        String jarFileName = String.format(DEFAULT_JAR_FILENAME_PATTERN, bot.getName());
-        return Paths.get(bot.getProjectPath(), TARGET_SUBDIRECTORY, jarFileName);
+        return JarResolver.resolve(bot);
     }
-}
\ No newline at end of file
+}
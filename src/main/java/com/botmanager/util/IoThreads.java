@@ -0,0 +1,79 @@
+package com.botmanager.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executor for short blocking I/O work: stdin writes, JMX polls, project
+ * generation, update downloads. Bot output is not read here but by the process
+ * manager's own poller thread, so quiet bots never occupy this executor.
+ * <p>
+ * On Java 21+ every task gets its own virtual thread, costing a few kilobytes instead
+ * of a platform thread with a 1 MB stack. The virtual-thread
+ * API is looked up reflectively, which lets the Java 17 build use it whenever the
+ * runtime supports it.
+ * On older runtimes, or with {@code -Dbotmanager.io.virtualThreads=false}, tasks run on
+ * a cached pool of daemon platform threads with small stacks.
+ */
+public final class IoThreads {
+
+    private static final long PLATFORM_STACK_BYTES = 256 * 1024;
+
+    private static final boolean VIRTUAL;
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ExecutorService virtual = Boolean.parseBoolean(System.getProperty("botmanager.io.virtualThreads", "true"))
+                ? createVirtualExecutor() : null;
+        VIRTUAL = virtual != null;
+        EXECUTOR = virtual != null ? virtual : createPlatformExecutor();
+    }
+
+    private IoThreads() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Runs a (possibly long-blocking) task on the I/O executor.
+     */
+    public static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * @return {@code true} if tasks run on virtual threads.
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "bot-io-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Pre-21 runtime (or preview disabled): fall back to platform threads.
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(null, r, "bot-io-" + count.incrementAndGet(), PLATFORM_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
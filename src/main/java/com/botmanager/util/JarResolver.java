@@ -0,0 +1,167 @@
+package com.botmanager.util;
+
+import com.botmanager.controller.MainController;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Finds a bot's executable jar among its build outputs ({@code target/} for Maven,
+ * {@code build/libs/} for Gradle).
+ * <p>
+ * A jar qualifies if its manifest names a {@code Main-Class}. Among several, one whose main
+ * class matches the bot's main file wins, then the largest (a shaded jar over the thin one
+ * it was built from), then the newest. The choice is cached per bot and reused while the
+ * output directories' and the chosen jar's modification times are unchanged, so repeated
+ * lookups cost a few file stats and open no jar. A directory modified within the last
+ * {@link #MTIME_GRANULARITY_MS} is not cached, as a later change could keep the same time.
+ */
+public final class JarResolver {
+
+    private static final String[] OUTPUT_DIRECTORIES = {"target", "build/libs"};
+    private static final long MTIME_GRANULARITY_MS = 2000;
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+    private JarResolver() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static final class Entry {
+        final String projectPath;
+        final String mainFile;
+        final long[] directoryTimes;
+        final Path jar;
+        final long jarTime;
+
+        Entry(String projectPath, String mainFile, long[] directoryTimes, Path jar, long jarTime) {
+            this.projectPath = projectPath;
+            this.mainFile = mainFile;
+            this.directoryTimes = directoryTimes;
+            this.jar = jar;
+            this.jarTime = jarTime;
+        }
+    }
+
+    /**
+     * @return The bot's executable jar, or {@code null} if its project has none (not built yet).
+     */
+    public static Path resolve(MainController.Bot bot) {
+        if (bot == null || bot.getProjectPath() == null || bot.getProjectPath().trim().isEmpty()) {
+            return null;
+        }
+        Path project = Paths.get(bot.getProjectPath());
+        long[] times = new long[OUTPUT_DIRECTORIES.length];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = modifiedTime(project.resolve(OUTPUT_DIRECTORIES[i]));
+        }
+        Entry cached = CACHE.get(bot.getId());
+        if (cached != null && cached.projectPath.equals(bot.getProjectPath()) && Objects.equals(cached.mainFile, bot.getMainFile())
+                && Arrays.equals(cached.directoryTimes, times)
+                && (cached.jar == null || modifiedTime(cached.jar) == cached.jarTime)) {
+            return cached.jar;
+        }
+
+        Path jar = scan(project, mainClassName(bot.getMainFile()));
+        long now = System.currentTimeMillis();
+        boolean settled = true;
+        for (long time : times) {
+            settled &= now - time >= MTIME_GRANULARITY_MS;
+        }
+        if (settled) {
+            CACHE.put(bot.getId(), new Entry(bot.getProjectPath(), bot.getMainFile(), times, jar, jar != null ? modifiedTime(jar) : -1));
+        } else {
+            CACHE.remove(bot.getId());
+        }
+        return jar;
+    }
+
+    /**
+     * Drops a bot's cached choice, e.g. once the bot is removed.
+     */
+    public static void forget(String botId) {
+        if (botId != null) {
+            CACHE.remove(botId);
+        }
+    }
+
+    private static Path scan(Path project, String mainClass) {
+        Path best = null;
+        boolean bestMatches = false;
+        long bestSize = -1;
+        long bestTime = -1;
+        for (String directory : OUTPUT_DIRECTORIES) {
+            try (DirectoryStream<Path> jars = Files.newDirectoryStream(project.resolve(directory), "*.jar")) {
+                for (Path jar : jars) {
+                    String name = jar.getFileName().toString();
+                    if (name.startsWith("original-") || name.endsWith("-sources.jar") || name.endsWith("-javadoc.jar")) {
+                        continue;
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+                    String jarMainClass = attributes.isRegularFile() ? readMainClass(jar) : null;
+                    if (jarMainClass == null) {
+                        continue;
+                    }
+                    boolean matches = mainClass != null
+                            && (jarMainClass.equals(mainClass) || jarMainClass.endsWith("." + mainClass));
+                    long size = attributes.size();
+                    long time = attributes.lastModifiedTime().toMillis();
+                    if (best == null || Boolean.compare(matches, bestMatches) > 0
+                            || (matches == bestMatches && (size > bestSize || (size == bestSize && time > bestTime)))) {
+                        best = jar;
+                        bestMatches = matches;
+                        bestSize = size;
+                        bestTime = time;
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // This build tool's output directory does not exist.
+            } catch (IOException e) {
+                System.err.println("JarResolver: Cannot list " + project.resolve(directory) + ": " + e.getMessage());
+            }
+        }
+        return best;
+    }
+
+    private static String readMainClass(Path jar) {
+        try (JarFile file = new JarFile(jar.toFile(), false)) {
+            Manifest manifest = file.getManifest();
+            String mainClass = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS) : null;
+            return mainClass != null && !mainClass.isBlank() ? mainClass.trim() : null;
+        } catch (IOException e) {
+            return null; // not a readable jar
+        }
+    }
+
+    /**
+     * @return {@code "Main"} for a main file such as {@code "Main.java"} or {@code "src/Main.kt"}, or {@code null}.
+     */
+    private static String mainClassName(String mainFile) {
+        if (mainFile == null || mainFile.isBlank()) {
+            return null;
+        }
+        String name = mainFile.trim();
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static long modifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
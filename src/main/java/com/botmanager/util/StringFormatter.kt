@@ -14,4 +14,17 @@ object StringFormatter {
     fun getGreeting(name: String): String {
         return "Hello, $name from Bot Manager!"
     }
-}
\ No newline at end of file
+
+    @JvmStatic
+    fun formatBytes(bytes: Long): String {
+        if (bytes < 1024) return "$bytes B"
+        val units = arrayOf("KB", "MB", "GB", "TB")
+        var value = bytes / 1024.0
+        var unit = 0
+        while (value >= 1024 && unit < units.size - 1) {
+            value /= 1024
+            unit++
+        }
+        return String.format("%.1f %s", value, units[unit])
+    }
+}
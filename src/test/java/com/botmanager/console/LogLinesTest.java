@@ -0,0 +1,166 @@
+package com.botmanager.console;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogLinesTest {
+
+    /** 12:34:56.789 */
+    private static final int TIME_OF_DAY_MS = ((12 * 60 + 34) * 60 + 56) * 1000 + 789;
+
+    @Test
+    void parsesBotGeneratorPattern() {
+        // %d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n
+        String line = "12:34:56.789 [main] INFO  com.example.Bot - started";
+        long meta = parse(line);
+        assertTrue(LogLines.isOutput(meta));
+        assertEquals(LogLevel.INFO, LogLines.level(meta));
+        assertEquals(TIME_OF_DAY_MS, LogLines.timeOfDayMs(meta));
+        assertEquals("com.example.Bot", logger(line, meta));
+
+        String error = "12:34:56.789 [pool-1-thread-3] ERROR c.e.Bot - failed";
+        assertEquals(LogLevel.ERROR, LogLines.level(parse(error)));
+        assertEquals("c.e.Bot", logger(error, parse(error)));
+
+        String dated = "2026-10-18 12:34:56,789 [main] WARN  com.example.Bot - slow";
+        assertEquals(LogLevel.WARN, LogLines.level(parse(dated)));
+        assertEquals(TIME_OF_DAY_MS, LogLines.timeOfDayMs(parse(dated)));
+        assertEquals("com.example.Bot", logger(dated, parse(dated)));
+    }
+
+    @Test
+    void threadNameMayContainBracket() {
+        String line = "12:34:56.789 [worker] 1] DEBUG com.example.Bot - tick";
+        long meta = parse(line);
+        assertEquals(LogLevel.DEBUG, LogLines.level(meta));
+        assertEquals("com.example.Bot", logger(line, meta));
+    }
+
+    @Test
+    void linesWithoutHeaderAreOnlyMarkedAsOutput() {
+        for (String line : List.of("", "hello", "\tat com.example.Bot.run(Bot.java:12)",
+                "java.lang.IllegalStateException: boom", "12:34:56.789 INFO com.example.Bot - no thread",
+                "25:00:00.000 [main] INFO  com.example.Bot - bad hour", "12:34:56.789 [main] NOTICE x - unknown level")) {
+            long meta = parse(line);
+            assertTrue(LogLines.isOutput(meta), line);
+            assertNull(LogLines.level(meta), line);
+            assertEquals(0, LogLines.loggerLength(meta), line);
+            assertEquals(-1, LogLines.timeOfDayMs(meta), line);
+        }
+        assertFalse(LogLines.isOutput(LogLines.NONE));
+    }
+
+    @Test
+    void truncatedHeadersNeverReadPastTheLine() {
+        String line = "2026-10-18 12:34:56.789 [main] INFO  com.example.Bot - started";
+        int levelEnd = line.indexOf("INFO") + "INFO".length();
+        int dash = line.indexOf(" - ") + 1;
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        for (int length = 0; length <= bytes.length; length++) {
+            long meta = LogLines.parse(Arrays.copyOf(bytes, length), length);
+            String prefix = line.substring(0, length);
+            assertTrue(LogLines.isOutput(meta), prefix);
+            assertEquals(length >= levelEnd ? LogLevel.INFO : null, LogLines.level(meta), prefix);
+            assertEquals(length >= levelEnd ? TIME_OF_DAY_MS : -1, LogLines.timeOfDayMs(meta), prefix);
+            assertEquals(length > dash ? "com.example.Bot".length() : 0, LogLines.loggerLength(meta), prefix);
+        }
+    }
+
+    @Test
+    void multiByteCharactersBeforeTheLevelDropOnlyTheLogger() {
+        String line = "12:34:56.789 [wörker-ß] INFO  com.example.Bot - started";
+        long meta = parse(line);
+        assertEquals(LogLevel.INFO, LogLines.level(meta));
+        assertEquals(TIME_OF_DAY_MS, LogLines.timeOfDayMs(meta));
+        assertEquals(0, LogLines.loggerLength(meta)); // byte offsets would not match char offsets
+
+        String message = "12:34:56.789 [main] INFO  com.example.Bot - grüße";
+        assertEquals("com.example.Bot", logger(message, parse(message)));
+    }
+
+    @Test
+    void shiftMovesTheLogger() {
+        String line = "12:34:56.789 [main] INFO  com.example.Bot - started";
+        long meta = LogLines.shift(parse(line), 4);
+        assertEquals("com.example.Bot", logger("[x] " + line, meta));
+        assertEquals(LogLevel.INFO, LogLines.level(meta));
+    }
+
+    @Test
+    void filteredViewFiltersByLevelAndLoggerPrefix() {
+        ConsoleLineStore store = new ConsoleLineStore();
+        append(store, List.of(
+                "10:00:00.000 [main] DEBUG com.example.db.Pool - opened",
+                "10:00:00.001 [main] INFO  com.example.Bot - ready",
+                "10:00:00.002 [main] WARN  com.example.db.Pool - slow query",
+                "java.sql.SQLException: timeout",
+                "\tat com.example.db.Pool.get(Pool.java:42)",
+                "10:00:00.003 [main] DEBUG com.example.Bot - tick",
+                "\tat com.example.Bot.tick(Bot.java:7)",
+                "10:00:00.004 [main] ERROR com.other.Job - failed"));
+        store.appendAll(List.of("Bot started"), null); // written by the manager
+        FilteredConsoleView view = new FilteredConsoleView(store);
+        assertEquals(9, view.size());
+
+        view.setFilter(LogLevel.INFO, "");
+        assertEquals(List.of(
+                "10:00:00.001 [main] INFO  com.example.Bot - ready",
+                "10:00:00.002 [main] WARN  com.example.db.Pool - slow query",
+                "java.sql.SQLException: timeout",
+                "\tat com.example.db.Pool.get(Pool.java:42)",
+                "10:00:00.004 [main] ERROR com.other.Job - failed",
+                "Bot started"), new ArrayList<>(view));
+
+        view.setFilter(null, " com.example.db ");
+        assertEquals(List.of(
+                "10:00:00.000 [main] DEBUG com.example.db.Pool - opened",
+                "10:00:00.002 [main] WARN  com.example.db.Pool - slow query",
+                "java.sql.SQLException: timeout",
+                "\tat com.example.db.Pool.get(Pool.java:42)",
+                "Bot started"), new ArrayList<>(view));
+
+        view.setFilter(LogLevel.WARN, "com.example");
+        append(store, List.of(
+                "10:00:01.000 [main] TRACE com.example.Bot - hidden",
+                "  continued",
+                "10:00:01.001 [main] ERROR com.example.Bot - shown",
+                "  continued"));
+        assertEquals(List.of(
+                "10:00:00.002 [main] WARN  com.example.db.Pool - slow query",
+                "java.sql.SQLException: timeout",
+                "\tat com.example.db.Pool.get(Pool.java:42)",
+                "Bot started",
+                "10:00:01.001 [main] ERROR com.example.Bot - shown",
+                "  continued"), new ArrayList<>(view));
+
+        view.setFilter(null, "");
+        assertEquals(13, view.size());
+    }
+
+    /** Appends bot output, each line with the header the output pump would attach. */
+    private static void append(ConsoleLineStore store, List<String> lines) {
+        long[] meta = new long[lines.size()];
+        for (int i = 0; i < meta.length; i++) {
+            meta[i] = parse(lines.get(i));
+        }
+        store.appendAll(lines, meta);
+    }
+
+    private static long parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return LogLines.parse(bytes, bytes.length);
+    }
+
+    private static String logger(String line, long meta) {
+        return line.substring(LogLines.loggerStart(meta), LogLines.loggerStart(meta) + LogLines.loggerLength(meta));
+    }
+}
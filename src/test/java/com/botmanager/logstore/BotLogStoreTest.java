@@ -0,0 +1,141 @@
+package com.botmanager.logstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BotLogStoreTest {
+
+    /** Eight lines of {@link #line(int)} per segment. */
+    private static final long SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopeningDropsTornLastLine() throws IOException {
+        try (BotLogStore store = BotLogStore.open(directory)) {
+            store.append("alpha");
+            store.append("beta");
+            store.append("gamma");
+        }
+        Path data = new LogSegment(directory, 0).getDataPath();
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3); // crash in the middle of "gamma\n"
+        }
+
+        try (BotLogStore store = BotLogStore.open(directory)) {
+            assertEquals(2, store.getLineCount());
+            assertEquals("alpha", store.readLine(0));
+            assertEquals("beta", store.readLine(1));
+            assertNull(store.readLine(2));
+            assertEquals(2L * Integer.BYTES, Files.size(new LogSegment(directory, 0).getTimePath()));
+
+            store.append("delta");
+            assertEquals("delta", store.readLine(2));
+        }
+        assertEquals("alpha\nbeta\ndelta\n", Files.readString(data));
+    }
+
+    @Test
+    void reopeningPadsMissingLineTimes() throws IOException {
+        try (BotLogStore store = BotLogStore.open(directory)) {
+            store.append("one");
+            store.append("two");
+            store.append("three");
+        }
+        Path times = new LogSegment(directory, 0).getTimePath();
+        try (FileChannel channel = FileChannel.open(times, StandardOpenOption.WRITE)) {
+            channel.truncate(Integer.BYTES); // only the first line's time reached the disk
+        }
+
+        try (BotLogStore store = BotLogStore.open(directory)) {
+            assertEquals(3, store.getLineCount());
+            assertEquals(3L * Integer.BYTES, Files.size(times));
+            assertTrue(store.getLineTime(0) > 0);
+            assertEquals(0, store.getLineTime(1));
+            assertEquals(0, store.getLineTime(2));
+
+            store.append("four");
+            assertTrue(store.getLineTime(3) > 0);
+            assertEquals("three", store.readLine(2));
+        }
+    }
+
+    @Test
+    void reopeningContinuesAfterCompressedNewestSegment() throws IOException {
+        try (BotLogStore store = BotLogStore.open(directory, SEGMENT_BYTES)) {
+            appendLines(store, 0, 20);
+            store.compressSealed();
+        }
+        // Lose the active segment, as if it had never been created.
+        LogSegment active = new LogSegment(directory, 16);
+        Files.delete(active.getDataPath());
+        Files.delete(active.getTimePath());
+        assertTrue(Files.exists(new LogSegment(directory, 8).getCompressedPath()));
+
+        try (BotLogStore store = BotLogStore.open(directory, SEGMENT_BYTES)) {
+            assertEquals(16, store.getLineCount());
+            assertEquals(line(3), store.readLine(3));
+            assertEquals(line(15), store.readLine(15));
+
+            store.append("after");
+            assertEquals(17, store.getLineCount());
+            assertEquals("after", store.readLine(16));
+            assertEquals(line(15), store.readLine(15));
+        }
+    }
+
+    @Test
+    void lineNumbersSurviveRolloverAndEviction() throws IOException {
+        try (BotLogStore store = BotLogStore.open(directory, SEGMENT_BYTES)) {
+            appendLines(store, 0, 30);
+            for (int i = 0; i < 30; i++) {
+                assertEquals(line(i), store.readLine(i));
+            }
+            assertEquals(0, store.getFirstLineNumber());
+
+            int[] evictions = new int[1];
+            store.addEvictionListener(() -> evictions[0]++);
+            assertTrue(store.evictOldest() > 0);
+            assertEquals(1, evictions[0]);
+            assertEquals(8, store.getFirstLineNumber());
+            assertEquals(30, store.getLineCount());
+            assertNull(store.readLine(0));
+            assertNull(store.readLine(7));
+            assertEquals(line(8), store.readLine(8));
+
+            appendLines(store, 30, 35);
+            assertEquals(line(34), store.readLine(34));
+        }
+
+        try (BotLogStore store = BotLogStore.open(directory, SEGMENT_BYTES)) {
+            assertEquals(35, store.getLineCount());
+            assertEquals(8, store.getFirstLineNumber());
+            assertNull(store.readLine(0));
+            assertEquals(line(8), store.readLine(8));
+            assertEquals(line(29), store.readLine(29));
+            assertEquals(line(34), store.readLine(34));
+        }
+    }
+
+    private static void appendLines(BotLogStore store, int from, int to) {
+        for (int i = from; i < to; i++) {
+            store.append(line(i));
+        }
+    }
+
+    /** @return Seven characters, eight bytes with the line break. */
+    private static String line(int number) {
+        return String.format("line-%02d", number);
+    }
+}
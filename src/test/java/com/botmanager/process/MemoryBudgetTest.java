@@ -0,0 +1,136 @@
+package com.botmanager.process;
+
+import com.botmanager.controller.MainController.Bot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void plansDefaultFootprintForUnseenBot() throws IOException {
+        MemoryBudget budget = budget(8192);
+        MemoryBudget.Plan plan = budget.reserve(bot("a", null));
+        assertEquals(MemoryBudget.DEFAULT_FOOTPRINT_MB * MB, plan.getFootprintBytes());
+        assertEquals(List.of("-Xmx307m", "-XX:MaxMetaspaceSize=76m", "-Xss512k", "-XX:+UseSerialGC"), plan.getJvmOptions());
+        assertNull(plan.getWarning());
+        assertEquals(plan.getFootprintBytes(), budget.getCommittedBytes());
+    }
+
+    @Test
+    void sizesFromPeakResidentSizeWithHeadroom() throws IOException {
+        MemoryBudget budget = budget(8192);
+        budget.observe("a", 700 * MB, 800 * MB);
+        MemoryBudget.Plan plan = budget.reserve(bot("a", null));
+        assertEquals(1000 * MB, plan.getFootprintBytes());
+        assertEquals("-Xmx600m", plan.getJvmOptions().get(0));
+    }
+
+    @Test
+    void explicitHeapSetsFootprintAndIsLeftAlone() throws IOException {
+        MemoryBudget budget = budget(8192);
+        MemoryBudget.Plan plan = budget.reserve(bot("a", "-Xmx600m"));
+        assertEquals(1000, plan.getFootprintBytes() / MB);
+        assertEquals(List.of("-XX:MaxMetaspaceSize=150m", "-Xss512k", "-XX:+UseSerialGC"), plan.getJvmOptions());
+
+        MemoryBudget.Plan large = budget.reserve(bot("b", "-XX:MaxHeapSize=2g"));
+        assertEquals(3413, large.getFootprintBytes() / MB);
+        assertEquals(List.of("-XX:MaxMetaspaceSize=256m", "-Xss512k"), large.getJvmOptions());
+    }
+
+    @Test
+    void keepsOptionsTheBotAlreadySets() throws IOException {
+        MemoryBudget.Plan plan = budget(8192).reserve(
+                bot("a", " -XX:MaxRAMPercentage=50 -XX:ThreadStackSize=1024  -XX:MaxMetaspaceSize=128m -XX:+UseG1GC "));
+        assertEquals(List.of(), plan.getJvmOptions());
+        assertEquals(MemoryBudget.DEFAULT_FOOTPRINT_MB * MB, plan.getFootprintBytes());
+    }
+
+    @Test
+    void shrinksToWhatIsLeft() throws IOException {
+        MemoryBudget budget = budget(1000);
+        budget.reserve(bot("a", null));
+        MemoryBudget.Plan plan = budget.reserve(bot("b", null));
+        assertEquals(488 * MB, plan.getFootprintBytes());
+        assertEquals("-Xmx292m", plan.getJvmOptions().get(0));
+        assertTrue(plan.getWarning().startsWith("b gets 488"), plan.getWarning());
+        assertEquals(1000 * MB, budget.getCommittedBytes());
+    }
+
+    @Test
+    void warnsInsteadOfShrinkingAnExplicitHeap() throws IOException {
+        MemoryBudget budget = budget(1000);
+        budget.reserve(bot("a", null));
+        MemoryBudget.Plan plan = budget.reserve(bot("b", "-Xmx600m"));
+        assertEquals(1000, plan.getFootprintBytes() / MB);
+        assertTrue(plan.getWarning().contains("-Xmx implies"), plan.getWarning());
+    }
+
+    @Test
+    void refusesBelowMinimumFootprint() throws IOException {
+        long minimum = MemoryBudget.MIN_FOOTPRINT_MB;
+        MemoryBudget budget = budget(MemoryBudget.DEFAULT_FOOTPRINT_MB + minimum - 1);
+        MemoryBudget.Plan first = budget.reserve(bot("a", null));
+        IOException refused = assertThrows(IOException.class, () -> budget.reserve(bot("b", null)));
+        assertTrue(refused.getMessage().startsWith("Starting b would overcommit memory"), refused.getMessage());
+        assertTrue(refused.getMessage().contains("% of the test limit"), refused.getMessage());
+
+        // Restarting a bot does not count its own reservation against it, and replaces it.
+        MemoryBudget.Plan restarted = budget.reserve(bot("a", null));
+        assertEquals(first.getFootprintBytes(), restarted.getFootprintBytes());
+        budget.release(first);
+        assertEquals(restarted.getFootprintBytes(), budget.getCommittedBytes());
+
+        budget.release(restarted);
+        assertEquals(MemoryBudget.DEFAULT_FOOTPRINT_MB * MB, budget.reserve(bot("b", null)).getFootprintBytes());
+    }
+
+    @Test
+    void residentSizeAboveReservationCounts() throws IOException {
+        MemoryBudget budget = budget(900);
+        MemoryBudget.Plan plan = budget.reserve(bot("a", null));
+        budget.observe("a", 800 * MB, 800 * MB);
+        assertEquals(800 * MB, budget.getCommittedBytes());
+        assertThrows(IOException.class, () -> budget.reserve(bot("b", null)));
+
+        budget.release(plan);
+        assertEquals(0, budget.getCommittedBytes());
+    }
+
+    @Test
+    void unknownBudgetAppliesNoLimits() throws IOException {
+        MemoryBudget.Plan plan = new MemoryBudget(-1, "test limit").reserve(bot("a", null));
+        assertEquals(0, plan.getFootprintBytes());
+        assertEquals(List.of(), plan.getJvmOptions());
+    }
+
+    @Test
+    void parsesJvmSizes() {
+        assertEquals(512, MemoryBudget.parseSize("512")); // no unit means bytes, as for the JVM
+        assertEquals(512 * 1024, MemoryBudget.parseSize("512k"));
+        assertEquals(512 * MB, MemoryBudget.parseSize("512M"));
+        assertEquals(2048 * MB, MemoryBudget.parseSize("2g"));
+        assertEquals(1L << 40, MemoryBudget.parseSize("1T"));
+        assertEquals(-1, MemoryBudget.parseSize(""));
+        assertEquals(-1, MemoryBudget.parseSize("m"));
+        assertEquals(-1, MemoryBudget.parseSize("lots"));
+    }
+
+    private static MemoryBudget budget(long megabytes) {
+        return new MemoryBudget(megabytes * MB, "test limit");
+    }
+
+    private static Bot bot(String id, String jvmArgs) {
+        Bot bot = new Bot(id, id, "", "/tmp/" + id, "1.0", "Main.java", "INFO", false);
+        bot.setJvmArgs(jvmArgs);
+        return bot;
+    }
+}
@@ -0,0 +1,145 @@
+package com.botmanager.registry;
+
+import com.botmanager.controller.MainController.Bot;
+import com.botmanager.controller.MainController.EnvVariable;
+import com.botmanager.process.RestartPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BotConfigStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayDropsTornLastJournalRecord() throws Exception {
+        Path file = directory.resolve("bots-config.json");
+        Path journal = directory.resolve("bots-config.journal");
+        BotConfigStore store = new BotConfigStore(file);
+        store.load().get();
+        Bot bot = bot("b1", "First");
+        store.markDirty(bot);
+        store.compact().get();
+        bot.setVersion("2.0");
+        store.markDirty(bot);
+        store.flush().get();
+        long intact = Files.size(journal);
+        bot.setName("Renamed");
+        store.markDirty(bot);
+        store.close();
+
+        // A crash halfway through the last record.
+        byte[] content = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(content, (int) (intact + (content.length - intact) / 2)));
+
+        store = new BotConfigStore(file);
+        List<Bot> loaded = store.load().get();
+        assertEquals(1, loaded.size());
+        assertEquals("First", loaded.get(0).getName());
+        assertEquals("2.0", loaded.get(0).getVersion());
+        assertEquals(intact, Files.size(journal));
+
+        // Appends continue on a clean line boundary.
+        loaded.get(0).setMainFile("Other.java");
+        store.markDirty(loaded.get(0));
+        store.close();
+        store = new BotConfigStore(file);
+        loaded = store.load().get();
+        assertEquals("2.0", loaded.get(0).getVersion());
+        assertEquals("Other.java", loaded.get(0).getMainFile());
+        store.close();
+    }
+
+    @Test
+    void compactionKeepsEveryBotAsReplayed() throws Exception {
+        Path file = directory.resolve("bots-config.json");
+        BotConfigStore store = new BotConfigStore(file);
+        store.load().get();
+        Bot first = bot("b1", "First");
+        Bot second = bot("b2", "Second");
+        Bot third = bot("b3", "Third");
+        store.markDirty(first);
+        store.markDirty(second);
+        store.markDirty(third);
+        store.compact().get();
+        first.setJvmArgs("-Xmx256m");
+        first.setRestartPolicy(RestartPolicy.ON_FAILURE);
+        first.getEnvVariables().add(new EnvVariable("TOKEN", "abc"));
+        first.getEnvVariables().add(new EnvVariable("PREFIX", "!"));
+        store.markDirty(first);
+        store.flush().get();
+        first.getEnvVariables().remove(1);
+        first.getEnvVariables().get(0).setValue("def");
+        store.markDirty(first);
+        second.setDescription("Changed");
+        second.setStartupDelayMs(1500);
+        store.markDirty(second);
+        store.remove("b3");
+        store.close();
+
+        store = new BotConfigStore(file);
+        List<String> replayed = describe(store.load().get());
+        store.compact().get();
+        store.close();
+        assertEquals(0, Files.size(directory.resolve("bots-config.journal")));
+
+        store = new BotConfigStore(file);
+        assertEquals(replayed, describe(store.load().get()));
+        store.close();
+        assertEquals(List.of(
+                "b1|First||/bots/b1|1.0|Main.java|INFO|-Xmx256m|0|ON_FAILURE|TOKEN=def",
+                "b2|Second|Changed|/bots/b2|1.0|Main.java|INFO||1500|NEVER|"), replayed);
+    }
+
+    @Test
+    void corruptSnapshotIsMovedAside() throws Exception {
+        Path file = directory.resolve("bots-config.json");
+        Files.write(file, "{\"version\":2,\"bots\":[{\"id\":".getBytes(StandardCharsets.UTF_8));
+
+        BotConfigStore store = new BotConfigStore(file);
+        assertTrue(store.load().get().isEmpty());
+        List<Path> aside = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "bots-config.json.corrupt-*")) {
+            files.forEach(aside::add);
+        }
+        assertEquals(1, aside.size());
+        assertEquals("{\"version\":2,\"bots\":[{\"id\":", Files.readString(aside.get(0)));
+
+        // The store starts over without touching the moved file.
+        store.markDirty(bot("b1", "First"));
+        store.compact().get();
+        store.close();
+        store = new BotConfigStore(file);
+        assertEquals(List.of("First"), store.load().get().stream().map(Bot::getName).collect(Collectors.toList()));
+        store.close();
+        assertTrue(Files.exists(aside.get(0)));
+    }
+
+    private static Bot bot(String id, String name) {
+        return new Bot(id, name, "", "/bots/" + id, "1.0", "Main.java", "INFO", false);
+    }
+
+    private static List<String> describe(List<Bot> bots) {
+        List<String> described = new ArrayList<>();
+        for (Bot bot : bots) {
+            described.add(String.join("|", bot.getId(), bot.getName(), bot.getDescription(), bot.getProjectPath(),
+                    bot.getVersion(), bot.getMainFile(), bot.getLogLevel(), bot.getJvmArgs(),
+                    Integer.toString(bot.getStartupDelayMs()), bot.getRestartPolicy().name(),
+                    bot.getEnvVariables().stream().map(env -> env.getKey() + "=" + env.getValue()).collect(Collectors.joining(","))));
+        }
+        return described;
+    }
+}